@@ -0,0 +1,105 @@
+package br.com.alura.flightontime.carga;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Configuração do teste de carga: os valores padrão de {@code carga.properties} sobrescritos pelos argumentos
+ * {@code chave=valor}. Argumentos que começam com {@code --} são repassados à aplicação
+ * (ex.: {@code --spring.threads.virtual.enabled=true}).
+ */
+final class ConfiguracaoCarga {
+
+    private static final String PREFIXO_META = "slo.";
+    private static final String CHAVE_TAXA_ERROS = "slo.erros.taxa";
+
+    private final Properties propriedades;
+    private final List<String> argumentosAplicacao;
+
+    private ConfiguracaoCarga(Properties propriedades, List<String> argumentosAplicacao) {
+        this.propriedades = propriedades;
+        this.argumentosAplicacao = argumentosAplicacao;
+    }
+
+    static ConfiguracaoCarga de(String[] argumentos) {
+        Properties propriedades = new Properties();
+        try (InputStream entrada = ConfiguracaoCarga.class.getClassLoader().getResourceAsStream("carga.properties")) {
+            if (entrada != null) propriedades.load(entrada);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        List<String> argumentosAplicacao = new ArrayList<>();
+        for (String argumento : argumentos) {
+            if (argumento.isBlank()) continue;
+            if (argumento.startsWith("--")) {
+                argumentosAplicacao.add(argumento);
+                continue;
+            }
+            int separador = argumento.indexOf('=');
+            if (separador <= 0) {
+                throw new IllegalArgumentException("Argumento inválido (esperado chave=valor): " + argumento);
+            }
+            propriedades.setProperty(argumento.substring(0, separador).trim(), argumento.substring(separador + 1).trim());
+        }
+        return new ConfiguracaoCarga(propriedades, argumentosAplicacao);
+    }
+
+    String texto(String chave) {
+        String valor = propriedades.getProperty(chave);
+        if (valor == null) throw new IllegalArgumentException("Configuração ausente: " + chave);
+        return valor.trim();
+    }
+
+    String textoOuVazio(String chave) {
+        return propriedades.getProperty(chave, "").trim();
+    }
+
+    int inteiro(String chave) {
+        return Integer.parseInt(texto(chave));
+    }
+
+    double decimal(String chave) {
+        return Double.parseDouble(texto(chave));
+    }
+
+    boolean logico(String chave) {
+        return Boolean.parseBoolean(texto(chave));
+    }
+
+    Duration duracao(String chave) {
+        return Duration.parse(texto(chave));
+    }
+
+    List<String> argumentosAplicacao() {
+        return argumentosAplicacao;
+    }
+
+    /** Metas de latência no formato {@code slo.<endpoint>.<percentil>=<duração>}, ex.: {@code slo.predict.p99=PT0.25S}. */
+    Map<String, Duration> metasLatencia() {
+        Map<String, Duration> metas = new TreeMap<>();
+        for (String chave : propriedades.stringPropertyNames()) {
+            if (!chave.startsWith(PREFIXO_META) || chave.equals(CHAVE_TAXA_ERROS)) continue;
+            String valor = propriedades.getProperty(chave).trim();
+            if (!valor.isEmpty()) metas.put(chave.substring(PREFIXO_META.length()), Duration.parse(valor));
+        }
+        return metas;
+    }
+
+    double taxaMaximaErros() {
+        return decimal(CHAVE_TAXA_ERROS);
+    }
+
+    Map<String, String> resumo() {
+        Map<String, String> resumo = new TreeMap<>();
+        propriedades.stringPropertyNames().forEach(chave -> resumo.put(chave, propriedades.getProperty(chave)));
+        return resumo;
+    }
+}
@@ -0,0 +1,101 @@
+package br.com.alura.flightontime.carga;
+
+import br.com.alura.flightontime.FlightOnTimeApplication;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Teste de carga de ponta a ponta: sobe um PostgreSQL embarcado (migrado pelo Flyway da própria aplicação),
+ * o substituto do ml-api e o backend no mesmo processo, aquece, mede e gera o relatório. Termina com código 1
+ * se alguma meta de {@code slo.*} não for atendida e {@code falhar=true}.
+ *
+ * <p>Uso: {@code mvn -Pcarga verify -Dcarga.argumentos="duracao=PT30S concorrencia=128"}
+ */
+public final class ExecutorCarga {
+
+    private ExecutorCarga() {
+    }
+
+    public static void main(String[] argumentos) throws Exception {
+        ConfiguracaoCarga configuracao = ConfiguracaoCarga.de(argumentos);
+        MisturaTrafego mistura = MisturaTrafego.carregar(configuracao.texto("mistura"));
+
+        EmbeddedPostgres banco = null;
+        ServicoPrevisaoSimulado servicoPrevisao = new ServicoPrevisaoSimulado(configuracao);
+        ConfigurableApplicationContext aplicacao = null;
+        boolean metasAtendidas;
+        try {
+            String urlBanco = configuracao.textoOuVazio("banco.url");
+            if (urlBanco.isEmpty()) {
+                banco = EmbeddedPostgres.builder().start();
+                try (Connection conexao = banco.getPostgresDatabase().getConnection();
+                     Statement comando = conexao.createStatement()) {
+                    comando.execute("CREATE DATABASE flightontime");
+                }
+                urlBanco = banco.getJdbcUrl("postgres", "flightontime");
+            }
+            servicoPrevisao.iniciar();
+            aplicacao = iniciarAplicacao(configuracao, urlBanco, servicoPrevisao);
+
+            URI base = URI.create("http://127.0.0.1:" + aplicacao.getEnvironment().getProperty("local.server.port") + "/");
+            GeradorCarga gerador = new GeradorCarga(base, mistura, configuracao);
+            System.out.printf("Mistura com %d requisições em %s; %s%n", mistura.tamanho(), mistura.endpoints(),
+                    configuracao.resumo());
+
+            try (MonitorPausasGc gc = new MonitorPausasGc();
+                 MonitorPoolConexoes pool = new MonitorPoolConexoes(aplicacao.getBean(MeterRegistry.class))) {
+                System.out.println("Aquecendo por " + configuracao.duracao("aquecimento"));
+                gerador.executar(configuracao.duracao("aquecimento"));
+
+                gc.zerar();
+                pool.zerar();
+                servicoPrevisao.zerar();
+                System.out.println("Medindo por " + configuracao.duracao("duracao"));
+                GeradorCarga.Resultado resultado = gerador.executar(configuracao.duracao("duracao"));
+
+                RelatorioCarga relatorio = new RelatorioCarga(resultado, pool.estatisticas(), gc, servicoPrevisao, configuracao);
+                relatorio.imprimir(System.out);
+                Path arquivo = Path.of(configuracao.texto("relatorio"));
+                relatorio.gravar(arquivo);
+                System.out.println("Relatório gravado em " + arquivo.toAbsolutePath());
+                metasAtendidas = relatorio.violacoes().isEmpty();
+            }
+        } finally {
+            if (aplicacao != null) aplicacao.close();
+            servicoPrevisao.parar();
+            if (banco != null) banco.close();
+        }
+
+        if (!metasAtendidas && configuracao.logico("falhar")) {
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    private static ConfigurableApplicationContext iniciarAplicacao(ConfiguracaoCarga configuracao, String urlBanco,
+                                                                   ServicoPrevisaoSimulado servicoPrevisao) {
+        // O devtools reiniciaria a aplicação em outro classloader, fora do alcance do gerador
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        // Argumentos de linha de comando, porque precisam prevalecer sobre o application.properties
+        List<String> argumentos = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=" + urlBanco,
+                "--spring.datasource.username=" + configuracao.texto("banco.usuario"),
+                "--spring.datasource.password=" + configuracao.texto("banco.senha"),
+                "--api.previsao.uri=" + servicoPrevisao.uri(),
+                // Todo o tráfego vem de um só cliente; o limite por IP rejeitaria a carga antes de medi-la
+                "--api.admissao.habilitada=false"));
+        argumentos.addAll(configuracao.argumentosAplicacao());
+        return new SpringApplicationBuilder(FlightOnTimeApplication.class).run(argumentos.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,132 @@
+package br.com.alura.flightontime.carga;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Dispara a mistura de tráfego contra o backend. Em malha fechada ({@code taxa=0}), {@code concorrencia}
+ * usuários enviam a próxima requisição assim que recebem a resposta. Em malha aberta, as requisições partem
+ * em intervalos fixos independentemente das respostas, e a latência é contada a partir do instante em que a
+ * requisição deveria ter saído, para que atrasos do próprio gerador não escondam filas no servidor.
+ */
+final class GeradorCarga {
+
+    /** Latências das respostas 2xx em nanossegundos, erros e contagem por status de um endpoint. */
+    static final class Medicao {
+        final Histogram latencias = new ConcurrentHistogram(3);
+        final LongAdder erros = new LongAdder();
+        final Map<Integer, LongAdder> status = new ConcurrentHashMap<>();
+
+        long requisicoes() {
+            return latencias.getTotalCount() + erros.sum();
+        }
+    }
+
+    record Resultado(Map<String, Medicao> porEndpoint, Duration duracao) {
+    }
+
+    // Status usado quando a requisição não chega a ter resposta (conexão recusada, timeout)
+    static final int SEM_RESPOSTA = 0;
+
+    private final HttpClient cliente;
+    private final URI base;
+    private final MisturaTrafego mistura;
+    private final int concorrencia;
+    private final double taxa;
+    private final Duration timeout;
+
+    GeradorCarga(URI base, MisturaTrafego mistura, ConfiguracaoCarga configuracao) {
+        this.base = base;
+        this.mistura = mistura;
+        this.concorrencia = configuracao.inteiro("concorrencia");
+        this.taxa = configuracao.decimal("taxa");
+        this.timeout = configuracao.duracao("timeout");
+        this.cliente = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    Resultado executar(Duration duracao) {
+        Map<String, Medicao> medicoes = new TreeMap<>();
+        mistura.endpoints().forEach(endpoint -> medicoes.put(endpoint, new Medicao()));
+
+        long inicio = System.nanoTime();
+        long fim = inicio + duracao.toNanos();
+        try (ExecutorService usuarios = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (taxa > 0) {
+                malhaAberta(usuarios, medicoes, inicio, fim);
+            } else {
+                for (int i = 0; i < concorrencia; i++) {
+                    usuarios.submit(() -> {
+                        while (System.nanoTime() < fim) {
+                            enviar(medicoes, System.nanoTime());
+                        }
+                    });
+                }
+            }
+        }
+        return new Resultado(medicoes, Duration.ofNanos(System.nanoTime() - inicio));
+    }
+
+    private void malhaAberta(ExecutorService usuarios, Map<String, Medicao> medicoes, long inicio, long fim) {
+        double intervalo = TimeUnit.SECONDS.toNanos(1) / taxa;
+        for (long i = 0; ; i++) {
+            long previsto = inicio + (long) (i * intervalo);
+            if (previsto >= fim) return;
+            long espera = previsto - System.nanoTime();
+            if (espera > 0) LockSupport.parkNanos(espera);
+            usuarios.submit(() -> enviar(medicoes, previsto));
+        }
+    }
+
+    private void enviar(Map<String, Medicao> medicoes, long inicioPrevisto) {
+        MisturaTrafego.Requisicao requisicao = mistura.proxima();
+        Medicao medicao = medicoes.get(requisicao.endpoint());
+
+        int status;
+        try {
+            status = cliente.send(montar(requisicao), HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception ex) {
+            status = SEM_RESPOSTA;
+        }
+        long latencia = System.nanoTime() - inicioPrevisto;
+
+        medicao.status.computeIfAbsent(status, s -> new LongAdder()).increment();
+        if (status >= 200 && status < 300) {
+            medicao.latencias.recordValue(latencia);
+        } else {
+            medicao.erros.increment();
+        }
+    }
+
+    private HttpRequest montar(MisturaTrafego.Requisicao requisicao) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(base.resolve(requisicao.caminho()))
+                .timeout(timeout)
+                .header("Accept", "application/json");
+        if (requisicao.corpo() == null) {
+            return builder.method(requisicao.metodo(), HttpRequest.BodyPublishers.noBody()).build();
+        }
+        return builder.header("Content-Type", "application/json")
+                .method(requisicao.metodo(), HttpRequest.BodyPublishers.ofString(requisicao.corpo()))
+                .build();
+    }
+}
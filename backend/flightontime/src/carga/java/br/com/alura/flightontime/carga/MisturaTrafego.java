@@ -0,0 +1,93 @@
+package br.com.alura.flightontime.carga;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tráfego gravado, reproduzido em ordem e em ciclo. Cada linha do arquivo é uma requisição no formato
+ * {@code MÉTODO caminho [corpo]}; linhas vazias e começando com {@code #} são ignoradas. No corpo,
+ * {@value #DATA_PARTIDA} é trocado por uma data futura aleatória, para que a gravação não expire e o
+ * cache de previsões veja chaves variadas como em produção.
+ */
+final class MisturaTrafego {
+
+    static final String DATA_PARTIDA = "{dataPartida}";
+
+    record Requisicao(String metodo, String caminho, String corpo, String endpoint) {
+    }
+
+    private final List<Requisicao> requisicoes;
+    private final AtomicLong proxima = new AtomicLong();
+
+    private MisturaTrafego(List<Requisicao> requisicoes) {
+        this.requisicoes = requisicoes;
+    }
+
+    /** Lê do classpath ou, se não existir lá, do sistema de arquivos. */
+    static MisturaTrafego carregar(String origem) {
+        try (InputStream recurso = MisturaTrafego.class.getClassLoader().getResourceAsStream(origem)) {
+            String conteudo = recurso != null
+                    ? new String(recurso.readAllBytes(), StandardCharsets.UTF_8)
+                    : Files.readString(Path.of(origem));
+            return new MisturaTrafego(interpretar(conteudo));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Não foi possível ler a mistura de tráfego " + origem, ex);
+        }
+    }
+
+    private static List<Requisicao> interpretar(String conteudo) {
+        List<Requisicao> requisicoes = new ArrayList<>();
+        for (String linha : conteudo.split("\n")) {
+            linha = linha.strip();
+            if (linha.isEmpty() || linha.startsWith("#")) continue;
+
+            String[] partes = linha.split(" ", 3);
+            if (partes.length < 2) throw new IllegalArgumentException("Linha inválida na mistura de tráfego: " + linha);
+            requisicoes.add(new Requisicao(partes[0], partes[1], partes.length == 3 ? partes[2] : null, endpoint(partes[1])));
+        }
+        if (requisicoes.isEmpty()) throw new IllegalArgumentException("Mistura de tráfego vazia");
+        return requisicoes;
+    }
+
+    /** {@code /autocomplete/aeroportos?termo=sao} vira {@code autocomplete-aeroportos}. */
+    private static String endpoint(String caminho) {
+        int consulta = caminho.indexOf('?');
+        String semConsulta = consulta < 0 ? caminho : caminho.substring(0, consulta);
+        return semConsulta.replaceAll("^/+|/+$", "").replace('/', '-');
+    }
+
+    Requisicao proxima() {
+        Requisicao gravada = requisicoes.get((int) (proxima.getAndIncrement() % requisicoes.size()));
+        if (gravada.corpo() == null || !gravada.corpo().contains(DATA_PARTIDA)) return gravada;
+
+        String corpo = gravada.corpo();
+        while (corpo.contains(DATA_PARTIDA)) {
+            corpo = corpo.replaceFirst("\\{dataPartida}", dataFutura().toString());
+        }
+        return new Requisicao(gravada.metodo(), gravada.caminho(), corpo, gravada.endpoint());
+    }
+
+    List<String> endpoints() {
+        return requisicoes.stream().map(Requisicao::endpoint).distinct().sorted().toList();
+    }
+
+    int tamanho() {
+        return requisicoes.size();
+    }
+
+    // Entre 1 e 180 dias à frente, em múltiplos de 5 minutos
+    private static LocalDateTime dataFutura() {
+        long minutos = ThreadLocalRandom.current().nextLong(24 * 60, 180 * 24 * 60) / 5 * 5;
+        return LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusMinutes(minutos);
+    }
+}
@@ -0,0 +1,99 @@
+package br.com.alura.flightontime.carga;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registra as pausas de GC da JVM durante a medição. Ciclos concorrentes (as threads do ZGC e a marcação
+ * do G1) não param a aplicação e ficam de fora. Backend e gerador rodam no mesmo processo, então as pausas
+ * afetam os dois.
+ */
+final class MonitorPausasGc implements NotificationListener, AutoCloseable {
+
+    // Em milissegundos, a resolução da notificação
+    private final Histogram pausas = new ConcurrentHistogram(3);
+    private final LongAdder totalMs = new LongAdder();
+    private final Map<String, LongAdder> porColetor = new ConcurrentHashMap<>();
+    private final List<NotificationEmitter> emissores = new ArrayList<>();
+
+    MonitorPausasGc() {
+        for (GarbageCollectorMXBean coletor : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (coletor instanceof NotificationEmitter emissor) {
+                emissor.addNotificationListener(this, null, null);
+                emissores.add(emissor);
+            }
+        }
+    }
+
+    @Override
+    public void handleNotification(Notification notificacao, Object contexto) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notificacao.getType())) return;
+
+        var info = GarbageCollectionNotificationInfo.from((CompositeData) notificacao.getUserData());
+        if (concorrente(info)) return;
+        pausas.recordValue(info.getGcInfo().getDuration());
+        totalMs.add(info.getGcInfo().getDuration());
+        porColetor.computeIfAbsent(info.getGcName(), nome -> new LongAdder()).increment();
+    }
+
+    private static boolean concorrente(GarbageCollectionNotificationInfo info) {
+        return "No GC".equals(info.getGcCause())
+                || info.getGcName().contains("Cycles")
+                || info.getGcName().contains("Concurrent");
+    }
+
+    /** Descarta o que foi registrado até aqui, ex.: as pausas do aquecimento. */
+    void zerar() {
+        pausas.reset();
+        totalMs.reset();
+        porColetor.clear();
+    }
+
+    long quantidade() {
+        return pausas.getTotalCount();
+    }
+
+    long totalMs() {
+        return totalMs.sum();
+    }
+
+    long maximaMs() {
+        return pausas.getMaxValue();
+    }
+
+    long percentilMs(double percentil) {
+        return pausas.getValueAtPercentile(percentil);
+    }
+
+    Map<String, Long> porColetor() {
+        Map<String, Long> contagem = new TreeMap<>();
+        porColetor.forEach((nome, quantidade) -> contagem.put(nome, quantidade.sum()));
+        return contagem;
+    }
+
+    @Override
+    public void close() {
+        for (NotificationEmitter emissor : emissores) {
+            try {
+                emissor.removeNotificationListener(this);
+            } catch (ListenerNotFoundException ignorada) {
+                // já removido
+            }
+        }
+    }
+}
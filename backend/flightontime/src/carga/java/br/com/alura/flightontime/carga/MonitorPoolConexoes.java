@@ -0,0 +1,74 @@
+package br.com.alura.flightontime.carga;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Espera por conexões do Hikari durante a medição, lida das métricas que o Spring Boot publica para o pool:
+ * o timer {@code hikaricp.connections.acquire} dá quantas conexões foram pedidas e quanto se esperou por elas,
+ * e os gauges de conexões ativas e de threads aguardando são amostrados a cada 100 ms para guardar o pico.
+ */
+final class MonitorPoolConexoes implements AutoCloseable {
+
+    record Estatisticas(boolean disponivel, long aquisicoes, double esperaMediaMs, double esperaMaximaMs,
+                        int ativasMaximo, int aguardandoMaximo) {
+    }
+
+    private static final long INTERVALO_AMOSTRAGEM_MS = 100;
+
+    private final Timer aquisicao;
+    private final Gauge ativas;
+    private final Gauge aguardando;
+    private final Thread amostrador;
+
+    private volatile long contagemInicial;
+    private volatile double totalInicialMs;
+    private volatile int ativasMaximo;
+    private volatile int aguardandoMaximo;
+
+    MonitorPoolConexoes(MeterRegistry registro) {
+        this.aquisicao = registro.find("hikaricp.connections.acquire").timer();
+        this.ativas = registro.find("hikaricp.connections.active").gauge();
+        this.aguardando = registro.find("hikaricp.connections.pending").gauge();
+        this.amostrador = Thread.ofVirtual().name("amostrador-hikari").start(this::amostrar);
+    }
+
+    /** Passa a contar a partir de agora, ex.: depois do aquecimento. */
+    void zerar() {
+        if (aquisicao != null) {
+            contagemInicial = aquisicao.count();
+            totalInicialMs = aquisicao.totalTime(TimeUnit.MILLISECONDS);
+        }
+        ativasMaximo = 0;
+        aguardandoMaximo = 0;
+    }
+
+    Estatisticas estatisticas() {
+        if (aquisicao == null) return new Estatisticas(false, 0, 0, 0, 0, 0);
+        long aquisicoes = aquisicao.count() - contagemInicial;
+        double totalMs = aquisicao.totalTime(TimeUnit.MILLISECONDS) - totalInicialMs;
+        // O máximo do timer é o da janela de expiração do Micrometer, não só o do período medido
+        return new Estatisticas(true, aquisicoes, aquisicoes == 0 ? 0 : totalMs / aquisicoes,
+                aquisicao.max(TimeUnit.MILLISECONDS), ativasMaximo, aguardandoMaximo);
+    }
+
+    private void amostrar() {
+        while (!Thread.currentThread().isInterrupted()) {
+            if (ativas != null) ativasMaximo = Math.max(ativasMaximo, (int) ativas.value());
+            if (aguardando != null) aguardandoMaximo = Math.max(aguardandoMaximo, (int) aguardando.value());
+            try {
+                Thread.sleep(INTERVALO_AMOSTRAGEM_MS);
+            } catch (InterruptedException ex) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        amostrador.interrupt();
+    }
+}
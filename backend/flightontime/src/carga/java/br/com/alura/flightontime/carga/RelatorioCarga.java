@@ -0,0 +1,161 @@
+package br.com.alura.flightontime.carga;
+
+import org.HdrHistogram.Histogram;
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Resultado do teste de carga: a tabela por endpoint no console, o mesmo conteúdo em JSON para comparar
+ * execuções e a verificação das metas de latência e de taxa de erros.
+ */
+final class RelatorioCarga {
+
+    private static final List<String> PERCENTIS = List.of("p50", "p95", "p99", "p999");
+
+    private final GeradorCarga.Resultado resultado;
+    private final MonitorPoolConexoes.Estatisticas pool;
+    private final MonitorPausasGc gc;
+    private final ServicoPrevisaoSimulado servicoPrevisao;
+    private final ConfiguracaoCarga configuracao;
+    private final List<String> violacoes = new ArrayList<>();
+
+    RelatorioCarga(GeradorCarga.Resultado resultado, MonitorPoolConexoes.Estatisticas pool, MonitorPausasGc gc,
+                   ServicoPrevisaoSimulado servicoPrevisao, ConfiguracaoCarga configuracao) {
+        this.resultado = resultado;
+        this.pool = pool;
+        this.gc = gc;
+        this.servicoPrevisao = servicoPrevisao;
+        this.configuracao = configuracao;
+        verificarMetas();
+    }
+
+    List<String> violacoes() {
+        return violacoes;
+    }
+
+    void imprimir(PrintStream saida) {
+        double segundos = resultado.duracao().toNanos() / 1e9;
+        saida.println();
+        saida.printf(Locale.ROOT, "%-28s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "req", "erros", "req/s", "p50 ms", "p95 ms", "p99 ms", "p999 ms", "max ms");
+        resultado.porEndpoint().forEach((endpoint, medicao) -> {
+            Histogram h = medicao.latencias;
+            saida.printf(Locale.ROOT, "%-28s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    endpoint, medicao.requisicoes(), medicao.erros.sum(), medicao.requisicoes() / segundos,
+                    ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(95)), ms(h.getValueAtPercentile(99)),
+                    ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue()));
+        });
+        saida.printf(Locale.ROOT, "%-28s %9d %7d %9.1f%n", "total", totalRequisicoes(), totalErros(),
+                totalRequisicoes() / segundos);
+
+        saida.println();
+        resultado.porEndpoint().forEach((endpoint, medicao) -> saida.printf("status %-21s %s%n", endpoint, status(medicao)));
+        if (!pool.disponivel()) {
+            saida.println("hikari: métricas do pool não encontradas");
+        } else {
+            saida.printf(Locale.ROOT, "hikari: %d aquisições, espera média %.3f ms, máxima %.3f ms, pico de %d ativas e %d aguardando%n",
+                    pool.aquisicoes(), pool.esperaMediaMs(), pool.esperaMaximaMs(), pool.ativasMaximo(), pool.aguardandoMaximo());
+        }
+        saida.printf(Locale.ROOT, "gc: %d pausas, total %d ms, p99 %d ms, máxima %d ms %s%n",
+                gc.quantidade(), gc.totalMs(), gc.percentilMs(99), gc.maximaMs(), gc.porColetor());
+        saida.printf("serviço de previsão simulado: %d chamadas, %d falhas%n", servicoPrevisao.chamadas(), servicoPrevisao.falhas());
+
+        saida.println();
+        if (violacoes.isEmpty()) {
+            saida.println("Metas atendidas.");
+        } else {
+            violacoes.forEach(violacao -> saida.println("META NÃO ATENDIDA: " + violacao));
+        }
+    }
+
+    void gravar(Path arquivo) throws Exception {
+        Map<String, Object> endpoints = new TreeMap<>();
+        double segundos = resultado.duracao().toNanos() / 1e9;
+        resultado.porEndpoint().forEach((endpoint, medicao) -> {
+            Map<String, Object> dados = new LinkedHashMap<>();
+            dados.put("requisicoes", medicao.requisicoes());
+            dados.put("erros", medicao.erros.sum());
+            dados.put("vazao", medicao.requisicoes() / segundos);
+            Map<String, Double> latencias = new LinkedHashMap<>();
+            for (String percentil : PERCENTIS) {
+                latencias.put(percentil, ms(medicao.latencias.getValueAtPercentile(percentil(percentil))));
+            }
+            latencias.put("max", ms(medicao.latencias.getMaxValue()));
+            dados.put("latenciaMs", latencias);
+            dados.put("status", status(medicao));
+            endpoints.put(endpoint, dados);
+        });
+
+        Map<String, Object> relatorio = new LinkedHashMap<>();
+        relatorio.put("configuracao", configuracao.resumo());
+        relatorio.put("duracaoSegundos", segundos);
+        relatorio.put("endpoints", endpoints);
+        relatorio.put("hikari", pool);
+        relatorio.put("gc", Map.of("pausas", gc.quantidade(), "totalMs", gc.totalMs(), "p99Ms", gc.percentilMs(99),
+                "maximaMs", gc.maximaMs(), "porColetor", gc.porColetor()));
+        relatorio.put("servicoPrevisao", Map.of("chamadas", servicoPrevisao.chamadas(), "falhas", servicoPrevisao.falhas()));
+        relatorio.put("violacoes", violacoes);
+
+        if (arquivo.getParent() != null) Files.createDirectories(arquivo.getParent());
+        JsonMapper.builder().enable(SerializationFeature.INDENT_OUTPUT).build().writeValue(arquivo.toFile(), relatorio);
+    }
+
+    private void verificarMetas() {
+        configuracao.metasLatencia().forEach((chave, meta) -> {
+            int ponto = chave.lastIndexOf('.');
+            String endpoint = chave.substring(0, ponto);
+            String percentil = chave.substring(ponto + 1);
+            GeradorCarga.Medicao medicao = resultado.porEndpoint().get(endpoint);
+            if (medicao == null) {
+                violacoes.add(chave + ": endpoint não está na mistura de tráfego");
+                return;
+            }
+            long medido = percentil.equals("max")
+                    ? medicao.latencias.getMaxValue()
+                    : medicao.latencias.getValueAtPercentile(percentil(percentil));
+            if (medido > meta.toNanos()) {
+                violacoes.add(String.format(Locale.ROOT, "%s = %.2f ms, meta %.2f ms", chave, ms(medido), ms(meta.toNanos())));
+            }
+        });
+
+        double taxaErros = totalRequisicoes() == 0 ? 1 : (double) totalErros() / totalRequisicoes();
+        if (taxaErros > configuracao.taxaMaximaErros()) {
+            violacoes.add(String.format(Locale.ROOT, "taxa de erros = %.4f, meta %.4f", taxaErros, configuracao.taxaMaximaErros()));
+        }
+    }
+
+    /** {@code p50} → 50, {@code p99} → 99, {@code p999} → 99,9. */
+    private static double percentil(String nome) {
+        if (!nome.matches("p\\d{2,}")) throw new IllegalArgumentException("Percentil inválido: " + nome);
+        String digitos = nome.substring(1);
+        return Double.parseDouble(digitos.substring(0, 2) + "." + digitos.substring(2));
+    }
+
+    private static Map<Integer, Long> status(GeradorCarga.Medicao medicao) {
+        Map<Integer, Long> contagem = new TreeMap<>();
+        medicao.status.forEach((status, quantidade) -> contagem.put(status, quantidade.sum()));
+        return contagem;
+    }
+
+    private long totalRequisicoes() {
+        return resultado.porEndpoint().values().stream().mapToLong(GeradorCarga.Medicao::requisicoes).sum();
+    }
+
+    private long totalErros() {
+        return resultado.porEndpoint().values().stream().mapToLong(medicao -> medicao.erros.sum()).sum();
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1e6;
+    }
+}
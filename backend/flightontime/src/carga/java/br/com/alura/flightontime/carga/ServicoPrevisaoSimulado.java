@@ -0,0 +1,157 @@
+package br.com.alura.flightontime.carga;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Substituto do ml-api para o teste de carga, no mesmo processo. Responde {@code /predict},
+ * {@code /predict/lote} e {@code /health} com o formato da API real. A latência segue uma distribuição
+ * log-normal definida pela mediana e pelo p99. Uma fração das chamadas pode falhar com 500, e uma janela de
+ * indisponibilidade (503) pode ser configurada para exercitar o circuit breaker.
+ */
+final class ServicoPrevisaoSimulado {
+
+    // Quantil 0,99 da normal padrão
+    private static final double Z_P99 = 2.326;
+
+    private final HttpServer servidor;
+    private final double mi;
+    private final double sigma;
+    private final double taxaErros;
+    private final Duration inicioIndisponibilidade;
+    private final Duration duracaoIndisponibilidade;
+    private final AtomicLong chamadas = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+    private volatile long inicioNanos;
+
+    ServicoPrevisaoSimulado(ConfiguracaoCarga configuracao) throws IOException {
+        Duration mediana = configuracao.duracao("stub.latencia.mediana");
+        Duration p99 = configuracao.duracao("stub.latencia.p99");
+        this.mi = Math.log(Math.max(mediana.toNanos(), 1));
+        this.sigma = Math.max(0, (Math.log(Math.max(p99.toNanos(), 1)) - mi) / Z_P99);
+        this.taxaErros = configuracao.decimal("stub.erros.taxa");
+        this.inicioIndisponibilidade = configuracao.duracao("stub.indisponivel.inicio");
+        this.duracaoIndisponibilidade = configuracao.duracao("stub.indisponivel.duracao");
+
+        // Sem isso, o Nagle segura as respostas pequenas por até 40 ms
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        this.servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        this.servidor.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        this.servidor.createContext("/predict", this::prever);
+        this.servidor.createContext("/health", troca -> responder(troca, 200,
+                "{\"status\":\"healthy\",\"modelo_carregado\":true,\"data_treinamento\":\"carga\",\"metricas\":{}}"));
+    }
+
+    void iniciar() {
+        inicioNanos = System.nanoTime();
+        servidor.start();
+    }
+
+    /** Zera os contadores e passa a contar a janela de indisponibilidade a partir de agora. */
+    void zerar() {
+        chamadas.set(0);
+        falhas.set(0);
+        inicioNanos = System.nanoTime();
+    }
+
+    void parar() {
+        servidor.stop(0);
+    }
+
+    String uri() {
+        return "http://127.0.0.1:" + servidor.getAddress().getPort() + "/predict";
+    }
+
+    long chamadas() {
+        return chamadas.get();
+    }
+
+    long falhas() {
+        return falhas.get();
+    }
+
+    private void prever(HttpExchange troca) throws IOException {
+        chamadas.incrementAndGet();
+        byte[] corpo = lerCorpo(troca);
+        var aleatorio = ThreadLocalRandom.current();
+
+        long latencia = (long) Math.exp(mi + sigma * aleatorio.nextGaussian());
+        try {
+            Thread.sleep(Duration.ofNanos(latencia));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (indisponivel()) {
+            falhas.incrementAndGet();
+            responder(troca, 503, "{\"detail\":\"Modelo não disponível\"}");
+            return;
+        }
+        if (aleatorio.nextDouble() < taxaErros) {
+            falhas.incrementAndGet();
+            responder(troca, 500, "{\"detail\":\"Erro simulado\"}");
+            return;
+        }
+
+        String json = new String(corpo, StandardCharsets.UTF_8);
+        if (troca.getRequestURI().getPath().endsWith("/lote")) {
+            // Os itens do lote são objetos planos, então cada '{' é um voo
+            StringBuilder resposta = new StringBuilder("[");
+            int inicio = json.indexOf('{');
+            while (inicio >= 0) {
+                int fim = json.indexOf('}', inicio);
+                if (resposta.length() > 1) resposta.append(',');
+                resposta.append(saida(json.substring(inicio, fim + 1)));
+                inicio = json.indexOf('{', fim);
+            }
+            responder(troca, 200, resposta.append(']').toString());
+        } else {
+            responder(troca, 200, saida(json));
+        }
+    }
+
+    private boolean indisponivel() {
+        if (duracaoIndisponibilidade.isZero()) return false;
+        long decorrido = System.nanoTime() - inicioNanos;
+        return decorrido >= inicioIndisponibilidade.toNanos()
+                && decorrido < inicioIndisponibilidade.plus(duracaoIndisponibilidade).toNanos();
+    }
+
+    // Probabilidade estável por vetor de features, para que o cache do backend se comporte como com o modelo real
+    private static String saida(String voo) {
+        double probabilidade = Math.floorMod(voo.hashCode(), 10_000) / 10_000.0;
+        return String.format(Locale.ROOT,
+                "{\"previsao\":\"%s\",\"probabilidade_atraso\":%.4f,\"confianca_percentual\":\"%.1f%%\",\"timestamp\":\"%s\"}",
+                probabilidade > 0.5 ? "Atrasado" : "Pontual", probabilidade, probabilidade * 100, LocalDateTime.now());
+    }
+
+    private static byte[] lerCorpo(HttpExchange troca) throws IOException {
+        boolean gzip = "gzip".equalsIgnoreCase(troca.getRequestHeaders().getFirst("Content-Encoding"));
+        try (InputStream entrada = gzip ? new GZIPInputStream(troca.getRequestBody()) : troca.getRequestBody()) {
+            return entrada.readAllBytes();
+        }
+    }
+
+    private static void responder(HttpExchange troca, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        troca.getResponseHeaders().set("Content-Type", "application/json");
+        troca.sendResponseHeaders(status, bytes.length);
+        try (OutputStream saida = troca.getResponseBody()) {
+            saida.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package br.com.alura.flightontime.busca;
+
+import br.com.alura.flightontime.dto.response.ResponseAutoCompleteAeroportoDTO;
+import br.com.alura.flightontime.dto.response.ResponseAutoCompleteCompanhiaAereaDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buscas do autocomplete sobre os dados completos das migrações, com os mesmos tamanhos de n-grama e
+ * limite usados por {@link IndiceAeroportos}, {@link IndiceCompanhiasAereas} e pelo AutoCompleteService,
+ * além da busca por proximidade e da distância entre aeroportos na {@link GradeGeografica}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AutoCompleteBenchmark {
+
+    private static final int LIMITE = 5;
+
+    @State(Scope.Benchmark)
+    public static class Aeroportos {
+
+        // Código completo, prefixo comum, nome com acento, termo com muitos candidatos e termo sem resultado
+        @Param({"GRU", "sao", "guarulhos", "são paulo", "int", "xyzw"})
+        public String termo;
+
+        IndiceBusca<ResponseAutoCompleteAeroportoDTO> indice;
+
+        @Setup(Level.Trial)
+        public void construir() {
+            indice = IndiceBusca.construir(DadosMigracoes.aeroportos(), new PontuadorAeroporto(),
+                    a -> new ResponseAutoCompleteAeroportoDTO(a.getNomeAeroporto(), a.getCodigoIata(), a.getCodigoIcao(), a.getLatitude(), a.getLongitude()),
+                    3);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Companhias {
+
+        // Termo de 2 caracteres (abaixo do n-grama da busca de aeroportos), código, nome e termo sem resultado
+        @Param({"go", "GLO", "latam", "american", "zzq"})
+        public String termo;
+
+        IndiceBusca<ResponseAutoCompleteCompanhiaAereaDTO> indice;
+
+        @Setup(Level.Trial)
+        public void construir() {
+            indice = IndiceBusca.construir(DadosMigracoes.companhiasAereas(), new PontuadorCompanhiaAerea(),
+                    c -> new ResponseAutoCompleteCompanhiaAereaDTO(c.getNome(), c.getCodigoIata(), c.getCodigoIcao()),
+                    2);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Grade {
+
+        // São Paulo (região densa), raio grande em Londres, interior da Amazônia e perto do antimeridiano
+        @Param({"-23.55,-46.63,50", "51.5,-0.12,300", "-5.0,-63.0,100", "-17.7,179.9,200"})
+        public String consulta;
+
+        GradeGeografica<ResponseAutoCompleteAeroportoDTO> grade;
+        double latitude;
+        double longitude;
+        double raioKm;
+
+        @Setup(Level.Trial)
+        public void construir() {
+            grade = GradeGeografica.construir(DadosMigracoes.aeroportos(), a -> a.getLatitude(), a -> a.getLongitude(),
+                    a -> a.getCodigoIcao(),
+                    a -> new ResponseAutoCompleteAeroportoDTO(a.getNomeAeroporto(), a.getCodigoIata(), a.getCodigoIcao(), a.getLatitude(), a.getLongitude()));
+            String[] partes = consulta.split(",");
+            latitude = Double.parseDouble(partes[0]);
+            longitude = Double.parseDouble(partes[1]);
+            raioKm = Double.parseDouble(partes[2]);
+        }
+    }
+
+    @Benchmark
+    public List<ResponseAutoCompleteAeroportoDTO> buscarAeroportos(Aeroportos estado) {
+        return estado.indice.buscar(estado.termo, LIMITE);
+    }
+
+    @Benchmark
+    public List<ResponseAutoCompleteCompanhiaAereaDTO> buscarCompanhiasAereas(Companhias estado) {
+        return estado.indice.buscar(estado.termo, LIMITE);
+    }
+
+    @Benchmark
+    public List<GradeGeografica.Proximo<ResponseAutoCompleteAeroportoDTO>> buscarAeroportosProximos(Grade estado) {
+        return estado.grade.proximos(estado.latitude, estado.longitude, estado.raioKm, 10);
+    }
+
+    @Benchmark
+    public Double distanciaRota(Grade estado) {
+        return estado.grade.distanciaKm("SBGR", "SBGL");
+    }
+}
@@ -0,0 +1,116 @@
+package br.com.alura.flightontime.busca;
+
+import br.com.alura.flightontime.model.Aeroporto;
+import br.com.alura.flightontime.model.CompanhiaAerea;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lê os aeroportos e companhias aéreas dos scripts do Flyway no classpath, para que os benchmarks usem os
+ * mesmos dados da aplicação sem depender de um banco. Entende apenas o formato dos próprios scripts:
+ * {@code INSERT ... VALUES} com tuplas de strings entre aspas simples, números e {@code NULL}.
+ */
+public final class DadosMigracoes {
+
+    private static final String AEROPORTOS = "db/migration/V1__criar_tabela_aeroportos.sql";
+    private static final String COMPANHIAS = "db/migration/V2__criar_tabela_companhias.sql";
+
+    private DadosMigracoes() {
+    }
+
+    /** Colunas: icao, iata, name, city, state, country, elevation, lat, lon, tz. */
+    public static List<Aeroporto> aeroportos() {
+        List<Aeroporto> aeroportos = new ArrayList<>();
+        for (String[] linha : tuplas(AEROPORTOS)) {
+            aeroportos.add(new Aeroporto(linha[0], linha[1], linha[2], decimal(linha[7]), decimal(linha[8]),
+                    linha[5], linha[4], linha[3], linha[9]));
+        }
+        return aeroportos;
+    }
+
+    /** Colunas: airline_id, name, alias, iata, icao, callsign, country, active. */
+    public static List<CompanhiaAerea> companhiasAereas() {
+        List<CompanhiaAerea> companhias = new ArrayList<>();
+        for (String[] linha : tuplas(COMPANHIAS)) {
+            companhias.add(new CompanhiaAerea(Integer.valueOf(linha[0]), linha[1], linha[2], linha[3], linha[4],
+                    linha[6], linha[7]));
+        }
+        return companhias;
+    }
+
+    private static List<String[]> tuplas(String recurso) {
+        String sql = ler(recurso);
+        List<String[]> tuplas = new ArrayList<>();
+        List<String> valores = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+
+        int i = inicioValores(sql, 0);
+        boolean emTupla = false;
+        boolean emTexto = false;
+        boolean foiTexto = false;
+        while (i >= 0 && i < sql.length()) {
+            char c = sql.charAt(i++);
+            if (emTexto) {
+                if (c != '\'') {
+                    atual.append(c);
+                } else if (i < sql.length() && sql.charAt(i) == '\'') {
+                    atual.append('\'');
+                    i++;
+                } else {
+                    emTexto = false;
+                }
+            } else if (!emTupla) {
+                // Entre tuplas só há vírgulas; qualquer outra coisa (ON CONFLICT, ';') encerra o bloco,
+                // e um script pode ter vários INSERTs
+                if (c == '(') {
+                    emTupla = true;
+                } else if (c != ',' && !Character.isWhitespace(c)) {
+                    i = inicioValores(sql, i);
+                }
+            } else if (c == '\'') {
+                emTexto = true;
+                foiTexto = true;
+            } else if (c == ',' || c == ')') {
+                valores.add(valor(atual, foiTexto));
+                atual.setLength(0);
+                foiTexto = false;
+                if (c == ')') {
+                    tuplas.add(valores.toArray(String[]::new));
+                    valores.clear();
+                    emTupla = false;
+                }
+            } else if (!Character.isWhitespace(c)) {
+                atual.append(c);
+            }
+        }
+        return tuplas;
+    }
+
+    private static int inicioValores(String sql, int desde) {
+        int posicao = sql.indexOf("VALUES", desde);
+        return posicao < 0 ? -1 : posicao + "VALUES".length();
+    }
+
+    private static String valor(StringBuilder atual, boolean foiTexto) {
+        String valor = atual.toString();
+        return !foiTexto && valor.equalsIgnoreCase("NULL") ? null : valor;
+    }
+
+    private static Double decimal(String valor) {
+        return valor == null ? null : Double.valueOf(valor);
+    }
+
+    private static String ler(String recurso) {
+        try (InputStream entrada = DadosMigracoes.class.getClassLoader().getResourceAsStream(recurso)) {
+            if (entrada == null) throw new IllegalStateException("Recurso não encontrado: " + recurso);
+            return new String(entrada.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package br.com.alura.flightontime.dto;
+
+import br.com.alura.flightontime.dto.request.RequestPrevisaoDTO;
+import br.com.alura.flightontime.dto.request.RequestPrevisaoDataScienceDTO;
+import br.com.alura.flightontime.dto.response.ResponsePrevisaoDTO;
+import br.com.alura.flightontime.dto.response.ResponsePrevisaoDataScienceDTO;
+import br.com.alura.flightontime.model.PeriodoDia;
+import br.com.alura.flightontime.model.ProbabilidadeAtraso;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Arredondamento do {@link ResponsePrevisaoDataScienceDTO} e (de)serialização JSON dos records trocados com o
+ * cliente e com o serviço de previsão. Os readers e writers são criados uma vez, como faz o Spring MVC.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoBenchmark {
+
+    private static final int QUANTIDADE = 1024;
+
+    private double[] probabilidades;
+    private int proximo;
+
+    private ObjectReader leitorRequisicao;
+    private ObjectWriter escritorResposta;
+    private ObjectWriter escritorRequisicaoModelo;
+    private ObjectReader leitorRespostaModelo;
+
+    private byte[] jsonRequisicao;
+    private ResponsePrevisaoDTO resposta;
+    private RequestPrevisaoDataScienceDTO requisicaoModelo;
+    private byte[] jsonRespostaModelo;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        var aleatorio = new SplittableRandom(42);
+        probabilidades = new double[QUANTIDADE];
+        for (int i = 0; i < QUANTIDADE; i++) {
+            probabilidades[i] = aleatorio.nextDouble();
+        }
+
+        // Mesma configuração relevante do mapper do Spring Boot: campos extras da resposta do modelo são ignorados
+        var mapper = JsonMapper.builder().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).build();
+        leitorRequisicao = mapper.readerFor(RequestPrevisaoDTO.class);
+        escritorResposta = mapper.writerFor(ResponsePrevisaoDTO.class);
+        escritorRequisicaoModelo = mapper.writerFor(RequestPrevisaoDataScienceDTO.class);
+        leitorRespostaModelo = mapper.readerFor(ResponsePrevisaoDataScienceDTO.class);
+
+        jsonRequisicao = """
+                {"codigoIcaoCompanhiaAerea":"GLO","codigoIcaoVooOrigem":"SBGR","codigoIcaoVooDestino":"SBGL","dataPartida":"2027-01-29T14:30:00"}"""
+                .getBytes(StandardCharsets.UTF_8);
+        resposta = new ResponsePrevisaoDTO(ProbabilidadeAtraso.BAIXA, 0.22);
+        requisicaoModelo = new RequestPrevisaoDataScienceDTO("SBGR", "SBGL", "GLO", PeriodoDia.TARDE, 14, 4, 1, 339.4);
+        jsonRespostaModelo = """
+                {"previsao":"Pontual","probabilidade_atraso":0.2234,"confianca_percentual":"22.3%","timestamp":"2027-01-29T14:30:00.123456"}"""
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public ResponsePrevisaoDataScienceDTO arredondarProbabilidade() {
+        proximo = (proximo + 1) & (QUANTIDADE - 1);
+        return new ResponsePrevisaoDataScienceDTO(probabilidades[proximo]);
+    }
+
+    @Benchmark
+    public RequestPrevisaoDTO lerRequisicao() {
+        return leitorRequisicao.readValue(jsonRequisicao);
+    }
+
+    @Benchmark
+    public byte[] escreverResposta() {
+        return escritorResposta.writeValueAsBytes(resposta);
+    }
+
+    @Benchmark
+    public byte[] escreverRequisicaoModelo() {
+        return escritorRequisicaoModelo.writeValueAsBytes(requisicaoModelo);
+    }
+
+    @Benchmark
+    public ResponsePrevisaoDataScienceDTO lerRespostaModelo() {
+        return leitorRespostaModelo.readValue(jsonRespostaModelo);
+    }
+}
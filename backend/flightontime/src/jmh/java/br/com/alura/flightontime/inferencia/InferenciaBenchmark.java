@@ -0,0 +1,138 @@
+package br.com.alura.flightontime.inferencia;
+
+import br.com.alura.flightontime.dto.request.RequestPrevisaoDataScienceDTO;
+import br.com.alura.flightontime.model.PeriodoDia;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Avaliação do modelo embarcado sobre uma floresta sintética com a forma do modelo treinado no notebook
+ * (100 árvores, profundidade máxima 10, as 7 features de {@code features_finais}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InferenciaBenchmark {
+
+    private static final int QUANTIDADE = 1024;
+    private static final int ARVORES = 100;
+    private static final int PROFUNDIDADE = 10;
+    private static final List<String> FEATURES = List.of("risco_aerodromo_origem", "risco_aerodromo_destino",
+            "risco_empresa", "risco_periodo_dia", "is_weekend", "alta_temporada", "partida_hora");
+
+    private ModeloAtraso modelo;
+    private RequestPrevisaoDataScienceDTO[] requisicoes;
+    private List<RequestPrevisaoDataScienceDTO> lote;
+    private int proximo;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        var aleatorio = new SplittableRandom(42);
+        String[] aeroportos = {"SBGR", "SBGL", "SBRJ", "SBSP", "SBKP", "SBBR", "SBCF", "SBPA", "SBXX"};
+        String[] companhias = {"GLO", "TAM", "AZU", "XXX"};
+
+        Map<String, Map<String, Double>> mapas = new HashMap<>();
+        mapas.put("aerodromo_origem", riscos(aeroportos, aleatorio));
+        mapas.put("aerodromo_destino", riscos(aeroportos, aleatorio));
+        mapas.put("empresa", riscos(companhias, aleatorio));
+        mapas.put("periodo_dia", riscos(new String[]{"Manhã", "Tarde", "Noite", "Madrugada"}, aleatorio));
+
+        List<ModeloExportado.Arvore> arvores = new ArrayList<>();
+        for (int i = 0; i < ARVORES; i++) {
+            arvores.add(new GeradorArvore(aleatorio).gerar());
+        }
+        modelo = ModeloAtraso.de(new ModeloExportado(1, "benchmark", FEATURES, 0.2, mapas, arvores));
+
+        requisicoes = new RequestPrevisaoDataScienceDTO[QUANTIDADE];
+        for (int i = 0; i < QUANTIDADE; i++) {
+            int hora = aleatorio.nextInt(24);
+            requisicoes[i] = new RequestPrevisaoDataScienceDTO(aeroportos[aleatorio.nextInt(aeroportos.length)],
+                    aeroportos[aleatorio.nextInt(aeroportos.length)], companhias[aleatorio.nextInt(companhias.length)],
+                    PeriodoDia.retornaPeriodo(hora), hora, aleatorio.nextInt(7), 1 + aleatorio.nextInt(12), null);
+        }
+        lote = List.of(requisicoes).subList(0, 100);
+    }
+
+    @Benchmark
+    public double preverUm() {
+        proximo = (proximo + 1) & (QUANTIDADE - 1);
+        return modelo.probabilidadeAtraso(requisicoes[proximo]);
+    }
+
+    @Benchmark
+    public double[] preverLoteDe100() {
+        return modelo.probabilidadesAtraso(lote);
+    }
+
+    private static Map<String, Double> riscos(String[] categorias, SplittableRandom aleatorio) {
+        Map<String, Double> riscos = new HashMap<>();
+        // A última categoria fica de fora para exercitar a taxa base
+        for (int i = 0; i < categorias.length - 1; i++) {
+            riscos.put(categorias[i], aleatorio.nextDouble(0.4));
+        }
+        return riscos;
+    }
+
+    /** Árvore aleatória numerada em pré-ordem, como as exportadas do scikit-learn. */
+    private static final class GeradorArvore {
+        private final SplittableRandom aleatorio;
+        private final List<Integer> feature = new ArrayList<>();
+        private final List<Double> limiar = new ArrayList<>();
+        private final List<Integer> esquerda = new ArrayList<>();
+        private final List<Integer> direita = new ArrayList<>();
+        private final List<Double> valor = new ArrayList<>();
+
+        GeradorArvore(SplittableRandom aleatorio) {
+            this.aleatorio = aleatorio;
+        }
+
+        ModeloExportado.Arvore gerar() {
+            no(PROFUNDIDADE);
+            return new ModeloExportado.Arvore(
+                    feature.stream().mapToInt(Integer::intValue).toArray(),
+                    limiar.stream().mapToDouble(Double::doubleValue).toArray(),
+                    esquerda.stream().mapToInt(Integer::intValue).toArray(),
+                    direita.stream().mapToInt(Integer::intValue).toArray(),
+                    valor.stream().mapToDouble(Double::doubleValue).toArray());
+        }
+
+        private int no(int profundidade) {
+            int indice = valor.size();
+            feature.add(-2);
+            limiar.add(-2.0);
+            esquerda.add(-1);
+            direita.add(-1);
+            valor.add(0.0);
+
+            if (profundidade == 0 || aleatorio.nextInt(100) < 15) {
+                valor.set(indice, aleatorio.nextDouble());
+                return indice;
+            }
+            int f = aleatorio.nextInt(FEATURES.size());
+            feature.set(indice, f);
+            limiar.set(indice, f == 6 ? aleatorio.nextInt(23) + 0.5 : f >= 4 ? 0.5 : aleatorio.nextDouble(0.4));
+            esquerda.set(indice, no(profundidade - 1));
+            direita.set(indice, no(profundidade - 1));
+            return indice;
+        }
+    }
+}
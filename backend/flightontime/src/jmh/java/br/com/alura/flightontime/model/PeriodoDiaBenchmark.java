@@ -0,0 +1,49 @@
+package br.com.alura.flightontime.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PeriodoDia#retornaPeriodo} com horas em ordem aleatória, para medir também o custo dos desvios
+ * que o preditor de branches não acerta.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PeriodoDiaBenchmark {
+
+    private static final int QUANTIDADE = 1024;
+
+    private int[] horas;
+    private int proximo;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        var aleatorio = new SplittableRandom(42);
+        horas = new int[QUANTIDADE];
+        for (int i = 0; i < QUANTIDADE; i++) {
+            horas[i] = aleatorio.nextInt(24);
+        }
+    }
+
+    @Benchmark
+    public PeriodoDia retornaPeriodo() {
+        proximo = (proximo + 1) & (QUANTIDADE - 1);
+        return PeriodoDia.retornaPeriodo(horas[proximo]);
+    }
+}
@@ -0,0 +1,94 @@
+package br.com.alura.flightontime.service;
+
+import br.com.alura.flightontime.dto.request.HorarioPartida;
+import br.com.alura.flightontime.dto.request.RequestPrevisaoDTO;
+import br.com.alura.flightontime.dto.request.RequestPrevisaoDataScienceDTO;
+import br.com.alura.flightontime.dto.response.ResponsePrevisaoDTO;
+import br.com.alura.flightontime.dto.response.ResponsePrevisaoDataScienceDTO;
+import br.com.alura.flightontime.model.ProbabilidadeAtraso;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversões feitas por {@link PrevisaoVooService} em toda previsão: requisição para o vetor de features
+ * (com a conversão para o fuso da origem), classificação da probabilidade e montagem da resposta. As entradas
+ * variam a cada chamada para que o JIT não especialize o código para um único valor.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrevisaoVooServiceBenchmark {
+
+    private static final int QUANTIDADE = 1024;
+
+    private static final ZoneId FUSO_ORIGEM = ZoneId.of("America/Sao_Paulo");
+
+    private final PrevisaoVooService service = new PrevisaoVooService();
+
+    private RequestPrevisaoDTO[] requisicoes;
+    private ResponsePrevisaoDataScienceDTO[] respostasModelo;
+    private int proximo;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        var aleatorio = new SplittableRandom(42);
+        String[] aeroportos = {"SBGR", "SBGL", "SBRJ", "SBSP", "SBKP", "SBBR", "SBCF", "SBPA"};
+        String[] companhias = {"GLO", "TAM", "AZU"};
+        LocalDateTime base = LocalDateTime.of(2027, 1, 1, 0, 0);
+
+        requisicoes = new RequestPrevisaoDTO[QUANTIDADE];
+        respostasModelo = new ResponsePrevisaoDataScienceDTO[QUANTIDADE];
+        for (int i = 0; i < QUANTIDADE; i++) {
+            requisicoes[i] = new RequestPrevisaoDTO(companhias[aleatorio.nextInt(companhias.length)],
+                    aeroportos[aleatorio.nextInt(aeroportos.length)], aeroportos[aleatorio.nextInt(aeroportos.length)],
+                    horario(base.plusMinutes(aleatorio.nextInt(365 * 24 * 60)), aleatorio.nextInt(3)));
+            respostasModelo[i] = new ResponsePrevisaoDataScienceDTO(aleatorio.nextDouble());
+        }
+    }
+
+    // Um terço com horário local, um terço em UTC e um terço já no offset da origem
+    private static HorarioPartida horario(LocalDateTime dataHora, int tipo) {
+        return switch (tipo) {
+            case 0 -> new HorarioPartida(dataHora, null);
+            case 1 -> new HorarioPartida(dataHora, ZoneOffset.UTC);
+            default -> new HorarioPartida(dataHora, ZoneOffset.ofHours(-3));
+        };
+    }
+
+    private int proximo() {
+        return proximo = (proximo + 1) & (QUANTIDADE - 1);
+    }
+
+    @Benchmark
+    public RequestPrevisaoDataScienceDTO converterRequisicao() {
+        return service.converteParaRequestPrevisaoDataScienceDTO(requisicoes[proximo()], FUSO_ORIGEM, 339.4);
+    }
+
+    @Benchmark
+    public ProbabilidadeAtraso classificarProbabilidade() {
+        return service.nomePrevisaoAtraso(respostasModelo[proximo()]);
+    }
+
+    @Benchmark
+    public ResponsePrevisaoDTO converterResposta() {
+        return service.converteParaResponsePrevisaoDTO(respostasModelo[proximo()]);
+    }
+}
@@ -1,5 +1,6 @@
 package br.com.alura.flightontime;
 
+import br.com.alura.flightontime.infra.config.PoolConexoesHttpClient;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
@@ -7,7 +8,10 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 public class FlightOnTimeApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(FlightOnTimeApplication.class, args);
+		var aplicacao = new SpringApplication(FlightOnTimeApplication.class);
+		// Antes dos beans: o JDK lê a configuração do pool só na primeira conexão do HttpClient
+		aplicacao.addListeners(new PoolConexoesHttpClient());
+		aplicacao.run(args);
 	}
 
 }
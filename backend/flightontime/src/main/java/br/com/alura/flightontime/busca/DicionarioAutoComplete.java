@@ -0,0 +1,217 @@
+package br.com.alura.flightontime.busca;
+
+import br.com.alura.flightontime.dto.response.ResponseDicionarioAutoCompleteDTO;
+import br.com.alura.flightontime.model.Aeroporto;
+import br.com.alura.flightontime.model.CompanhiaAerea;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Dicionário do autocomplete para os clientes buscarem localmente: os campos pesquisáveis dos aeroportos e das
+ * companhias aéreas ativas, com uma versão. É atualizado junto com {@link IndiceAeroportos} e
+ * {@link IndiceCompanhiasAereas}. O dicionário completo de cada versão é serializado e compactado com gzip uma
+ * única vez; as diferenças a partir de uma das versões anteriores retidas são calculadas na primeira vez que
+ * alguém as pede e guardadas já compactadas até a próxima versão.
+ */
+@Component
+public class DicionarioAutoComplete {
+
+    private static final Logger logger = LoggerFactory.getLogger(DicionarioAutoComplete.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Versões anteriores mantidas para calcular diferenças; clientes mais antigos recebem o dicionário completo
+    @Value("${autocomplete.dicionario.versoes-retidas:4}")
+    private int versoesRetidas;
+
+    private final ReentrantLock travaAtualizacao = new ReentrantLock();
+
+    private SortedMap<String, List<String>> aeroportos;
+    private SortedMap<String, List<String>> companhias;
+    private final Deque<Versao> anteriores = new ArrayDeque<>();
+
+    private volatile Estado estado;
+
+    public void atualizarAeroportos(List<Aeroporto> lista) {
+        SortedMap<String, List<String>> linhas = new TreeMap<>();
+        for (Aeroporto a : lista) {
+            if (a.getCodigoIcao() == null) continue;
+            linhas.put(a.getCodigoIcao(), linha(a.getCodigoIcao(), a.getCodigoIata(), a.getNomeAeroporto(), a.getCidade(), a.getSiglaPais()));
+        }
+        travaAtualizacao.lock();
+        try {
+            aeroportos = reaproveitar(linhas, aeroportos);
+            publicar();
+        } finally {
+            travaAtualizacao.unlock();
+        }
+    }
+
+    public void atualizarCompanhias(List<CompanhiaAerea> lista) {
+        SortedMap<String, List<String>> linhas = new TreeMap<>();
+        for (CompanhiaAerea c : lista) {
+            if (c.getId() == null || c.getCodigoIcao() == null || !"Y".equals(c.getAtivo())) continue;
+            String id = c.getId().toString();
+            linhas.put(id, linha(id, c.getCodigoIcao(), c.getCodigoIata(), c.getNome(), c.getPais()));
+        }
+        travaAtualizacao.lock();
+        try {
+            companhias = reaproveitar(linhas, companhias);
+            publicar();
+        } finally {
+            travaAtualizacao.unlock();
+        }
+    }
+
+    /** Versão atual, ou {@code null} enquanto os dois índices ainda não foram construídos. */
+    public String versao() {
+        Estado atual = estado;
+        return atual == null ? null : atual.versao().id();
+    }
+
+    /**
+     * Dicionário compactado com gzip para um cliente que já tem a versão {@code desde}: só as diferenças, se
+     * essa versão ainda estiver retida, ou o dicionário completo.
+     */
+    public Pacote pacote(String desde) {
+        Estado atual = estado;
+        if (atual == null) throw new IllegalStateException("Dicionário do autocomplete ainda não foi construído");
+        if (desde == null || desde.isBlank()) return atual.completo();
+
+        // Cliente já atualizado recebe diferenças vazias
+        if (atual.versao().id().equals(desde)) {
+            return atual.diferencas().computeIfAbsent(desde, id -> diferencas(atual.versao(), atual.versao()));
+        }
+        for (Versao base : atual.anteriores()) {
+            if (base.id().equals(desde)) {
+                return atual.diferencas().computeIfAbsent(desde, id -> diferencas(base, atual.versao()));
+            }
+        }
+        return atual.completo();
+    }
+
+    private void publicar() {
+        if (aeroportos == null || companhias == null) return;
+        String id = hash(aeroportos, companhias);
+        Estado atual = estado;
+        if (atual != null && atual.versao().id().equals(id)) return;
+
+        Versao nova = new Versao(id, aeroportos, companhias);
+        byte[] completo = gzip(new ResponseDicionarioAutoCompleteDTO(id, null, new ArrayList<>(aeroportos.values()),
+                List.of(), new ArrayList<>(companhias.values()), List.of()));
+        if (atual != null) {
+            // O conteúdo pode voltar a uma versão anterior, que deixa de ser base de diferenças
+            anteriores.removeIf(versao -> versao.id().equals(id));
+            anteriores.addFirst(atual.versao());
+            while (anteriores.size() > versoesRetidas) anteriores.removeLast();
+        }
+        estado = new Estado(nova, new Pacote(id, null, completo), List.copyOf(anteriores), new ConcurrentHashMap<>());
+        logger.info("Dicionário do autocomplete na versão {} com {} aeroportos e {} companhias aéreas ({} KB compactado)",
+                id, aeroportos.size(), companhias.size(), completo.length / 1024);
+    }
+
+    private Pacote diferencas(Versao base, Versao atual) {
+        List<List<String>> aeroportosAlterados = new ArrayList<>();
+        List<String> aeroportosRemovidos = new ArrayList<>();
+        comparar(base.aeroportos(), atual.aeroportos(), aeroportosAlterados, aeroportosRemovidos);
+        List<List<String>> companhiasAlteradas = new ArrayList<>();
+        List<String> companhiasRemovidas = new ArrayList<>();
+        comparar(base.companhias(), atual.companhias(), companhiasAlteradas, companhiasRemovidas);
+        return new Pacote(atual.id(), base.id(), gzip(new ResponseDicionarioAutoCompleteDTO(atual.id(), base.id(),
+                aeroportosAlterados, aeroportosRemovidos, companhiasAlteradas, companhiasRemovidas)));
+    }
+
+    private static void comparar(Map<String, List<String>> base, Map<String, List<String>> atual,
+                                 List<List<String>> alterados, List<String> removidos) {
+        // Linhas iguais são o mesmo objeto (ver reaproveitar), então a comparação quase sempre para na referência
+        atual.forEach((chave, linha) -> {
+            List<String> anterior = base.get(chave);
+            if (anterior != linha && !linha.equals(anterior)) alterados.add(linha);
+        });
+        base.keySet().forEach(chave -> {
+            if (!atual.containsKey(chave)) removidos.add(chave);
+        });
+    }
+
+    // Usa as linhas da versão anterior quando não mudaram, para que as versões retidas compartilhem memória
+    private static SortedMap<String, List<String>> reaproveitar(SortedMap<String, List<String>> novas,
+                                                                SortedMap<String, List<String>> anteriores) {
+        if (anteriores == null) return novas;
+        novas.replaceAll((chave, linha) -> {
+            List<String> anterior = anteriores.get(chave);
+            return linha.equals(anterior) ? anterior : linha;
+        });
+        return novas.equals(anteriores) ? anteriores : novas;
+    }
+
+    private static List<String> linha(String... campos) {
+        return Arrays.asList(campos);
+    }
+
+    private static String hash(Map<String, List<String>> aeroportos, Map<String, List<String>> companhias) {
+        long hash = 0xcbf29ce484222325L;
+        for (Map<String, List<String>> linhas : List.of(aeroportos, companhias)) {
+            for (List<String> linha : linhas.values()) {
+                hash = (hash ^ linha.hashCode()) * 0x100000001b3L;
+            }
+            hash = (hash ^ linhas.size()) * 0x100000001b3L;
+        }
+        return String.format("%016x", hash);
+    }
+
+    private byte[] gzip(ResponseDicionarioAutoCompleteDTO dicionario) {
+        var saida = new ByteArrayOutputStream(1 << 16);
+        try (var gzip = new GZIPOutputStream(saida, 1 << 16) {{ def.setLevel(Deflater.BEST_COMPRESSION); }}) {
+            objectMapper.writeValue(gzip, dicionario);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return saida.toByteArray();
+    }
+
+    /**
+     * Dicionário serializado e compactado.
+     *
+     * @param versaoBase {@code null} quando é o dicionário completo
+     */
+    public record Pacote(String versao, String versaoBase, byte[] gzip) {
+
+        /** JSON sem compressão, para clientes que não aceitam gzip. */
+        public byte[] json() {
+            try (var entrada = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+                return entrada.readAllBytes();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    private record Versao(String id, SortedMap<String, List<String>> aeroportos, SortedMap<String, List<String>> companhias) {
+    }
+
+    private record Estado(Versao versao, Pacote completo, List<Versao> anteriores, Map<String, Pacote> diferencas) {
+    }
+}
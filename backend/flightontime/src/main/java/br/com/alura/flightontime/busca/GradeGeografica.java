@@ -0,0 +1,160 @@
+package br.com.alura.flightontime.busca;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Índice espacial imutável: os pontos ficam agrupados em células de 1° de latitude por 1° de longitude, e a
+ * busca por raio visita só as células que cruzam o círculo pedido. Cada ponto guarda o vetor unitário da sua
+ * posição na esfera, então a distância entre dois pontos indexados sai de uma raiz e um arco-seno, sem as
+ * conversões de graus e os senos e cossenos da fórmula de haversine.
+ */
+public final class GradeGeografica<R> {
+
+    public static final double RAIO_TERRA_KM = 6371.0088;
+
+    private static final int LATITUDES = 180;
+    private static final int LONGITUDES = 360;
+    private static final double KM_POR_GRAU = Math.PI * RAIO_TERRA_KM / 180;
+
+    private final List<R> respostas;
+    private final Map<String, Integer> posicoes;
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+    // Os pontos estão ordenados por célula: os da célula c ficam entre inicioCelula[c] e inicioCelula[c + 1]
+    private final int[] inicioCelula;
+
+    private <T> GradeGeografica(List<Ponto<T>> pontos, Function<T, String> codigo, Function<T, R> conversor) {
+        int total = pontos.size();
+        this.respostas = new ArrayList<>(total);
+        this.posicoes = HashMap.newHashMap(total);
+        this.x = new double[total];
+        this.y = new double[total];
+        this.z = new double[total];
+        this.inicioCelula = new int[LATITUDES * LONGITUDES + 1];
+
+        for (int i = 0; i < total; i++) {
+            Ponto<T> ponto = pontos.get(i);
+            respostas.add(conversor.apply(ponto.documento()));
+            posicoes.putIfAbsent(codigo.apply(ponto.documento()), i);
+            double latitude = Math.toRadians(ponto.latitude());
+            double longitude = Math.toRadians(ponto.longitude());
+            x[i] = Math.cos(latitude) * Math.cos(longitude);
+            y[i] = Math.cos(latitude) * Math.sin(longitude);
+            z[i] = Math.sin(latitude);
+            inicioCelula[ponto.celula() + 1]++;
+        }
+        for (int c = 0; c < LATITUDES * LONGITUDES; c++) {
+            inicioCelula[c + 1] += inicioCelula[c];
+        }
+    }
+
+    /** Indexa os documentos com coordenadas válidas; os demais são ignorados. */
+    public static <T, R> GradeGeografica<R> construir(List<T> documentos, Function<T, Double> latitude,
+                                                      Function<T, Double> longitude, Function<T, String> codigo,
+                                                      Function<T, R> conversor) {
+        List<Ponto<T>> pontos = new ArrayList<>(documentos.size());
+        for (T documento : documentos) {
+            Double lat = latitude.apply(documento);
+            Double lon = longitude.apply(documento);
+            if (codigo.apply(documento) == null || !coordenadasValidas(lat, lon)) continue;
+            pontos.add(new Ponto<>(documento, lat, lon, celula(linha(lat), coluna(lon))));
+        }
+        pontos.sort(Comparator.comparingInt(Ponto::celula));
+        return new GradeGeografica<>(pontos, codigo, conversor);
+    }
+
+    public static boolean coordenadasValidas(Double latitude, Double longitude) {
+        return latitude != null && longitude != null
+                && latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180;
+    }
+
+    public int tamanho() {
+        return respostas.size();
+    }
+
+    /** Distância ortodrômica em km entre dois pontos indexados, ou {@code null} se algum não estiver no índice. */
+    public Double distanciaKm(String codigoOrigem, String codigoDestino) {
+        Integer origem = codigoOrigem == null ? null : posicoes.get(codigoOrigem);
+        Integer destino = codigoDestino == null ? null : posicoes.get(codigoDestino);
+        if (origem == null || destino == null) return null;
+        return distancia(x[origem] - x[destino], y[origem] - y[destino], z[origem] - z[destino]);
+    }
+
+    /** Pontos a até {@code raioKm} da coordenada, do mais próximo para o mais distante. */
+    public List<Proximo<R>> proximos(double latitude, double longitude, double raioKm, int limite) {
+        if (limite <= 0 || raioKm < 0) return List.of();
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        double qx = Math.cos(lat) * Math.cos(lon);
+        double qy = Math.cos(lat) * Math.sin(lon);
+        double qz = Math.sin(lat);
+        // Compara cordas em vez de distâncias: evita o arco-seno nos pontos descartados
+        double raio = Math.min(raioKm, Math.PI * RAIO_TERRA_KM);
+        double cordaMaxima = 2 * Math.sin(raio / (2 * RAIO_TERRA_KM));
+        double cordaMaximaQuadrado = cordaMaxima * cordaMaxima;
+
+        double grausLatitude = raio / KM_POR_GRAU;
+        int linhaInicial = linha(Math.max(-90, latitude - grausLatitude));
+        int linhaFinal = linha(Math.min(90, latitude + grausLatitude));
+        int[] colunas = colunas(latitude, longitude, grausLatitude);
+
+        List<Proximo<R>> encontrados = new ArrayList<>();
+        for (int linha = linhaInicial; linha <= linhaFinal; linha++) {
+            for (int passo = 0; passo < colunas[1]; passo++) {
+                int c = celula(linha, Math.floorMod(colunas[0] + passo, LONGITUDES));
+                for (int i = inicioCelula[c]; i < inicioCelula[c + 1]; i++) {
+                    double dx = x[i] - qx;
+                    double dy = y[i] - qy;
+                    double dz = z[i] - qz;
+                    if (dx * dx + dy * dy + dz * dz <= cordaMaximaQuadrado) {
+                        encontrados.add(new Proximo<>(respostas.get(i), distancia(dx, dy, dz)));
+                    }
+                }
+            }
+        }
+        encontrados.sort(Comparator.comparingDouble(Proximo::distanciaKm));
+        return encontrados.size() > limite ? encontrados.subList(0, limite) : encontrados;
+    }
+
+    /**
+     * Primeira coluna e quantidade de colunas que podem ter pontos dentro do raio: a maior diferença de longitude
+     * de um ponto do círculo é {@code asin(sen(raio) / cos(latitude))}. Se o círculo contém um polo, todas.
+     */
+    private static int[] colunas(double latitude, double longitude, double grausRaio) {
+        if (Math.abs(latitude) + grausRaio >= 90) return new int[]{0, LONGITUDES};
+        double grausLongitude = Math.toDegrees(Math.asin(
+                Math.sin(Math.toRadians(grausRaio)) / Math.cos(Math.toRadians(latitude))));
+        int primeira = (int) Math.floor(longitude - grausLongitude) + 180;
+        int ultima = (int) Math.floor(longitude + grausLongitude) + 180;
+        return new int[]{primeira, Math.min(LONGITUDES, ultima - primeira + 1)};
+    }
+
+    private static double distancia(double dx, double dy, double dz) {
+        double corda = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        return 2 * RAIO_TERRA_KM * Math.asin(Math.min(1, corda / 2));
+    }
+
+    private static int linha(double latitude) {
+        return Math.min(LATITUDES - 1, (int) Math.floor(latitude) + 90);
+    }
+
+    private static int coluna(double longitude) {
+        return Math.min(LONGITUDES - 1, (int) Math.floor(longitude) + 180);
+    }
+
+    private static int celula(int linha, int coluna) {
+        return linha * LONGITUDES + coluna;
+    }
+
+    public record Proximo<R>(R resposta, double distanciaKm) {
+    }
+
+    private record Ponto<T>(T documento, double latitude, double longitude, int celula) {
+    }
+}
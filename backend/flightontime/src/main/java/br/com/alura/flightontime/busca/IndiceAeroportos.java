@@ -0,0 +1,132 @@
+package br.com.alura.flightontime.busca;
+
+import br.com.alura.flightontime.dto.response.ResponseAeroportoProximoDTO;
+import br.com.alura.flightontime.dto.response.ResponseAutoCompleteAeroportoDTO;
+import br.com.alura.flightontime.model.Aeroporto;
+import br.com.alura.flightontime.referencia.DadosReferenciaRecarregadosEvent;
+import br.com.alura.flightontime.repository.AeroportoRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índices em memória de aeroportos: o de texto, usado pelo autocomplete, a {@link GradeGeografica}, usada na
+ * busca por proximidade e na distância entre origem e destino, e o fuso horário de cada aeroporto. São
+ * construídos a partir de {@code lista_aeroportos} e substituídos juntos, de forma atômica, em
+ * {@link #reconstruir()}, então as buscas nunca acessam o banco.
+ */
+@Component
+public class IndiceAeroportos {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndiceAeroportos.class);
+
+    private static final int TAMANHO_NGRAMA = 3;
+
+    @Autowired
+    private AeroportoRepository aeroportoRepository;
+
+    @Autowired
+    private Pontuador<Aeroporto> pontuador;
+
+    @Autowired
+    private DicionarioAutoComplete dicionarioAutoComplete;
+
+    private volatile Indices indices;
+
+    @PostConstruct
+    public void reconstruir() {
+        long inicio = System.nanoTime();
+        List<Aeroporto> aeroportos = aeroportoRepository.findAll();
+        var novo = IndiceBusca.construir(aeroportos, pontuador, IndiceAeroportos::resposta, TAMANHO_NGRAMA);
+        var novaGrade = GradeGeografica.construir(aeroportos, Aeroporto::getLatitude, Aeroporto::getLongitude,
+                Aeroporto::getCodigoIcao, IndiceAeroportos::resposta);
+        var fusos = fusosHorarios(aeroportos);
+        this.indices = new Indices(novo, novaGrade, fusos);
+        dicionarioAutoComplete.atualizarAeroportos(aeroportos);
+        logger.info("Índice de aeroportos construído com {} registros ({} com coordenadas, {} com fuso horário) em {} ms",
+                novo.tamanho(), novaGrade.tamanho(), fusos.size(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    // Antes dos demais ouvintes, que podem consultar fusos e distâncias
+    @EventListener(DadosReferenciaRecarregadosEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void aoRecarregarDadosReferencia() {
+        reconstruir();
+    }
+
+    /** Versão do conteúdo do índice de texto, usada nas ETags do autocomplete. */
+    public long versao() {
+        return indices.texto().versao();
+    }
+
+    public List<ResponseAutoCompleteAeroportoDTO> buscar(String termo, int limite) {
+        return indices.texto().buscar(termo, limite);
+    }
+
+    public List<ResponseAeroportoProximoDTO> proximos(double latitude, double longitude, double raioKm, int limite) {
+        return indices.grade().proximos(latitude, longitude, raioKm, limite).stream()
+                .map(p -> new ResponseAeroportoProximoDTO(p.resposta().nome(), p.resposta().codigoIata(),
+                        p.resposta().codigoIcao(), p.resposta().latitude(), p.resposta().longitude(),
+                        Math.round(p.distanciaKm() * 10) / 10.0))
+                .toList();
+    }
+
+    /** Distância ortodrômica em km entre os aeroportos, ou {@code null} se algum não tiver coordenadas. */
+    public Double distanciaKm(String origem, String destino) {
+        return indices.grade().distanciaKm(origem, destino);
+    }
+
+    /** Fuso horário do aeroporto, ou {@code null} se a tabela não tiver um fuso válido para ele. */
+    public ZoneId fusoHorario(String codigoIcao) {
+        return codigoIcao == null ? null : indices.fusos().get(codigoIcao);
+    }
+
+    // Cada nome de fuso é interpretado uma única vez: são poucas centenas para dezenas de milhares de aeroportos
+    private static Map<String, ZoneId> fusosHorarios(List<Aeroporto> aeroportos) {
+        Map<String, ZoneId> porNome = new HashMap<>();
+        Map<String, ZoneId> porAeroporto = HashMap.newHashMap(aeroportos.size());
+        int invalidos = 0;
+        for (Aeroporto aeroporto : aeroportos) {
+            String nome = aeroporto.getTimezone();
+            if (nome == null || nome.isBlank() || aeroporto.getCodigoIcao() == null) continue;
+            ZoneId zona = porNome.computeIfAbsent(nome, IndiceAeroportos::zona);
+            if (zona == null) {
+                invalidos++;
+            } else {
+                porAeroporto.put(aeroporto.getCodigoIcao(), zona);
+            }
+        }
+        if (invalidos > 0) {
+            logger.warn("{} aeroportos com fuso horário inválido serão tratados sem conversão de fuso", invalidos);
+        }
+        return porAeroporto;
+    }
+
+    private static ZoneId zona(String nome) {
+        try {
+            return ZoneId.of(nome.strip());
+        } catch (DateTimeException ex) {
+            return null;
+        }
+    }
+
+    private static ResponseAutoCompleteAeroportoDTO resposta(Aeroporto a) {
+        return new ResponseAutoCompleteAeroportoDTO(a.getNomeAeroporto(), a.getCodigoIata(), a.getCodigoIcao(), a.getLatitude(), a.getLongitude());
+    }
+
+    private record Indices(IndiceBusca<ResponseAutoCompleteAeroportoDTO> texto,
+                           GradeGeografica<ResponseAutoCompleteAeroportoDTO> grade,
+                           Map<String, ZoneId> fusos) {
+    }
+}
@@ -0,0 +1,135 @@
+package br.com.alura.flightontime.busca;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Índice imutável de autocomplete: listas invertidas de n-gramas sobre as chaves normalizadas e ranking
+ * definido por um {@link Pontuador}. Os ids dos documentos seguem a ordem estática do pontuador, então a
+ * busca para assim que os melhores resultados não podem mais mudar.
+ */
+public final class IndiceBusca<R> {
+
+    private final Pontuador<Object> pontuador;
+    private final List<R> respostas;
+    private final String[][] chaves;
+    private final int[] grupos;
+    private final IndiceNGramas nGramas;
+    private final long versao;
+
+    @SuppressWarnings("unchecked")
+    private <T> IndiceBusca(List<Entrada<T>> ordenadas, Pontuador<T> pontuador, Function<T, R> conversor, int tamanhoNGrama) {
+        this.pontuador = (Pontuador<Object>) pontuador;
+        int total = ordenadas.size();
+        this.respostas = new ArrayList<>(total);
+        this.chaves = new String[total][];
+        this.grupos = new int[total];
+
+        for (int id = 0; id < total; id++) {
+            Entrada<T> entrada = ordenadas.get(id);
+            String[] campos = pontuador.campos(entrada.documento());
+            String[] normalizados = new String[campos.length];
+            for (int c = 0; c < campos.length; c++) {
+                normalizados[c] = NormalizadorTexto.normalizar(campos[c]);
+            }
+            respostas.add(conversor.apply(entrada.documento()));
+            chaves[id] = normalizados;
+            grupos[id] = entrada.grupo();
+        }
+        this.nGramas = IndiceNGramas.construir(tamanhoNGrama, List.of(chaves));
+        this.versao = versao(respostas);
+    }
+
+    public static <T, R> IndiceBusca<R> construir(List<T> documentos, Pontuador<T> pontuador,
+                                                  Function<T, R> conversor, int tamanhoNGrama) {
+        List<Entrada<T>> ordenadas = new ArrayList<>(documentos.size());
+        for (T documento : documentos) {
+            ordenadas.add(new Entrada<>(documento, Math.clamp(pontuador.grupo(documento), 0, Pontuador.GRUPO_MAXIMO),
+                    pontuador.chaveAlfabetica(documento)));
+        }
+        ordenadas.sort(Comparator.comparingInt((Entrada<T> e) -> e.grupo()).thenComparing(Entrada::chaveAlfabetica));
+        return new IndiceBusca<>(ordenadas, pontuador, conversor, tamanhoNGrama);
+    }
+
+    public int tamanho() {
+        return respostas.size();
+    }
+
+    /**
+     * Hash do conteúdo e da ordem das respostas indexadas. Não depende de quando nem em qual instância o índice
+     * foi construído, então serve de versão para as ETags do autocomplete.
+     */
+    public long versao() {
+        return versao;
+    }
+
+    public List<R> buscar(String termo, int limite) {
+        String chaveTermo = NormalizadorTexto.normalizar(termo);
+        if (chaveTermo == null || chaveTermo.isEmpty() || limite <= 0) return List.of();
+
+        long[] melhores = new long[limite];
+        int encontrados = 0;
+
+        if (chaveTermo.length() >= nGramas.tamanhoNGrama()) {
+            for (int id : nGramas.candidatos(chaveTermo)) {
+                if (encontrados == limite && grupos[id] > grupoDaChave(melhores[limite - 1])) break;
+                if (!contemTermo(id, chaveTermo)) continue;
+                encontrados = insere(melhores, encontrados, chave(id, chaveTermo));
+            }
+        } else {
+            for (int id = 0; id < grupos.length; id++) {
+                if (encontrados == limite && grupos[id] > grupoDaChave(melhores[limite - 1])) break;
+                if (!contemTermo(id, chaveTermo)) continue;
+                encontrados = insere(melhores, encontrados, chave(id, chaveTermo));
+            }
+        }
+
+        List<R> resultado = new ArrayList<>(encontrados);
+        for (int i = 0; i < encontrados; i++) {
+            resultado.add(respostas.get((int) (melhores[i] & 0x7FFFFFFFL)));
+        }
+        return resultado;
+    }
+
+    private static long versao(List<?> respostas) {
+        long hash = 0xcbf29ce484222325L;
+        for (Object resposta : respostas) {
+            hash = (hash ^ resposta.hashCode()) * 0x100000001b3L;
+        }
+        return hash ^ respostas.size();
+    }
+
+    private boolean contemTermo(int id, String termo) {
+        for (String campo : chaves[id]) {
+            if (campo != null && campo.contains(termo)) return true;
+        }
+        return false;
+    }
+
+    // Chave de ordenação: grupo estático, pontuação do termo e o próprio id (que já carrega o desempate alfabético)
+    private long chave(int id, String termo) {
+        long pontuacao = Math.clamp(pontuador.pontuacaoTermo(chaves[id], termo), 0, Pontuador.PONTUACAO_TERMO_MAXIMA);
+        return ((long) grupos[id] << 40) | (pontuacao << 31) | id;
+    }
+
+    private static int grupoDaChave(long chave) {
+        return (int) (chave >>> 40);
+    }
+
+    private static int insere(long[] melhores, int encontrados, long chave) {
+        int posicao = encontrados == melhores.length ? melhores.length - 1 : encontrados;
+        if (encontrados == melhores.length && chave >= melhores[posicao]) return encontrados;
+
+        while (posicao > 0 && melhores[posicao - 1] > chave) {
+            melhores[posicao] = melhores[posicao - 1];
+            posicao--;
+        }
+        melhores[posicao] = chave;
+        return Math.min(encontrados + 1, melhores.length);
+    }
+
+    private record Entrada<T>(T documento, int grupo, String chaveAlfabetica) {
+    }
+}
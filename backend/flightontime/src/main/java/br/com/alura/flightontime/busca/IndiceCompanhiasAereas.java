@@ -0,0 +1,64 @@
+package br.com.alura.flightontime.busca;
+
+import br.com.alura.flightontime.dto.response.ResponseAutoCompleteCompanhiaAereaDTO;
+import br.com.alura.flightontime.model.CompanhiaAerea;
+import br.com.alura.flightontime.referencia.DadosReferenciaRecarregadosEvent;
+import br.com.alura.flightontime.repository.CompanhiaAereaRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Índice em memória usado pelo autocomplete de companhias aéreas. Usa bigramas porque o autocomplete
+ * de companhias já pesquisa a partir de 2 caracteres.
+ */
+@Component
+public class IndiceCompanhiasAereas {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndiceCompanhiasAereas.class);
+
+    private static final int TAMANHO_NGRAMA = 2;
+
+    @Autowired
+    private CompanhiaAereaRepository companhiaAereaRepository;
+
+    @Autowired
+    private Pontuador<CompanhiaAerea> pontuador;
+
+    @Autowired
+    private DicionarioAutoComplete dicionarioAutoComplete;
+
+    private volatile IndiceBusca<ResponseAutoCompleteCompanhiaAereaDTO> indice;
+
+    @PostConstruct
+    public void reconstruir() {
+        long inicio = System.nanoTime();
+        List<CompanhiaAerea> companhias = companhiaAereaRepository.findAll();
+        var novo = IndiceBusca.construir(companhias, pontuador,
+                c -> new ResponseAutoCompleteCompanhiaAereaDTO(c.getNome(), c.getCodigoIata(), c.getCodigoIcao()),
+                TAMANHO_NGRAMA);
+        this.indice = novo;
+        dicionarioAutoComplete.atualizarCompanhias(companhias);
+        logger.info("Índice de companhias aéreas construído com {} registros em {} ms",
+                novo.tamanho(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    @EventListener(DadosReferenciaRecarregadosEvent.class)
+    public void aoRecarregarDadosReferencia() {
+        reconstruir();
+    }
+
+    /** Versão do conteúdo do índice de texto, usada nas ETags do autocomplete. */
+    public long versao() {
+        return indice.versao();
+    }
+
+    public List<ResponseAutoCompleteCompanhiaAereaDTO> buscar(String termo, int limite) {
+        return indice.buscar(termo, limite);
+    }
+}
@@ -0,0 +1,120 @@
+package br.com.alura.flightontime.busca;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Listas invertidas de n-gramas: para cada n-grama, os ids (ordenados) dos documentos que o contêm.
+ * Os ids seguem a ordem de ranking estático do índice, então a interseção já sai ordenada por relevância.
+ */
+public final class IndiceNGramas {
+
+    private static final int[] VAZIO = new int[0];
+
+    private final int tamanhoNGrama;
+    private final Map<String, int[]> postagens;
+
+    private IndiceNGramas(int tamanhoNGrama, Map<String, int[]> postagens) {
+        this.tamanhoNGrama = tamanhoNGrama;
+        this.postagens = postagens;
+    }
+
+    /**
+     * @param camposPorDocumento para cada documento (na ordem dos ids), os campos já normalizados
+     */
+    public static IndiceNGramas construir(int tamanhoNGrama, List<String[]> camposPorDocumento) {
+        Map<String, IntLista> temporario = new HashMap<>();
+        Set<String> nGramasDocumento = new HashSet<>();
+
+        for (int id = 0; id < camposPorDocumento.size(); id++) {
+            nGramasDocumento.clear();
+            for (String campo : camposPorDocumento.get(id)) {
+                if (campo == null) continue;
+                for (int i = 0; i + tamanhoNGrama <= campo.length(); i++) {
+                    nGramasDocumento.add(campo.substring(i, i + tamanhoNGrama));
+                }
+            }
+            for (String nGrama : nGramasDocumento) {
+                temporario.computeIfAbsent(nGrama, k -> new IntLista()).adiciona(id);
+            }
+        }
+
+        Map<String, int[]> postagens = new HashMap<>(temporario.size() * 2);
+        temporario.forEach((nGrama, lista) -> postagens.put(nGrama, lista.paraArray()));
+        return new IndiceNGramas(tamanhoNGrama, postagens);
+    }
+
+    public int tamanhoNGrama() {
+        return tamanhoNGrama;
+    }
+
+    /**
+     * Retorna os documentos que contêm todos os n-gramas do termo. É um superconjunto dos documentos
+     * em que o termo aparece como substring, por isso o chamador ainda precisa confirmar cada candidato.
+     */
+    public int[] candidatos(String termo) {
+        if (termo.length() < tamanhoNGrama) {
+            throw new IllegalArgumentException("Termo menor que o tamanho do n-grama");
+        }
+
+        List<int[]> listas = new ArrayList<>();
+        Set<String> vistos = new HashSet<>();
+        for (int i = 0; i + tamanhoNGrama <= termo.length(); i++) {
+            String nGrama = termo.substring(i, i + tamanhoNGrama);
+            if (!vistos.add(nGrama)) continue;
+
+            int[] lista = postagens.get(nGrama);
+            if (lista == null) return VAZIO;
+            listas.add(lista);
+        }
+
+        listas.sort((a, b) -> Integer.compare(a.length, b.length));
+        return intersecao(listas);
+    }
+
+    private static int[] intersecao(List<int[]> listas) {
+        int[] menor = listas.get(0);
+        if (listas.size() == 1) return menor;
+
+        int[] resultado = new int[menor.length];
+        int[] cursores = new int[listas.size()];
+        int total = 0;
+
+        proximo:
+        for (int id : menor) {
+            for (int l = 1; l < listas.size(); l++) {
+                int[] lista = listas.get(l);
+                int posicao = Arrays.binarySearch(lista, cursores[l], lista.length, id);
+                if (posicao < 0) {
+                    cursores[l] = -posicao - 1;
+                    if (cursores[l] >= lista.length) break proximo;
+                    continue proximo;
+                }
+                cursores[l] = posicao + 1;
+            }
+            resultado[total++] = id;
+        }
+        return Arrays.copyOf(resultado, total);
+    }
+
+    private static final class IntLista {
+        private int[] valores = new int[4];
+        private int tamanho;
+
+        void adiciona(int valor) {
+            if (tamanho == valores.length) {
+                valores = Arrays.copyOf(valores, tamanho * 2);
+            }
+            valores[tamanho++] = valor;
+        }
+
+        int[] paraArray() {
+            return Arrays.copyOf(valores, tamanho);
+        }
+    }
+}
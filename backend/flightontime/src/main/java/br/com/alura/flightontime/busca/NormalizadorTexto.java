@@ -0,0 +1,36 @@
+package br.com.alura.flightontime.busca;
+
+import java.text.Normalizer;
+
+/**
+ * Gera as chaves de busca usadas pelos índices: decomposição Unicode (NFD), remoção de acentos,
+ * minúsculas e pontuação colapsada em um único espaço. Assim "São Paulo", "sao-paulo" e "SAO PAULO"
+ * viram a mesma chave.
+ */
+public final class NormalizadorTexto {
+
+    private NormalizadorTexto() {
+    }
+
+    public static String normalizar(String texto) {
+        if (texto == null) return null;
+
+        String decomposto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        StringBuilder chave = new StringBuilder(decomposto.length());
+        boolean espacoPendente = false;
+
+        for (int i = 0; i < decomposto.length(); i++) {
+            char c = decomposto.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+
+            if (Character.isLetterOrDigit(c)) {
+                if (espacoPendente && !chave.isEmpty()) chave.append(' ');
+                espacoPendente = false;
+                chave.append(Character.toLowerCase(c));
+            } else {
+                espacoPendente = true;
+            }
+        }
+        return chave.toString();
+    }
+}
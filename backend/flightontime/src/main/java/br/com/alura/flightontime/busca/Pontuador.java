@@ -0,0 +1,27 @@
+package br.com.alura.flightontime.busca;
+
+/**
+ * Define o ranking de um {@link IndiceBusca}. Os critérios que não dependem do termo ({@link #grupo} e
+ * {@link #chaveAlfabetica}) são aplicados uma única vez na construção do índice; apenas
+ * {@link #pontuacaoTermo} é avaliado durante a busca. Em todos os casos, valores menores são mais relevantes.
+ */
+public interface Pontuador<T> {
+
+    int GRUPO_MAXIMO = (1 << 22) - 1;
+    int PONTUACAO_TERMO_MAXIMA = (1 << 9) - 1;
+
+    /** Campos pesquisáveis do documento, ainda sem normalização. */
+    String[] campos(T documento);
+
+    /** Faixa estática do documento, entre 0 e {@link #GRUPO_MAXIMO}. */
+    int grupo(T documento);
+
+    /** Chave de desempate entre documentos do mesmo grupo e com a mesma pontuação de termo. */
+    String chaveAlfabetica(T documento);
+
+    /**
+     * Pontuação do documento para o termo, entre 0 e {@link #PONTUACAO_TERMO_MAXIMA}.
+     * Recebe os campos na mesma ordem de {@link #campos}, já normalizados, e o termo normalizado.
+     */
+    int pontuacaoTermo(String[] camposNormalizados, String termo);
+}
@@ -0,0 +1,53 @@
+package br.com.alura.flightontime.busca;
+
+import br.com.alura.flightontime.model.Aeroporto;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PontuadorAeroporto implements Pontuador<Aeroporto> {
+
+    private static final int NOME = 0;
+    private static final int CIDADE = 1;
+    private static final int IATA = 2;
+    private static final int ICAO = 3;
+
+    @Override
+    public String[] campos(Aeroporto aeroporto) {
+        return new String[]{aeroporto.getNomeAeroporto(), aeroporto.getCidade(), aeroporto.getCodigoIata(), aeroporto.getCodigoIcao()};
+    }
+
+    @Override
+    public int grupo(Aeroporto aeroporto) {
+        // 1. Brasil como prioridade máxima
+        int grupo = "BR".equals(aeroporto.getSiglaPais()) ? 0 : 2;
+
+        // 2. Prioriza aeroportos que têm código IATA (filtra aeródromos pequenos)
+        if (aeroporto.getCodigoIata() == null || aeroporto.getCodigoIata().isBlank()) grupo++;
+        return grupo;
+    }
+
+    @Override
+    public String chaveAlfabetica(Aeroporto aeroporto) {
+        // 6. Critério de desempate alfabético: cidade e depois nome
+        return chaveOuFim(aeroporto.getCidade()) + '\u0000' + chaveOuFim(aeroporto.getNomeAeroporto());
+    }
+
+    @Override
+    public int pontuacaoTermo(String[] campos, String termo) {
+        int pontuacao = 0;
+
+        // 3. Código IATA ou ICAO digitado por completo (Ex: "GRU" -> Guarulhos)
+        if (!termo.equals(campos[IATA]) && !termo.equals(campos[ICAO])) pontuacao += 4;
+
+        // 4. Prioriza quando a CIDADE começa com o termo (Ex: "Guar" -> Guarulhos ganha de Araguari)
+        if (campos[CIDADE] == null || !campos[CIDADE].startsWith(termo)) pontuacao += 2;
+
+        // 5. Prioriza quando o NOME DO AEROPORTO começa com o termo
+        if (campos[NOME] == null || !campos[NOME].startsWith(termo)) pontuacao += 1;
+        return pontuacao;
+    }
+
+    private static String chaveOuFim(String valor) {
+        return valor == null ? "\uFFFF" : NormalizadorTexto.normalizar(valor);
+    }
+}
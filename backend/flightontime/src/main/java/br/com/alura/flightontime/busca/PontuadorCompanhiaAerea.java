@@ -0,0 +1,45 @@
+package br.com.alura.flightontime.busca;
+
+import br.com.alura.flightontime.model.CompanhiaAerea;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PontuadorCompanhiaAerea implements Pontuador<CompanhiaAerea> {
+
+    private static final int NOME = 0;
+    private static final int IATA = 1;
+    private static final int ICAO = 2;
+
+    @Override
+    public String[] campos(CompanhiaAerea companhiaAerea) {
+        return new String[]{companhiaAerea.getNome(), companhiaAerea.getCodigoIata(), companhiaAerea.getCodigoIcao()};
+    }
+
+    @Override
+    public int grupo(CompanhiaAerea companhiaAerea) {
+        // 1. Prioridade: Companhias Ativas (Y) aparecem antes das inativas (N)
+        int grupo = "Y".equals(companhiaAerea.getAtivo()) ? 0 : 2;
+
+        // 2. Prioridade: Companhias Brasileiras
+        if (!"Brazil".equals(companhiaAerea.getPais()) && !"BR".equals(companhiaAerea.getPais())) grupo++;
+        return grupo;
+    }
+
+    @Override
+    public String chaveAlfabetica(CompanhiaAerea companhiaAerea) {
+        // 5. Critério de desempate alfabético
+        return companhiaAerea.getNome() == null ? "\uFFFF" : NormalizadorTexto.normalizar(companhiaAerea.getNome());
+    }
+
+    @Override
+    public int pontuacaoTermo(String[] campos, String termo) {
+        int pontuacao = 0;
+
+        // 3. Código IATA ou ICAO digitado por completo (Ex: "GLO" -> Gol)
+        if (!termo.equals(campos[IATA]) && !termo.equals(campos[ICAO])) pontuacao += 2;
+
+        // 4. Melhoria de UX: Nome começa com o termo (Ex: "Azul" aparece antes de "Voo Azul")
+        if (campos[NOME] == null || !campos[NOME].startsWith(termo)) pontuacao += 1;
+        return pontuacao;
+    }
+}
@@ -0,0 +1,96 @@
+package br.com.alura.flightontime.controller;
+
+import br.com.alura.flightontime.busca.IndiceAeroportos;
+import br.com.alura.flightontime.busca.IndiceCompanhiasAereas;
+import br.com.alura.flightontime.dto.response.ResponseImportacaoDTO;
+import br.com.alura.flightontime.importacao.ConjuntoImportacao;
+import br.com.alura.flightontime.importacao.ImportadorDados;
+import br.com.alura.flightontime.inferencia.PrevisoesPreCalculadas;
+import br.com.alura.flightontime.referencia.DadosReferenciaCache;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/admin")
+@Tag(name = "Administração", description = "Endpoints de manutenção dos dados em memória; exigem a chave de administração em X-Admin-Key")
+public class AdminController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
+
+    @Autowired
+    private IndiceAeroportos indiceAeroportos;
+
+    @Autowired
+    private IndiceCompanhiasAereas indiceCompanhiasAereas;
+
+    @Autowired
+    private DadosReferenciaCache dadosReferenciaCache;
+
+    @Autowired
+    private PrevisoesPreCalculadas previsoesPreCalculadas;
+
+    @Autowired
+    private ImportadorDados importadorDados;
+
+    @Operation(summary = "Reconstrói os índices de autocomplete", description = "Recarrega as tabelas de aeroportos e companhias aéreas e substitui os índices usados pelo autocomplete.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Índices reconstruídos com sucesso"),
+            @ApiResponse(responseCode = "403", description = "Chave de administração ausente ou inválida", content = @Content)
+    })
+    @PostMapping("/autocomplete/reindexar")
+    public ResponseEntity<Void> reindexarAutoComplete() {
+        indiceAeroportos.reconstruir();
+        indiceCompanhiasAereas.reconstruir();
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "Recarrega os dados de referência", description = "Relê os códigos ICAO de aeroportos e companhias aéreas ativas usados na validação das previsões. Se houver mudança, os índices de autocomplete também são reconstruídos.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Dados de referência recarregados com sucesso"),
+            @ApiResponse(responseCode = "403", description = "Chave de administração ausente ou inválida", content = @Content)
+    })
+    @PostMapping("/dados-referencia/recarregar")
+    public ResponseEntity<Void> recarregarDadosReferencia() {
+        dadosReferenciaCache.recarregar();
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "Recarrega a tabela de previsões pré-calculadas", description = "Reabre o arquivo configurado em api.previsao.tabela.arquivo, depois que ele for regerado por ml-api/gerar_tabela_previsoes.py. Se o arquivo não puder ser lido, a tabela atual é mantida.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Tabela recarregada"),
+            @ApiResponse(responseCode = "403", description = "Chave de administração ausente ou inválida", content = @Content)
+    })
+    @PostMapping("/previsoes/tabela/recarregar")
+    public ResponseEntity<Void> recarregarTabelaPrevisoes() {
+        previsoesPreCalculadas.recarregar();
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "Importa um conjunto de dados de referência", description = "Carrega aeroportos, companhias-aereas ou voos-programados de um arquivo CSV (OurAirports, OpenFlights ou com os nomes das colunas da tabela, opcionalmente .gz) do diretório importacao.diretorio e substitui a tabela inteira de uma vez. Exige a chave de administração em X-Admin-Key. O autocomplete continua usando os dados atuais até o fim da importação.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Importação concluída"),
+            @ApiResponse(responseCode = "400", description = "Conjunto desconhecido, arquivo inexistente, cabeçalho incompleto ou arquivo muito menor que a tabela atual", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Chave de administração ausente ou inválida", content = @Content),
+            @ApiResponse(responseCode = "500", description = "Erro ao ler o arquivo ou ao gravar no banco; a tabela atual é mantida", content = @Content)
+    })
+    @PostMapping("/importacao/{conjunto}")
+    public ResponseEntity<ResponseImportacaoDTO> importar(@PathVariable String conjunto, @RequestParam String arquivo,
+                                                          HttpServletRequest request) {
+        // A importação substitui a tabela inteira, então fica registrado de onde ela foi pedida
+        logger.info("Importação de {} a partir de {} solicitada por {}", conjunto, arquivo, request.getRemoteAddr());
+        return ResponseEntity.ok(importadorDados.importar(ConjuntoImportacao.doCaminho(conjunto), arquivo));
+    }
+}
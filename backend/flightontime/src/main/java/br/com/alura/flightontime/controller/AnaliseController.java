@@ -0,0 +1,52 @@
+package br.com.alura.flightontime.controller;
+
+import br.com.alura.flightontime.dto.response.ResponseAnaliseAtrasoDTO;
+import br.com.alura.flightontime.service.AnaliseAtrasosService;
+import br.com.alura.flightontime.service.AnaliseAtrasosService.Agrupamento;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.util.List;
+
+@RestController
+@RequestMapping("/analise")
+@Tag(name = "Análise", description = "Estatísticas das previsões já realizadas")
+public class AnaliseController {
+
+    @Autowired
+    private AnaliseAtrasosService analiseAtrasosService;
+
+    @Operation(summary = "Probabilidade média de atraso por grupo", description = "Agrupa as previsões registradas no histórico por companhia, origem, destino, rota, hora, período do dia ou mês, com filtros opcionais, e devolve os grupos da maior para a menor probabilidade média de atraso. Ex.: companhias nas partidas de SBGR no mês (agrupar=companhia&origem=SBGR&mes=2026-10) ou piores horários em SBSP (agrupar=hora&origem=SBSP).")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Consulta realizada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Agrupamento ou mês inválido", content = @Content),
+            @ApiResponse(responseCode = "500", description = "Erro interno do servidor", content = @Content)
+    })
+    @GetMapping("/atrasos")
+    public ResponseEntity<List<ResponseAnaliseAtrasoDTO>> atrasos(
+            @Parameter(description = "companhia, origem, destino, rota, hora, periodo ou mes", example = "companhia")
+            @RequestParam(defaultValue = "companhia") String agrupar,
+            @Parameter(description = "Mês das previsões no formato AAAA-MM", example = "2026-10")
+            @RequestParam(required = false) YearMonth mes,
+            @Parameter(description = "Código ICAO do aeroporto de origem", example = "SBGR")
+            @RequestParam(required = false) String origem,
+            @Parameter(description = "Código ICAO do aeroporto de destino", example = "SBGL")
+            @RequestParam(required = false) String destino,
+            @Parameter(description = "Código ICAO da companhia aérea", example = "GLO")
+            @RequestParam(required = false) String companhia,
+            @Parameter(description = "Ignora grupos com menos previsões que isso", example = "30")
+            @RequestParam(defaultValue = "1") long minimoPrevisoes,
+            @Parameter(description = "Quantidade máxima de grupos (até 500)", example = "10")
+            @RequestParam(defaultValue = "20") int limite) {
+        return ResponseEntity.ok(analiseAtrasosService.consultar(Agrupamento.de(agrupar), mes, origem, destino,
+                companhia, minimoPrevisoes, limite));
+    }
+}
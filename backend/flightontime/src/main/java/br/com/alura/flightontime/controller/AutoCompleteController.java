@@ -1,19 +1,31 @@
 package br.com.alura.flightontime.controller;
 
+import br.com.alura.flightontime.busca.DicionarioAutoComplete;
+import br.com.alura.flightontime.dto.response.ResponseAeroportoProximoDTO;
 import br.com.alura.flightontime.dto.response.ResponseAutoCompleteAeroportoDTO;
 import br.com.alura.flightontime.dto.response.ResponseAutoCompleteCompanhiaAereaDTO;
+import br.com.alura.flightontime.dto.response.ResponseDicionarioAutoCompleteDTO;
 import br.com.alura.flightontime.service.AutoCompleteService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/autocomplete")
@@ -23,9 +35,14 @@ public class AutoCompleteController {
     @Autowired
     private AutoCompleteService autoCompleteService;
 
+    // Por quanto tempo o navegador e o Nginx reaproveitam a resposta sem perguntar ao backend
+    @Value("${autocomplete.cache.max-age:PT5M}")
+    private Duration maxAge;
+
     @Operation(summary = "Autocomplete de busca de aeroportos", description = "Retorna uma lista de aeroportos que correspondem ao termo pesquisado. Se nenhum registro for encontrado ou o termo pesquisado for curto demais, retorna uma lista vazia [].")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de aeroportos encontrada com sucesso"),
+            @ApiResponse(responseCode = "304", description = "A lista não mudou desde a ETag enviada em If-None-Match", content = @Content),
             @ApiResponse(responseCode = "400", description = "Parâmetros inválidos", content = @Content),
             @ApiResponse(responseCode = "500", description = "Erro interno ao processar a previsão", content = @Content)
     })
@@ -35,17 +52,39 @@ public class AutoCompleteController {
                     description = "Texto para busca por nome do aeroporto, código IATA ou ICAO",
                     example = "GRU",
                     required = true)
-            @RequestParam String termo) {
+            @RequestParam String termo,
+            WebRequest webRequest) {
         if (termo == null || termo.length() < 3) {
-            return ResponseEntity.ok(List.of());
+            return ResponseEntity.ok().cacheControl(cacheControl()).body(List.of());
         }
 
-        return ResponseEntity.ok(autoCompleteService.autoCompleteAeroportos(termo));
+        return this.responderComCache(webRequest, autoCompleteService.etagAeroportos(termo),
+                () -> autoCompleteService.autoCompleteAeroportos(termo));
+    }
+
+    @Operation(summary = "Aeroportos próximos a uma coordenada", description = "Retorna os aeroportos a até `raio` km da latitude e longitude informadas, do mais próximo para o mais distante. A busca usa um índice espacial em memória, sem consultar o banco.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lista de aeroportos encontrada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Coordenadas ou raio inválidos", content = @Content),
+            @ApiResponse(responseCode = "500", description = "Erro interno ao processar a busca", content = @Content)
+    })
+    @GetMapping("/aeroportos/proximos")
+    public ResponseEntity<List<ResponseAeroportoProximoDTO>> aeroportosProximos(
+            @Parameter(description = "Latitude em graus decimais", example = "-23.5505", required = true)
+            @RequestParam double lat,
+            @Parameter(description = "Longitude em graus decimais", example = "-46.6333", required = true)
+            @RequestParam double lon,
+            @Parameter(description = "Raio da busca em km (até 1000)", example = "50")
+            @RequestParam(defaultValue = "50") double raio,
+            @Parameter(description = "Quantidade máxima de aeroportos (até 50)", example = "10")
+            @RequestParam(defaultValue = "10") int limite) {
+        return ResponseEntity.ok(autoCompleteService.aeroportosProximos(lat, lon, raio, limite));
     }
 
     @Operation(summary = "Autocomplete de busca de companhias aéreas", description = "Retorna uma lista de companhias aéreas que correspondem ao termo pesquisado. Se nenhum registro for encontrado ou o termo pesquisado for curto demais, retorna uma lista vazia [].")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de companhias aéreas encontrada com sucesso"),
+            @ApiResponse(responseCode = "304", description = "A lista não mudou desde a ETag enviada em If-None-Match", content = @Content),
             @ApiResponse(responseCode = "400", description = "Parâmetros inválidos ou incompletos", content = @Content),
             @ApiResponse(responseCode = "500", description = "Erro interno ao processar a previsão", content = @Content)
     })
@@ -55,11 +94,56 @@ public class AutoCompleteController {
                     description = "Texto para busca por nome, código IATA ou ICAO",
                     example = "GLO",
                     required = true)
-            @RequestParam String termo) {
+            @RequestParam String termo,
+            WebRequest webRequest) {
         if (termo == null || termo.length() < 2) {
-            return ResponseEntity.ok(List.of());
+            return ResponseEntity.ok().cacheControl(cacheControl()).body(List.of());
+        }
+
+        return this.responderComCache(webRequest, autoCompleteService.etagCompanhiasAereas(termo),
+                () -> autoCompleteService.autoCompleteCompanhiaAerea(termo));
+    }
+
+    @Operation(summary = "Dicionário para autocomplete no cliente", description = "Retorna os campos pesquisáveis de todos os aeroportos e companhias aéreas ativas, para o cliente fazer o autocomplete localmente. Sem `desde`, retorna o dicionário completo; com a versão que o cliente já tem, retorna só as diferenças até a versão atual, ou o dicionário completo (`versaoBase` nula) se essa versão não estiver mais disponível. A resposta já vem compactada com gzip para clientes que o aceitam.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Dicionário ou diferenças retornados com sucesso",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ResponseDicionarioAutoCompleteDTO.class))),
+            @ApiResponse(responseCode = "304", description = "O dicionário não mudou desde a ETag enviada em If-None-Match", content = @Content),
+            @ApiResponse(responseCode = "500", description = "Erro interno ao montar o dicionário", content = @Content)
+    })
+    @GetMapping("/dicionario")
+    public ResponseEntity<byte[]> dicionario(
+            @Parameter(description = "Versão do dicionário que o cliente já tem", example = "9f3b6c2a1d0e4b57")
+            @RequestParam(required = false) String desde,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest webRequest) {
+        DicionarioAutoComplete.Pacote pacote = autoCompleteService.dicionario(desde);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        // Representações compactada e sem compressão são bytes diferentes, então precisam de ETags diferentes
+        String etag = "\"d" + (pacote.versaoBase() == null ? "" : pacote.versaoBase() + "-") + pacote.versao()
+                + (gzip ? "" : "-id") + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl())
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING).build();
+        }
+
+        var resposta = ResponseEntity.ok().eTag(etag).cacheControl(cacheControl())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING).contentType(MediaType.APPLICATION_JSON);
+        if (!gzip) {
+            return resposta.body(pacote.json());
         }
+        return resposta.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(pacote.gzip());
+    }
+
+    /** Responde 304 sem executar a busca quando o {@code If-None-Match} já tem a versão atual; a ETag é posta pelo checkNotModified. */
+    private <T> ResponseEntity<List<T>> responderComCache(WebRequest webRequest, String etag, Supplier<List<T>> busca) {
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl()).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl()).body(busca.get());
+    }
 
-        return ResponseEntity.ok(autoCompleteService.autoCompleteCompanhiaAerea(termo));
+    private CacheControl cacheControl() {
+        return CacheControl.maxAge(maxAge).cachePublic();
     }
 }
@@ -1,18 +1,33 @@
 package br.com.alura.flightontime.controller;
 
+import br.com.alura.flightontime.dto.request.RequestItinerarioDTO;
+import br.com.alura.flightontime.dto.request.RequestPerfilPrevisaoDTO;
 import br.com.alura.flightontime.dto.request.RequestPrevisaoDTO;
+import br.com.alura.flightontime.dto.response.ResponsePerfilPrevisaoDTO;
 import br.com.alura.flightontime.dto.response.ResponsePrevisaoDTO;
+import br.com.alura.flightontime.dto.response.ResponsePrevisaoItinerarioDTO;
+import br.com.alura.flightontime.dto.response.ResponsePrevisaoLoteItemDTO;
+import br.com.alura.flightontime.infra.admissao.ControleAdmissao;
+import br.com.alura.flightontime.service.PrevisaoAssinaturaService;
+import br.com.alura.flightontime.service.PrevisaoItinerarioService;
+import br.com.alura.flightontime.service.PrevisaoStreamService;
 import br.com.alura.flightontime.service.PrevisaoVooService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.util.List;
 
 @RestController
 @RequestMapping("/predict")
@@ -22,6 +37,18 @@ public class PredictController {
     @Autowired
     private PrevisaoVooService previsaoVooService;
 
+    @Autowired
+    private PrevisaoStreamService previsaoStreamService;
+
+    @Autowired
+    private PrevisaoItinerarioService previsaoItinerarioService;
+
+    @Autowired
+    private PrevisaoAssinaturaService previsaoAssinaturaService;
+
+    @Autowired
+    private ControleAdmissao controleAdmissao;
+
     @Operation(summary = "Previsão de atrasos de vôo", description = "Retorna a previsão de pontualidade de um determinado vôo.")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Previsão realizada com sucesso"),
@@ -34,4 +61,74 @@ public class PredictController {
     public ResponseEntity<ResponsePrevisaoDTO> predict(@RequestBody @Valid RequestPrevisaoDTO requestPrevisaoDTO) {
         return ResponseEntity.ok(previsaoVooService.previsao(requestPrevisaoDTO));
     }
+
+    @Operation(summary = "Previsão de atrasos de vários vôos", description = "Recebe uma lista de vôos e retorna, na mesma ordem, a previsão ou os erros de cada um. Vôos com os mesmos dados são calculados uma única vez.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lote processado. Cada item traz a previsão ou a lista de erros do vôo correspondente"),
+            @ApiResponse(responseCode = "400", description = "Lote acima do tamanho máximo ou em formato inválido", content = @Content),
+            @ApiResponse(responseCode = "429", description = "Limite de previsões por cliente atingido; cada vôo do lote conta como uma previsão", content = @Content),
+            @ApiResponse(responseCode = "500", description = "Erro interno do servidor", content = @Content)
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<List<ResponsePrevisaoLoteItemDTO>> predictBatch(@RequestBody List<RequestPrevisaoDTO> requisicoes) {
+        // O limite por cliente conta voos previstos, não requisições
+        controleAdmissao.cobrarPrevisoes(requisicoes == null ? 1 : requisicoes.size());
+        return ResponseEntity.ok(previsaoVooService.previsaoLote(requisicoes));
+    }
+
+    @Operation(summary = "Previsão de atrasos de um itinerário com conexões", description = "Recebe os trechos do itinerário em ordem e retorna a previsão de cada um, o risco de perder cada conexão, calculado a partir da folga entre a chegada estimada e a próxima partida, e a probabilidade de o itinerário chegar atrasado. Os trechos são validados juntos e previstos em paralelo.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Previsão realizada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Trechos inválidos, fora de sequência ou acima do máximo", content = @Content),
+            @ApiResponse(responseCode = "500", description = "Erro interno do servidor", content = @Content),
+            @ApiResponse(responseCode = "502", description = "Erro interno ao processar requisição", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Serviço de previsão indisponível ou sem resposta dentro do prazo", content = @Content)
+    })
+    @PostMapping("/itinerario")
+    public ResponseEntity<ResponsePrevisaoItinerarioDTO> predictItinerario(@RequestBody RequestItinerarioDTO requisicao) {
+        controleAdmissao.cobrarPrevisoes(requisicao == null || requisicao.trechos() == null ? 1 : requisicao.trechos().size());
+        return ResponseEntity.ok(previsaoItinerarioService.previsao(requisicao));
+    }
+
+    @Operation(summary = "Assinatura das previsões de vôos", description = "Recebe uma lista de vôos e mantém aberto um stream de Server-Sent Events. O primeiro evento `previsoes` traz, como na previsão em lote, a previsão ou os erros de cada vôo; os seguintes trazem só os vôos cuja previsão mudou, por exemplo após a troca do modelo. O stream é encerrado depois de um tempo e deve ser assinado de novo.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stream aberto. Cada evento traz uma lista de itens com o índice do vôo e a previsão ou os erros"),
+            @ApiResponse(responseCode = "400", description = "Lista vazia, acima do tamanho máximo ou em formato inválido", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Limite de assinaturas abertas atingido", content = @Content)
+    })
+    @PostMapping(value = "/assinaturas", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter predictAssinatura(@RequestBody List<RequestPrevisaoDTO> voos) {
+        controleAdmissao.cobrarPrevisoes(voos == null ? 1 : voos.size());
+        return previsaoAssinaturaService.assinar(voos);
+    }
+
+    @Operation(summary = "Perfil de atraso de uma rota por horário de partida", description = "Retorna a probabilidade de atraso da rota e companhia aérea em cada uma das 24 horas de cada dia da semana do mês informado, para encontrar o melhor horário de partida sem uma previsão por horário. As 168 combinações são calculadas em uma única avaliação em lote do modelo.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Perfil calculado com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Parâmetros inválidos ou incompletos", content = @Content),
+            @ApiResponse(responseCode = "500", description = "Erro interno do servidor", content = @Content),
+            @ApiResponse(responseCode = "502", description = "Erro interno ao processar requisição", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Serviço de previsão temporariamente indisponível", content = @Content)
+    })
+    @PostMapping("/perfil")
+    public ResponseEntity<ResponsePerfilPrevisaoDTO> predictPerfil(@RequestBody @Valid RequestPerfilPrevisaoDTO requisicao) {
+        controleAdmissao.cobrarPrevisoes(PrevisaoVooService.PREVISOES_PERFIL);
+        return ResponseEntity.ok(previsaoVooService.previsaoPerfil(requisicao));
+    }
+
+    @Operation(summary = "Previsão de atrasos de um arquivo de vôos", description = "Recebe um arquivo NDJSON (um vôo por linha) ou CSV com cabeçalho (colunas codigoIcaoCompanhiaAerea, codigoIcaoVooOrigem, codigoIcaoVooDestino e dataPartida) e devolve em NDJSON, à medida que processa, um item por vôo com a previsão ou os erros. Não há limite de tamanho.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Arquivo processado. Cada linha traz a previsão ou a lista de erros do vôo correspondente"),
+            @ApiResponse(responseCode = "400", description = "Cabeçalho do CSV ausente ou incompleto", content = @Content),
+            @ApiResponse(responseCode = "500", description = "Erro interno do servidor", content = @Content)
+    })
+    @PostMapping(value = "/stream", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void predictStream(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // Escreve direto na resposta: um arquivo grande passaria do timeout das requisições assíncronas
+        boolean csv = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.parseMediaType("text/csv"));
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        previsaoStreamService.previsaoStream(request.getInputStream(), csv, response.getOutputStream());
+    }
 }
@@ -0,0 +1,57 @@
+package br.com.alura.flightontime.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+
+/**
+ * Data e hora de partida como informadas na requisição. Sem offset ({@code 2026-01-29T14:30:00}), é o horário
+ * local do aeroporto de origem; com offset ({@code 2026-01-29T17:30:00Z} ou {@code 2026-01-29T14:30:00-03:00}),
+ * é um instante, convertido para o fuso da origem antes de derivar as features.
+ */
+@Schema(type = "string", description = "Data e hora de partida, local da origem ou com offset (Z, -03:00)",
+        example = "2026-01-29T14:30:00")
+public record HorarioPartida(LocalDateTime dataHora, ZoneOffset offset) {
+
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static HorarioPartida de(String texto) {
+        TemporalAccessor lido = DateTimeFormatter.ISO_DATE_TIME.parse(texto.strip());
+        ZoneOffset offset = lido.isSupported(ChronoField.OFFSET_SECONDS)
+                ? ZoneOffset.ofTotalSeconds(lido.get(ChronoField.OFFSET_SECONDS))
+                : null;
+        return new HorarioPartida(LocalDateTime.from(lido), offset);
+    }
+
+    /**
+     * Data e hora local no fuso do aeroporto de origem. Sem offset, ou sem fuso conhecido para a origem, é a
+     * própria data informada; só há nova alocação quando o offset informado difere do da origem.
+     */
+    public LocalDateTime horaLocal(ZoneId fusoOrigem) {
+        if (offset == null || fusoOrigem == null) return dataHora;
+        long segundos = dataHora.toEpochSecond(offset);
+        ZoneOffset offsetOrigem = fusoOrigem.getRules().getOffset(Instant.ofEpochSecond(segundos));
+        if (offsetOrigem.equals(offset)) return dataHora;
+        return LocalDateTime.ofEpochSecond(segundos, dataHora.getNano(), offsetOrigem);
+    }
+
+    /** Instante da partida; sem offset, usa o fuso da origem ou, se desconhecido, o do servidor. */
+    public Instant instante(ZoneId fusoOrigem) {
+        if (offset != null) return dataHora.toInstant(offset);
+        ZoneId zona = fusoOrigem == null ? ZoneId.systemDefault() : fusoOrigem;
+        return dataHora.toInstant(zona.getRules().getOffset(dataHora));
+    }
+
+    @JsonValue
+    @Override
+    public String toString() {
+        return offset == null ? dataHora.toString() : dataHora.toString() + offset;
+    }
+}
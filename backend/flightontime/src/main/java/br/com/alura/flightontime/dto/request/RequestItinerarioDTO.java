@@ -0,0 +1,11 @@
+package br.com.alura.flightontime.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Itinerário com conexões: os trechos em ordem, cada um partindo do aeroporto de chegada do anterior.")
+public record RequestItinerarioDTO(
+        @Schema(description = "Trechos do itinerário, na ordem em que são voados")
+        List<RequestPrevisaoDTO> trechos) {
+}
@@ -0,0 +1,32 @@
+package br.com.alura.flightontime.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+@Schema(description = "Rota e mês para calcular a probabilidade de atraso em todos os horários de partida da semana.")
+public record RequestPerfilPrevisaoDTO(
+        @Schema(description = "Código ICAO da companhia aérea", example = "GLO")
+        @NotBlank(message = "Companhia aérea é obrigatória.")
+        @Size(min = 3, max = 3, message = "O código ICAO da companhia aérea deve possuir 3 caracteres.")
+        String codigoIcaoCompanhiaAerea,
+
+        @Schema(description = "Código ICAO do aeroporto de origem", example = "SBGR")
+        @NotBlank(message = "Origem do vôo é obrigatória.")
+        @Size(min = 4, max = 4, message = "O código ICAO do aeroporto de origem deve possuir 4 caracteres.")
+        String codigoIcaoVooOrigem,
+
+        @Schema(description = "Código ICAO do aeroporto de destino", example = "SBGL")
+        @NotBlank(message = "Destino do vôo é obrigatório.")
+        @Size(min = 4, max = 4, message = "O código ICAO do aeroporto de destino deve possuir 4 caracteres.")
+        String codigoIcaoVooDestino,
+
+        @Schema(description = "Mês da partida, de 1 a 12", example = "12")
+        @NotNull(message = "Mês é obrigatório.")
+        @Min(value = 1, message = "O mês deve estar entre 1 e 12.")
+        @Max(value = 12, message = "O mês deve estar entre 1 e 12.")
+        Integer mes) {
+}
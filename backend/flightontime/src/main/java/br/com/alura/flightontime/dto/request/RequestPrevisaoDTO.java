@@ -1,13 +1,10 @@
 package br.com.alura.flightontime.dto.request;
 
 import io.swagger.v3.oas.annotations.media.Schema;
-import jakarta.validation.constraints.Future;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 
-import java.time.LocalDateTime;
-
 @Schema(description = "Parâmetros necessários para realizar a previsão de atraso de um voo.")
 public record RequestPrevisaoDTO(
         @Schema(description = "Código ICAO da companhia aérea", example = "GLO") 
@@ -25,8 +22,7 @@ public record RequestPrevisaoDTO(
         @Size(min = 4, max = 4, message = "O código ICAO do aeroporto de destino deve possuir 4 caracteres.") 
         String codigoIcaoVooDestino,
 
-        @Schema(description = "Data e hora prevista para a partida. Deve ser uma data futura.", example = "2026-01-29T14:30:00") 
+        @Schema(type = "string", description = "Data e hora prevista para a partida, no horário local do aeroporto de origem ou com offset (ex.: 2026-01-29T17:30:00Z). Deve ser uma data futura.", example = "2026-01-29T14:30:00") 
         @NotNull(message = "Data de partida é obrigatória.") 
-        @Future(message = "A data de partida deve ser uma data futura.")
-        LocalDateTime dataPartida) {
+        HorarioPartida dataPartida) {
 }
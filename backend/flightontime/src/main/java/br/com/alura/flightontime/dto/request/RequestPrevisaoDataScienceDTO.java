@@ -39,5 +39,9 @@ public record RequestPrevisaoDataScienceDTO(
         @JsonProperty("partida_mes")
         @Schema(description = "Mês do ano com base na data prevista para partida", example = "12")
         @Size(min = 1, max = 12)
-        Integer partidaMes){
+        Integer partidaMes,
+
+        @JsonProperty("distancia_km")
+        @Schema(description = "Distância ortodrômica em km entre origem e destino, ausente se algum aeroporto não tiver coordenadas", example = "339.4")
+        Double distanciaKm){
 }
@@ -0,0 +1,24 @@
+package br.com.alura.flightontime.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Aeroporto encontrado na busca por proximidade, com a distância até a coordenada pesquisada.")
+public record ResponseAeroportoProximoDTO(
+        @Schema(description = "Nome do aeroporto", example = "Guarulhos - Governador Andre Franco Montoro International Airport")
+        String nome,
+
+        @Schema(description = "Código IATA do aeroporto", example = "GRU")
+        String codigoIata,
+
+        @Schema(description = "Código ICAO do aeroporto", example = "SBGR")
+        String codigoIcao,
+
+        @Schema(description = "Latitude da localização do aeroporto", example = "-23.4355564117")
+        Double latitude,
+
+        @Schema(description = "Longitude da localização do aeroporto", example = "-46.4730567932")
+        Double longitude,
+
+        @Schema(description = "Distância ortodrômica em quilômetros até a coordenada pesquisada", example = "18.7")
+        double distanciaKm) {
+}
@@ -0,0 +1,18 @@
+package br.com.alura.flightontime.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Probabilidade de atraso agregada das previsões de um grupo (companhia, rota, hora, período ou mês)")
+public record ResponseAnaliseAtrasoDTO(
+        @Schema(description = "Valor do agrupamento: código ICAO, rota ORIGEM-DESTINO, hora, período do dia ou mês", example = "GLO")
+        String grupo,
+
+        @Schema(description = "Quantidade de previsões do grupo", example = "1520")
+        long previsoes,
+
+        @Schema(description = "Média da probabilidade de atraso das previsões", example = "0.4123")
+        double probabilidadeMedia,
+
+        @Schema(description = "Fração das previsões com probabilidade de atraso alta ou muito alta", example = "0.2875")
+        double proporcaoAtrasoAlto) {
+}
@@ -0,0 +1,15 @@
+package br.com.alura.flightontime.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Risco de perder uma conexão do itinerário")
+public record ResponseConexaoDTO(
+        @Schema(description = "Código ICAO do aeroporto da conexão", example = "SBGR")
+        String codigoIcaoAeroporto,
+
+        @Schema(description = "Minutos entre a chegada estimada do trecho anterior e a partida do próximo, já descontado o tempo mínimo de conexão. Negativo quando a conexão não é possível nem com o voo no horário", example = "35")
+        long folgaMinutos,
+
+        @Schema(description = "Probabilidade de perder a conexão", example = "0.12")
+        double probabilidadePerderConexao) {
+}
@@ -0,0 +1,26 @@
+package br.com.alura.flightontime.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Dicionário do autocomplete para busca no próprio cliente: completo ou, quando o cliente informa a versão que já tem, apenas as diferenças até a versão atual.")
+public record ResponseDicionarioAutoCompleteDTO(
+        @Schema(description = "Versão atual do dicionário, a ser enviada em `desde` na próxima sincronização", example = "9f3b6c2a1d0e4b57")
+        String versao,
+
+        @Schema(description = "Versão sobre a qual as diferenças se aplicam; nula quando o dicionário é completo e substitui o do cliente", example = "4b17e2c9a0d35f68", nullable = true)
+        String versaoBase,
+
+        @Schema(description = "Aeroportos novos ou alterados, como [icao, iata, nome, cidade, país]", example = "[[\"SBGR\", \"GRU\", \"Guarulhos - Governador Andre Franco Montoro International Airport\", \"São Paulo\", \"BR\"]]")
+        List<List<String>> aeroportos,
+
+        @Schema(description = "Códigos ICAO dos aeroportos removidos desde a versão base", example = "[]")
+        List<String> aeroportosRemovidos,
+
+        @Schema(description = "Companhias aéreas ativas novas ou alteradas, como [id, icao, iata, nome, país]", example = "[[\"1680\", \"GLO\", \"G3\", \"Gol Transportes Aéreos\", \"Brazil\"]]")
+        List<List<String>> companhiasAereas,
+
+        @Schema(description = "Ids das companhias aéreas removidas ou desativadas desde a versão base", example = "[]")
+        List<String> companhiasAereasRemovidas) {
+}
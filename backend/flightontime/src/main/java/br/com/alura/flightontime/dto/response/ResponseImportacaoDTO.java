@@ -0,0 +1,24 @@
+package br.com.alura.flightontime.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Resumo de uma importação de dados de referência")
+public record ResponseImportacaoDTO(
+        @Schema(description = "Conjunto de dados importado", example = "aeroportos")
+        String conjunto,
+
+        @Schema(description = "Linhas de dados lidas do arquivo, sem contar o cabeçalho", example = "29000")
+        long linhasLidas,
+
+        @Schema(description = "Linhas descartadas por não terem a chave ou por terem valores inválidos", example = "12")
+        long linhasRejeitadas,
+
+        @Schema(description = "Linhas descartadas por repetirem a chave de uma linha anterior", example = "3")
+        long linhasDuplicadas,
+
+        @Schema(description = "Linhas da tabela depois da importação", example = "28985")
+        long linhasImportadas,
+
+        @Schema(description = "Duração da importação em milissegundos", example = "1850")
+        long duracaoMs) {
+}
@@ -0,0 +1,21 @@
+package br.com.alura.flightontime.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Probabilidade de atraso de uma rota em cada horário de partida da semana, no horário local da origem.")
+public record ResponsePerfilPrevisaoDTO(
+        @Schema(description = "Código ICAO da companhia aérea", example = "GLO")
+        String codigoIcaoCompanhiaAerea,
+
+        @Schema(description = "Código ICAO do aeroporto de origem", example = "SBGR")
+        String codigoIcaoVooOrigem,
+
+        @Schema(description = "Código ICAO do aeroporto de destino", example = "SBGL")
+        String codigoIcaoVooDestino,
+
+        @Schema(description = "Mês da partida", example = "12")
+        int mes,
+
+        @Schema(description = "Probabilidade de atraso por [dia da semana][hora]: 7 linhas, de 0 (Segunda) a 6 (Domingo), com 24 valores cada, da hora 0 à 23")
+        double[][] probabilidades) {
+}
@@ -0,0 +1,21 @@
+package br.com.alura.flightontime.dto.response;
+
+import br.com.alura.flightontime.model.ProbabilidadeAtraso;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Previsão de um itinerário com conexões: a de cada trecho, o risco de cada conexão e a do itinerário inteiro.")
+public record ResponsePrevisaoItinerarioDTO(
+        @Schema(description = "Probabilidade de o itinerário chegar atrasado, por atraso do último trecho ou por perda de alguma conexão", example = "Média")
+        ProbabilidadeAtraso probabilidadeAtraso,
+
+        @Schema(description = "Probabilidade de o itinerário chegar atrasado em porcentagem", example = "0.41")
+        Double probabilidadeAtrasoPercentual,
+
+        @Schema(description = "Previsão de cada trecho, na ordem recebida")
+        List<ResponsePrevisaoDTO> trechos,
+
+        @Schema(description = "Conexões entre trechos consecutivos")
+        List<ResponseConexaoDTO> conexoes) {
+}
@@ -0,0 +1,17 @@
+package br.com.alura.flightontime.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Resultado de um voo dentro de uma previsão em lote. Contém a previsão ou a lista de erros do item.")
+public record ResponsePrevisaoLoteItemDTO(
+        @Schema(description = "Posição do voo na lista enviada", example = "0")
+        int indice,
+
+        @Schema(description = "Previsão do voo, ausente quando o item possui erros")
+        ResponsePrevisaoDTO previsao,
+
+        @Schema(description = "Erros de validação ou de processamento do item", example = "[]")
+        List<String> erros) {
+}
@@ -0,0 +1,14 @@
+package br.com.alura.flightontime.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+
+import java.util.Map;
+
+public record ResponseSaudeModeloDTO(
+        String status,
+
+        @JsonAlias("data_treinamento")
+        String dataTreinamento,
+
+        Map<String, Object> metricas) {
+}
@@ -0,0 +1,91 @@
+package br.com.alura.flightontime.historico;
+
+import br.com.alura.flightontime.historico.HistoricoPrevisoes.RegistroPrevisao;
+import br.com.alura.flightontime.model.PeriodoDia;
+import br.com.alura.flightontime.model.ProbabilidadeAtraso;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Mantém {@code historico_previsoes_agregados}: contagem, soma das probabilidades e quantidade de previsões com
+ * atraso alto ou muito alto por mês, rota, companhia aérea e hora de partida. Cada lote do histórico é somado em
+ * memória e aplicado com um upsert por chave, na mesma transação dos inserts, então as consultas de análise
+ * leem poucas linhas já agregadas em vez de varrer o histórico.
+ */
+@Component
+class AgregadosHistorico {
+
+    private static final String UPSERT = "INSERT INTO historico_previsoes_agregados (month, origin_icao, "
+            + "destination_icao, airline_icao, departure_hour, day_period, predictions, probability_sum, high_delay_count) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (month, origin_icao, destination_icao, airline_icao, departure_hour) DO UPDATE SET "
+            + "predictions = historico_previsoes_agregados.predictions + EXCLUDED.predictions, "
+            + "probability_sum = historico_previsoes_agregados.probability_sum + EXCLUDED.probability_sum, "
+            + "high_delay_count = historico_previsoes_agregados.high_delay_count + EXCLUDED.high_delay_count";
+
+    // Ordem fixa das chaves: duas instâncias gravando ao mesmo tempo bloqueiam as linhas na mesma ordem
+    private static final Comparator<Chave> ORDEM = Comparator.comparing(Chave::mes)
+            .thenComparing(Chave::origem)
+            .thenComparing(Chave::destino)
+            .thenComparing(Chave::companhia)
+            .thenComparingInt(Chave::hora);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // O mesmo fuso da migração V6, que recalculou os meses do histórico anterior
+    @Value("${historico.previsoes.fuso:America/Sao_Paulo}")
+    private ZoneId zona;
+
+    void atualizar(List<RegistroPrevisao> lote) {
+        Map<Chave, Soma> somas = new TreeMap<>(ORDEM);
+        for (RegistroPrevisao registro : lote) {
+            var chave = registro.chave();
+            LocalDate mes = Instant.ofEpochMilli(registro.instante()).atZone(zona).toLocalDate().withDayOfMonth(1);
+            var soma = somas.computeIfAbsent(new Chave(mes, chave.origem(), chave.destino(), chave.companhiaAerea(),
+                    chave.partidaHora(), chave.periodoDia()), c -> new Soma());
+            soma.previsoes++;
+            soma.probabilidades += registro.probabilidade();
+            if (registro.classificacao() == ProbabilidadeAtraso.ALTA
+                    || registro.classificacao() == ProbabilidadeAtraso.MUITO_ALTA) {
+                soma.atrasosAltos++;
+            }
+        }
+
+        List<Map.Entry<Chave, Soma>> linhas = new ArrayList<>(somas.entrySet());
+        jdbcTemplate.batchUpdate(UPSERT, linhas, linhas.size(), (comando, linha) -> {
+            Chave chave = linha.getKey();
+            Soma soma = linha.getValue();
+            comando.setDate(1, Date.valueOf(chave.mes()));
+            comando.setString(2, chave.origem());
+            comando.setString(3, chave.destino());
+            comando.setString(4, chave.companhia());
+            comando.setInt(5, chave.hora());
+            comando.setString(6, chave.periodo().name());
+            comando.setLong(7, soma.previsoes);
+            comando.setDouble(8, soma.probabilidades);
+            comando.setLong(9, soma.atrasosAltos);
+        });
+    }
+
+    private record Chave(LocalDate mes, String origem, String destino, String companhia, int hora, PeriodoDia periodo) {
+    }
+
+    private static final class Soma {
+        long previsoes;
+        double probabilidades;
+        long atrasosAltos;
+    }
+}
@@ -0,0 +1,210 @@
+package br.com.alura.flightontime.historico;
+
+import br.com.alura.flightontime.dto.request.RequestPrevisaoDataScienceDTO;
+import br.com.alura.flightontime.model.ProbabilidadeAtraso;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Histórico das previsões devolvidas, gravado em {@code historico_previsoes} sem atrasar a requisição:
+ * {@link #registrar} só coloca o registro em um buffer circular de capacidade fixa, e uma thread de gravação o
+ * esvazia em inserts em lote pelo JDBC. Se o banco não acompanhar e o buffer encher, os novos registros são
+ * descartados e contados em {@code historico.previsoes.descartadas}, em vez de acumular memória ou bloquear
+ * a previsão. Cada lote atualiza também os agregados usados pela análise de atrasos, na mesma transação. No
+ * encerramento da aplicação, o que estiver no buffer é gravado antes de o pool de conexões fechar.
+ */
+@Component
+public class HistoricoPrevisoes implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(HistoricoPrevisoes.class);
+
+    private static final String INSERT = "INSERT INTO historico_previsoes (created_at, origin_icao, destination_icao, "
+            + "airline_icao, day_period, departure_hour, departure_weekday, departure_month, probability, delay_class, "
+            + "model_version, latency_us) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AgregadosHistorico agregadosHistorico;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${historico.previsoes.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${historico.previsoes.capacidade:65536}")
+    private int capacidade;
+
+    @Value("${historico.previsoes.tamanho-lote:500}")
+    private int tamanhoLote;
+
+    // Quanto a gravação espera para juntar um lote maior quando o tráfego está baixo
+    @Value("${historico.previsoes.intervalo:PT1S}")
+    private Duration intervalo;
+
+    @Value("${historico.previsoes.espera-encerramento:PT10S}")
+    private Duration esperaEncerramento;
+
+    private ArrayBlockingQueue<RegistroPrevisao> buffer;
+    private Counter descartadas;
+    private Counter gravadas;
+    private Counter falhas;
+    private Thread gravacao;
+    private volatile boolean ativo;
+
+    @PostConstruct
+    public void iniciarBuffer() {
+        buffer = new ArrayBlockingQueue<>(capacidade);
+        descartadas = Counter.builder("historico.previsoes.descartadas")
+                .description("Previsões não gravadas no histórico porque o buffer estava cheio")
+                .register(meterRegistry);
+        gravadas = Counter.builder("historico.previsoes.gravadas")
+                .description("Previsões gravadas no histórico")
+                .register(meterRegistry);
+        falhas = Counter.builder("historico.previsoes.falhas")
+                .description("Previsões perdidas por erro ao gravar o lote no banco")
+                .register(meterRegistry);
+        Gauge.builder("historico.previsoes.pendentes", buffer, ArrayBlockingQueue::size)
+                .description("Previsões no buffer aguardando gravação")
+                .register(meterRegistry);
+    }
+
+    /** Coloca a previsão no buffer; nunca bloqueia. */
+    public void registrar(RequestPrevisaoDataScienceDTO chave, double probabilidade, ProbabilidadeAtraso classificacao,
+                          String versaoModelo, long latenciaNanos) {
+        if (!ativo) return;
+        var registro = new RegistroPrevisao(System.currentTimeMillis(), chave, probabilidade, classificacao,
+                versaoModelo, latenciaNanos / 1_000);
+        if (!buffer.offer(registro)) {
+            descartadas.increment();
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!habilitado) return;
+        ativo = true;
+        gravacao = Thread.ofPlatform().name("historico-previsoes").start(this::gravarContinuamente);
+    }
+
+    @Override
+    public void stop() {
+        if (gravacao == null) return;
+        // Para de aceitar registros e espera a thread esvaziar o buffer
+        ativo = false;
+        try {
+            gravacao.join(esperaEncerramento.toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (gravacao.isAlive()) {
+            logger.warn("Histórico de previsões encerrado com {} registros não gravados", buffer.size());
+            gravacao.interrupt();
+        }
+        gravacao = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return gravacao != null;
+    }
+
+    // Fase menor que a do servidor web: começa antes e só para depois que as requisições em curso terminarem
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void gravarContinuamente() {
+        List<RegistroPrevisao> lote = new ArrayList<>(tamanhoLote);
+        while (ativo || !buffer.isEmpty()) {
+            try {
+                juntarLote(lote);
+            } catch (InterruptedException ex) {
+                return;
+            }
+            if (!lote.isEmpty()) {
+                gravar(lote);
+                lote.clear();
+            }
+        }
+    }
+
+    /** Espera o primeiro registro e junta outros até completar o lote ou passar o intervalo. */
+    private void juntarLote(List<RegistroPrevisao> lote) throws InterruptedException {
+        RegistroPrevisao primeiro = buffer.poll(intervalo.toMillis(), TimeUnit.MILLISECONDS);
+        if (primeiro == null) return;
+        lote.add(primeiro);
+
+        long limite = System.nanoTime() + intervalo.toNanos();
+        while (lote.size() < tamanhoLote && ativo) {
+            buffer.drainTo(lote, tamanhoLote - lote.size());
+            long restante = limite - System.nanoTime();
+            if (lote.size() >= tamanhoLote || restante <= 0) break;
+            RegistroPrevisao proximo = buffer.poll(restante, TimeUnit.NANOSECONDS);
+            if (proximo == null) break;
+            lote.add(proximo);
+        }
+        // No encerramento não espera: leva o que houver
+        if (!ativo) buffer.drainTo(lote, tamanhoLote - lote.size());
+    }
+
+    private void gravar(List<RegistroPrevisao> lote) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> inserir(lote));
+            gravadas.increment(lote.size());
+        } catch (DataAccessException | TransactionException ex) {
+            // Sem nova tentativa: repetir o lote só aumentaria a fila enquanto o banco está com problema
+            falhas.increment(lote.size());
+            logger.warn("Falha ao gravar {} previsões no histórico: {}", lote.size(), ex.getMessage());
+        }
+    }
+
+    private void inserir(List<RegistroPrevisao> lote) {
+        jdbcTemplate.batchUpdate(INSERT, lote, lote.size(), (comando, registro) -> {
+            var chave = registro.chave();
+            comando.setTimestamp(1, Timestamp.from(Instant.ofEpochMilli(registro.instante())));
+            comando.setString(2, chave.origem());
+            comando.setString(3, chave.destino());
+            comando.setString(4, chave.companhiaAerea());
+            comando.setString(5, chave.periodoDia().name());
+            comando.setInt(6, chave.partidaHora());
+            comando.setInt(7, chave.partidaDiaDaSemana());
+            comando.setInt(8, chave.partidaMes());
+            comando.setDouble(9, registro.probabilidade());
+            comando.setString(10, registro.classificacao().name());
+            comando.setString(11, registro.versaoModelo());
+            comando.setLong(12, registro.latenciaMicros());
+        });
+        agregadosHistorico.atualizar(lote);
+    }
+
+    record RegistroPrevisao(long instante, RequestPrevisaoDataScienceDTO chave, double probabilidade,
+                            ProbabilidadeAtraso classificacao, String versaoModelo, long latenciaMicros) {
+    }
+}
@@ -0,0 +1,141 @@
+package br.com.alura.flightontime.importacao;
+
+import br.com.alura.flightontime.infra.exception.ValidacaoDBException;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Conjuntos de dados que podem ser importados, com a tabela de destino e as colunas aceitas no CSV. Cada coluna
+ * pode aparecer no cabeçalho com o nome da tabela ou com um dos apelidos usados pelo OurAirports e pelo
+ * OpenFlights; sem cabeçalho, as colunas são lidas na ordem da tabela, como no {@code airlines.dat}.
+ */
+public enum ConjuntoImportacao {
+
+    AEROPORTOS("aeroportos", "lista_aeroportos", List.of(
+            Coluna.chave("icao", Tipo.TEXTO, 10, "icao_code", "ident", "gps_code"),
+            Coluna.opcional("iata", Tipo.TEXTO, 10, "iata_code"),
+            Coluna.opcional("name", Tipo.TEXTO, 255),
+            Coluna.opcional("city", Tipo.TEXTO, 100, "municipality"),
+            Coluna.opcional("state", Tipo.TEXTO, 100, "subd", "iso_region"),
+            Coluna.opcional("country", Tipo.TEXTO, 10, "iso_country"),
+            Coluna.opcional("elevation", Tipo.INTEIRO, 0, "elevation_ft"),
+            Coluna.opcional("lat", Tipo.DECIMAL, 0, "latitude_deg"),
+            Coluna.opcional("lon", Tipo.DECIMAL, 0, "longitude_deg"),
+            Coluna.opcional("tz", Tipo.TEXTO, 50)),
+            List.of()),
+
+    COMPANHIAS_AEREAS("companhias-aereas", "lista_companhias_aereas", List.of(
+            Coluna.chave("airline_id", Tipo.INTEIRO, 0),
+            Coluna.opcional("name", Tipo.TEXTO, 255),
+            Coluna.opcional("alias", Tipo.TEXTO, 255),
+            Coluna.opcional("iata", Tipo.TEXTO, 10),
+            Coluna.opcional("icao", Tipo.TEXTO, 10),
+            Coluna.opcional("callsign", Tipo.TEXTO, 100),
+            Coluna.opcional("country", Tipo.TEXTO, 100),
+            Coluna.opcional("active", Tipo.TEXTO, 1)),
+            List.of()),
+
+    VOOS_PROGRAMADOS("voos-programados", "voos_programados", List.of(
+            Coluna.chave("airline_icao", Tipo.TEXTO, 10, "codigoIcaoCompanhiaAerea"),
+            Coluna.chave("flight_number", Tipo.TEXTO, 10, "numeroVoo"),
+            Coluna.obrigatoria("origin_icao", Tipo.TEXTO, 10, "codigoIcaoVooOrigem"),
+            Coluna.obrigatoria("destination_icao", Tipo.TEXTO, 10, "codigoIcaoVooDestino"),
+            Coluna.chave("departure", Tipo.DATA_HORA, 0, "dataPartida"),
+            Coluna.opcional("arrival", Tipo.DATA_HORA, 0, "dataChegada")),
+            List.of(new Indice("idx_voos_programados_rota", "origin_icao, destination_icao, departure")));
+
+    private final String caminho;
+    private final String tabela;
+    private final List<Coluna> colunas;
+    private final List<Indice> indices;
+
+    ConjuntoImportacao(String caminho, String tabela, List<Coluna> colunas, List<Indice> indices) {
+        this.caminho = caminho;
+        this.tabela = tabela;
+        this.colunas = colunas;
+        this.indices = indices;
+    }
+
+    public static ConjuntoImportacao doCaminho(String caminho) {
+        return Arrays.stream(values())
+                .filter(conjunto -> conjunto.caminho.equals(caminho))
+                .findFirst()
+                .orElseThrow(() -> new ValidacaoDBException(List.of("Conjunto de dados desconhecido: " + caminho
+                        + ". Use aeroportos, companhias-aereas ou voos-programados.")));
+    }
+
+    public String caminho() {
+        return caminho;
+    }
+
+    String tabela() {
+        return tabela;
+    }
+
+    List<Coluna> colunas() {
+        return colunas;
+    }
+
+    List<Indice> indices() {
+        return indices;
+    }
+
+    List<String> chave() {
+        return colunas.stream().filter(Coluna::chave).map(Coluna::nome).toList();
+    }
+
+    enum Tipo {
+        TEXTO, INTEIRO, DECIMAL, DATA_HORA;
+
+        boolean aceita(String valor, int tamanhoMaximo) {
+            try {
+                switch (this) {
+                    case TEXTO -> {
+                        return valor.length() <= tamanhoMaximo;
+                    }
+                    case INTEIRO -> Integer.parseInt(valor);
+                    case DECIMAL -> new BigDecimal(valor);
+                    case DATA_HORA -> LocalDateTime.parse(valor.replace(' ', 'T'));
+                }
+                return true;
+            } catch (NumberFormatException | DateTimeParseException ex) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @param tamanhoMaximo tamanho do {@code VARCHAR}, só usado em colunas de texto
+     * @param apelidos      outros nomes aceitos no cabeçalho, em ordem de preferência
+     */
+    record Coluna(String nome, Tipo tipo, int tamanhoMaximo, boolean chave, boolean obrigatoria, List<String> apelidos) {
+
+        static Coluna chave(String nome, Tipo tipo, int tamanhoMaximo, String... apelidos) {
+            return new Coluna(nome, tipo, tamanhoMaximo, true, true, List.of(apelidos));
+        }
+
+        static Coluna obrigatoria(String nome, Tipo tipo, int tamanhoMaximo, String... apelidos) {
+            return new Coluna(nome, tipo, tamanhoMaximo, false, true, List.of(apelidos));
+        }
+
+        static Coluna opcional(String nome, Tipo tipo, int tamanhoMaximo, String... apelidos) {
+            return new Coluna(nome, tipo, tamanhoMaximo, false, false, List.of(apelidos));
+        }
+
+        /** Nome da coluna seguido dos apelidos, em minúsculas. */
+        List<String> nomesAceitos() {
+            return Stream.concat(Stream.of(nome), apelidos.stream())
+                    .map(n -> n.toLowerCase(Locale.ROOT))
+                    .toList();
+        }
+    }
+
+    record Indice(String nome, String colunas) {
+    }
+}
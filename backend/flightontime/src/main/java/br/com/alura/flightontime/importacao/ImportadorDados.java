@@ -0,0 +1,303 @@
+package br.com.alura.flightontime.importacao;
+
+import br.com.alura.flightontime.busca.IndiceAeroportos;
+import br.com.alura.flightontime.busca.IndiceCompanhiasAereas;
+import br.com.alura.flightontime.dto.response.ResponseImportacaoDTO;
+import br.com.alura.flightontime.importacao.ConjuntoImportacao.Coluna;
+import br.com.alura.flightontime.importacao.ConjuntoImportacao.Indice;
+import br.com.alura.flightontime.infra.exception.ValidacaoDBException;
+import br.com.alura.flightontime.referencia.DadosReferenciaCache;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Importa um conjunto de dados de um arquivo CSV do diretório {@code importacao.diretorio}. O arquivo é lido em
+ * streaming e enviado por {@code COPY} para uma tabela de carga ({@code <tabela>_nova}) sem índices; depois a
+ * carga é deduplicada pela chave, ganha chave primária e índices, e só então troca de lugar com a tabela atual.
+ * Tudo acontece em uma transação: as buscas continuam lendo a tabela atual durante a carga, o bloqueio exclusivo
+ * só é pedido na troca, e uma falha em qualquer etapa descarta a carga sem afetar os dados em uso.
+ */
+@Component
+public class ImportadorDados {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportadorDados.class);
+
+    private static final int TAMANHO_BUFFER = 1 << 16;
+    private static final String SUFIXO_CARGA = "_nova";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private DadosReferenciaCache dadosReferenciaCache;
+
+    @Autowired
+    private IndiceAeroportos indiceAeroportos;
+
+    @Autowired
+    private IndiceCompanhiasAereas indiceCompanhiasAereas;
+
+    @Value("${importacao.diretorio:importacao}")
+    private Path diretorio;
+
+    // Protege contra arquivos truncados: a importação é recusada se a tabela encolher mais do que isso
+    @Value("${importacao.reducao-maxima:0.5}")
+    private double reducaoMaxima;
+
+    @Value("${importacao.espera-bloqueio:PT5S}")
+    private Duration esperaBloqueio;
+
+    private final ReentrantLock travaImportacao = new ReentrantLock();
+
+    public ResponseImportacaoDTO importar(ConjuntoImportacao conjunto, String nomeArquivo) {
+        Path arquivo = resolverArquivo(nomeArquivo);
+
+        travaImportacao.lock();
+        try {
+            long inicio = System.nanoTime();
+            var resultado = carregar(conjunto, arquivo);
+            long duracaoMs = (System.nanoTime() - inicio) / 1_000_000;
+            logger.info("Importação de {} a partir de {}: {} linhas lidas, {} rejeitadas, {} duplicadas, {} importadas em {} ms",
+                    conjunto.caminho(), arquivo, resultado.lidas(), resultado.rejeitadas(), resultado.duplicadas(),
+                    resultado.importadas(), duracaoMs);
+
+            atualizarDadosEmMemoria(conjunto);
+            return new ResponseImportacaoDTO(conjunto.caminho(), resultado.lidas(), resultado.rejeitadas(),
+                    resultado.duplicadas(), resultado.importadas(), duracaoMs);
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Falha ao importar " + conjunto.caminho() + ": " + ex.getMessage(), ex);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Falha ao ler " + arquivo, ex);
+        } finally {
+            travaImportacao.unlock();
+        }
+    }
+
+    private Path resolverArquivo(String nomeArquivo) {
+        Path base = diretorio.toAbsolutePath().normalize();
+        Path arquivo = base.resolve(nomeArquivo).normalize();
+        if (!arquivo.startsWith(base)) {
+            throw new ValidacaoDBException(List.of("O arquivo deve estar no diretório de importação."));
+        }
+        if (!Files.isRegularFile(arquivo)) {
+            throw new ValidacaoDBException(List.of("Arquivo não encontrado no diretório de importação: " + nomeArquivo));
+        }
+        return arquivo;
+    }
+
+    private Contagem carregar(ConjuntoImportacao conjunto, Path arquivo) throws SQLException, IOException {
+        String tabela = conjunto.tabela();
+        String carga = tabela + SUFIXO_CARGA;
+
+        try (Connection conexao = dataSource.getConnection()) {
+            conexao.setAutoCommit(false);
+            try (Statement comando = conexao.createStatement()) {
+                // Não espera indefinidamente por outra importação da mesma tabela nem, na troca, por leituras
+                // longas: enquanto a troca espera, as novas leituras da tabela ficariam na fila atrás dela
+                comando.execute("SET LOCAL lock_timeout = " + esperaBloqueio.toMillis());
+                comando.execute("DROP TABLE IF EXISTS " + carga);
+                // Sem chave primária nem índices: o COPY fica mais rápido e eles são criados uma vez no final
+                comando.execute("CREATE TABLE " + carga + " (LIKE " + tabela + " INCLUDING DEFAULTS)");
+
+                Leitura leitura = copiar(conexao, conjunto, carga, arquivo);
+
+                String chave = String.join(", ", conjunto.chave());
+                // Mantém a primeira ocorrência de cada chave, na ordem do arquivo. Uma janela em vez de um
+                // auto-join, que ficaria quadrático quando muitas linhas repetem a mesma chave
+                int duplicadas = comando.executeUpdate("DELETE FROM " + carga + " WHERE ctid IN (SELECT ctid FROM "
+                        + "(SELECT ctid, row_number() OVER (PARTITION BY " + chave + " ORDER BY ctid) AS ordem FROM "
+                        + carga + ") repetidas WHERE ordem > 1)");
+
+                comando.execute("ALTER TABLE " + carga + " ADD CONSTRAINT " + carga + "_pkey PRIMARY KEY (" + chave + ")");
+                for (Indice indice : conjunto.indices()) {
+                    comando.execute("CREATE INDEX " + indice.nome() + SUFIXO_CARGA + " ON " + carga + " (" + indice.colunas() + ")");
+                }
+                comando.execute("ANALYZE " + carga);
+
+                long importadas = contar(comando, carga);
+                verificarTamanho(comando, tabela, importadas);
+
+                // A partir daqui as leituras da tabela ficam bloqueadas até o commit, que vem logo em seguida
+                comando.execute("DROP TABLE " + tabela);
+                comando.execute("ALTER TABLE " + carga + " RENAME TO " + tabela);
+                comando.execute("ALTER TABLE " + tabela + " RENAME CONSTRAINT " + carga + "_pkey TO " + tabela + "_pkey");
+                for (Indice indice : conjunto.indices()) {
+                    comando.execute("ALTER INDEX " + indice.nome() + SUFIXO_CARGA + " RENAME TO " + indice.nome());
+                }
+                conexao.commit();
+                return new Contagem(leitura.lidas(), leitura.rejeitadas(), duplicadas, importadas);
+            } catch (SQLException | IOException | RuntimeException ex) {
+                conexao.rollback();
+                throw ex;
+            } finally {
+                conexao.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Envia o arquivo ao {@code COPY}, linha a linha, só com as colunas conhecidas e já no formato CSV do
+     * PostgreSQL. Linhas sem a chave ou com valores que a coluna não aceita são descartadas aqui para que uma
+     * linha ruim não aborte o {@code COPY} inteiro.
+     */
+    private Leitura copiar(Connection conexao, ConjuntoImportacao conjunto, String carga, Path arquivo)
+            throws SQLException, IOException {
+        List<Coluna> colunas = conjunto.colunas();
+        String sql = "COPY " + carga + " (" + colunas.stream().map(Coluna::nome).collect(Collectors.joining(", "))
+                + ") FROM STDIN WITH (FORMAT csv)";
+
+        long lidas = 0;
+        long rejeitadas = 0;
+        try (InputStream entrada = abrir(arquivo)) {
+            var leitor = new LeitorRegistrosCsv(new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8), TAMANHO_BUFFER));
+            var copia = new PGCopyOutputStream(conexao.unwrap(PGConnection.class), sql, TAMANHO_BUFFER);
+            try {
+                Writer escritor = new BufferedWriter(new OutputStreamWriter(copia, StandardCharsets.UTF_8), TAMANHO_BUFFER);
+                String[] registro = leitor.proximo();
+                int[][] posicoes = mapearColunas(colunas, registro);
+                if (posicoes != null) registro = leitor.proximo();
+                else posicoes = posicoesNaOrdemDaTabela(colunas);
+
+                for (; registro != null; registro = leitor.proximo()) {
+                    lidas++;
+                    if (!escreverLinha(escritor, colunas, posicoes, registro)) rejeitadas++;
+                }
+                escritor.flush();
+                copia.endCopy();
+            } finally {
+                if (copia.isActive()) copia.cancelCopy();
+            }
+        }
+        return new Leitura(lidas, rejeitadas);
+    }
+
+    private static InputStream abrir(Path arquivo) throws IOException {
+        InputStream entrada = Files.newInputStream(arquivo);
+        return arquivo.getFileName().toString().endsWith(".gz") ? new GZIPInputStream(entrada, TAMANHO_BUFFER) : entrada;
+    }
+
+    /**
+     * Posições de cada coluna no cabeçalho, na ordem de preferência dos nomes aceitos, ou {@code null} se a
+     * primeira linha não tiver nenhum nome conhecido (arquivo sem cabeçalho).
+     */
+    private static int[][] mapearColunas(List<Coluna> colunas, String[] cabecalho) {
+        if (cabecalho == null) {
+            throw new ValidacaoDBException(List.of("O arquivo está vazio."));
+        }
+        List<String> nomes = Arrays.stream(cabecalho)
+                .map(nome -> nome == null ? "" : nome.toLowerCase(Locale.ROOT))
+                .toList();
+
+        int[][] posicoes = new int[colunas.size()][];
+        boolean algumaEncontrada = false;
+        List<String> ausentes = new ArrayList<>();
+        for (int i = 0; i < colunas.size(); i++) {
+            posicoes[i] = colunas.get(i).nomesAceitos().stream().mapToInt(nomes::indexOf).filter(p -> p >= 0).toArray();
+            if (posicoes[i].length > 0) algumaEncontrada = true;
+            else if (colunas.get(i).obrigatoria()) ausentes.add(colunas.get(i).nome());
+        }
+        if (!algumaEncontrada) return null;
+        if (!ausentes.isEmpty()) {
+            throw new ValidacaoDBException(List.of("Colunas obrigatórias ausentes no cabeçalho: " + String.join(", ", ausentes)));
+        }
+        return posicoes;
+    }
+
+    private static int[][] posicoesNaOrdemDaTabela(List<Coluna> colunas) {
+        int[][] posicoes = new int[colunas.size()][];
+        for (int i = 0; i < colunas.size(); i++) {
+            posicoes[i] = new int[]{i};
+        }
+        return posicoes;
+    }
+
+    private static boolean escreverLinha(Writer escritor, List<Coluna> colunas, int[][] posicoes, String[] registro)
+            throws IOException {
+        String[] valores = new String[colunas.size()];
+        for (int i = 0; i < colunas.size(); i++) {
+            Coluna coluna = colunas.get(i);
+            // O primeiro nome aceito que tiver valor, ex.: icao_code e, se vazio, ident no OurAirports
+            for (int posicao : posicoes[i]) {
+                if (posicao < registro.length && registro[posicao] != null) {
+                    valores[i] = registro[posicao];
+                    break;
+                }
+            }
+            if (valores[i] == null ? coluna.obrigatoria() : !coluna.tipo().aceita(valores[i], coluna.tamanhoMaximo())) {
+                return false;
+            }
+        }
+
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) escritor.write(',');
+            // No CSV do COPY o campo vazio sem aspas é NULL; os demais vão entre aspas
+            if (valores[i] != null) {
+                escritor.write('"');
+                escritor.write(valores[i].replace("\"", "\"\""));
+                escritor.write('"');
+            }
+        }
+        escritor.write('\n');
+        return true;
+    }
+
+    private static long contar(Statement comando, String tabela) throws SQLException {
+        try (ResultSet resultado = comando.executeQuery("SELECT count(*) FROM " + tabela)) {
+            resultado.next();
+            return resultado.getLong(1);
+        }
+    }
+
+    private void verificarTamanho(Statement comando, String tabela, long importadas) throws SQLException {
+        long atuais = contar(comando, tabela);
+        if (importadas == 0 || importadas < atuais * (1 - reducaoMaxima)) {
+            throw new ValidacaoDBException(List.of("A importação teria " + importadas + " linhas, contra " + atuais
+                    + " na tabela atual. Verifique o arquivo ou ajuste importacao.reducao-maxima."));
+        }
+    }
+
+    private void atualizarDadosEmMemoria(ConjuntoImportacao conjunto) {
+        if (conjunto == ConjuntoImportacao.VOOS_PROGRAMADOS) return;
+        // Se os códigos mudaram, o evento de recarga já reconstrói os índices; senão só nomes e cidades mudaram
+        if (!dadosReferenciaCache.recarregar()) {
+            if (conjunto == ConjuntoImportacao.AEROPORTOS) indiceAeroportos.reconstruir();
+            else indiceCompanhiasAereas.reconstruir();
+        }
+    }
+
+    private record Leitura(long lidas, long rejeitadas) {
+    }
+
+    private record Contagem(long lidas, long rejeitadas, long duplicadas, long importadas) {
+    }
+}
@@ -0,0 +1,97 @@
+package br.com.alura.flightontime.importacao;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Leitor de CSV no formato RFC 4180 (campos entre aspas podem conter o separador, aspas duplicadas e quebras de
+ * linha), lendo um registro por vez. O separador é deduzido da primeira linha entre vírgula, ponto e vírgula e
+ * tabulação. Campos vazios e o {@code \N} do OpenFlights são devolvidos como {@code null}.
+ */
+final class LeitorRegistrosCsv {
+
+    private static final int LIMITE_PRIMEIRA_LINHA = 1 << 16;
+
+    private final BufferedReader leitor;
+    private final char separador;
+    private final StringBuilder campo = new StringBuilder();
+    private final List<String> campos = new ArrayList<>();
+
+    LeitorRegistrosCsv(BufferedReader leitor) throws IOException {
+        this.leitor = leitor;
+        // Ignora o BOM que planilhas costumam gravar no início do arquivo
+        leitor.mark(1);
+        if (leitor.read() != '\uFEFF') leitor.reset();
+        this.separador = deduzirSeparador(leitor);
+    }
+
+    /** Próximo registro, ou {@code null} no fim do arquivo. Linhas em branco são ignoradas. */
+    String[] proximo() throws IOException {
+        campos.clear();
+        campo.setLength(0);
+        boolean entreAspas = false;
+        boolean citado = false;
+        boolean vazio = true;
+        int c;
+        while ((c = leitor.read()) != -1) {
+            if (entreAspas) {
+                if (c == '"') {
+                    leitor.mark(1);
+                    if (leitor.read() == '"') {
+                        campo.append('"');
+                    } else {
+                        leitor.reset();
+                        entreAspas = false;
+                    }
+                } else {
+                    campo.append((char) c);
+                }
+                continue;
+            }
+            if (c == '\r') continue;
+            if (c == '\n') {
+                if (vazio) continue;
+                break;
+            }
+            vazio = false;
+            if (c == separador) {
+                adicionarCampo(citado);
+                citado = false;
+            } else if (c == '"' && campo.isEmpty()) {
+                entreAspas = true;
+                citado = true;
+            } else {
+                campo.append((char) c);
+            }
+        }
+        if (vazio) return null;
+        adicionarCampo(citado);
+        return campos.toArray(String[]::new);
+    }
+
+    private void adicionarCampo(boolean citado) {
+        String valor = citado ? campo.toString() : campo.toString().strip();
+        campos.add(valor.isEmpty() || (!citado && valor.equals("\\N")) ? null : valor);
+        campo.setLength(0);
+    }
+
+    private static char deduzirSeparador(BufferedReader leitor) throws IOException {
+        leitor.mark(LIMITE_PRIMEIRA_LINHA);
+        String primeira = leitor.readLine();
+        leitor.reset();
+        if (primeira == null) return ',';
+
+        char escolhido = ',';
+        long maior = 0;
+        for (char candidato : new char[]{',', ';', '\t'}) {
+            long ocorrencias = primeira.chars().filter(c -> c == candidato).count();
+            if (ocorrencias > maior) {
+                maior = ocorrencias;
+                escolhido = candidato;
+            }
+        }
+        return escolhido;
+    }
+}
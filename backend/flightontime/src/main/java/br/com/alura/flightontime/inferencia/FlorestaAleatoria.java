@@ -0,0 +1,116 @@
+package br.com.alura.flightontime.inferencia;
+
+import java.util.List;
+
+/**
+ * Random forest achatada: os nós de todas as árvores ficam em dois arrays de primitivos, com os índices já
+ * deslocados para a posição global. A avaliação não aloca e lê só duas posições de memória por nó.
+ *
+ * <p>Em {@code estrutura}, cada nó ocupa duas posições: a feature usada (ou {@link #FOLHA}) e o filho da
+ * direita. O filho da esquerda é sempre o nó seguinte, porque o scikit-learn numera os nós em pré-ordem.
+ * Em {@code limiarOuValor} fica o limiar dos nós internos e a probabilidade de atraso das folhas.
+ */
+public final class FlorestaAleatoria {
+
+    private static final int FOLHA = -1;
+
+    private final int[] raizes;
+    private final int[] estrutura;
+    private final double[] limiarOuValor;
+    private final int quantidadeFeatures;
+
+    private FlorestaAleatoria(int[] raizes, int[] estrutura, double[] limiarOuValor, int quantidadeFeatures) {
+        this.raizes = raizes;
+        this.estrutura = estrutura;
+        this.limiarOuValor = limiarOuValor;
+        this.quantidadeFeatures = quantidadeFeatures;
+    }
+
+    /**
+     * Valida e achata as árvores exportadas. Exige a numeração em pré-ordem (filho da esquerda logo após o
+     * pai e filho da direita depois dele), o que também garante que a descida sempre termina.
+     */
+    public static FlorestaAleatoria de(List<ModeloExportado.Arvore> arvores, int quantidadeFeatures) {
+        if (arvores == null || arvores.isEmpty()) {
+            throw new IllegalArgumentException("O modelo não contém árvores");
+        }
+
+        int total = 0;
+        for (ModeloExportado.Arvore arvore : arvores) {
+            total += arvore.valor().length;
+        }
+
+        int[] raizes = new int[arvores.size()];
+        int[] estrutura = new int[total * 2];
+        double[] limiarOuValor = new double[total];
+
+        int base = 0;
+        for (int a = 0; a < arvores.size(); a++) {
+            ModeloExportado.Arvore arvore = arvores.get(a);
+            int nos = arvore.valor().length;
+            if (nos == 0 || arvore.feature().length != nos || arvore.limiar().length != nos
+                    || arvore.esquerda().length != nos || arvore.direita().length != nos) {
+                throw new IllegalArgumentException("Árvore " + a + " com vetores de tamanhos diferentes");
+            }
+
+            raizes[a] = base;
+            for (int no = 0; no < nos; no++) {
+                int global = base + no;
+
+                if (arvore.esquerda()[no] == FOLHA) {
+                    double probabilidade = arvore.valor()[no];
+                    if (!(probabilidade >= 0 && probabilidade <= 1)) {
+                        throw new IllegalArgumentException("Árvore " + a + " com probabilidade inválida no nó " + no);
+                    }
+                    estrutura[2 * global] = FOLHA;
+                    estrutura[2 * global + 1] = FOLHA;
+                    limiarOuValor[global] = probabilidade;
+                    continue;
+                }
+
+                int filhoDireito = arvore.direita()[no];
+                if (arvore.esquerda()[no] != no + 1 || filhoDireito <= no + 1 || filhoDireito >= nos) {
+                    throw new IllegalArgumentException("Árvore " + a + " fora da pré-ordem no nó " + no);
+                }
+                if (arvore.feature()[no] < 0 || arvore.feature()[no] >= quantidadeFeatures) {
+                    throw new IllegalArgumentException("Árvore " + a + " usa uma feature inexistente no nó " + no);
+                }
+                estrutura[2 * global] = arvore.feature()[no];
+                estrutura[2 * global + 1] = base + filhoDireito;
+                limiarOuValor[global] = arvore.limiar()[no];
+            }
+            base += nos;
+        }
+
+        return new FlorestaAleatoria(raizes, estrutura, limiarOuValor, quantidadeFeatures);
+    }
+
+    /**
+     * Média das probabilidades das folhas alcançadas em cada árvore, como o {@code predict_proba} do
+     * scikit-learn. O vetor deve seguir a ordem das features do modelo.
+     */
+    public double probabilidade(double[] features) {
+        if (features.length != quantidadeFeatures) {
+            throw new IllegalArgumentException("Esperadas " + quantidadeFeatures + " features, recebidas " + features.length);
+        }
+
+        double soma = 0;
+        for (int raiz : raizes) {
+            int no = raiz;
+            int feature;
+            while ((feature = estrutura[2 * no]) != FOLHA) {
+                no = features[feature] <= limiarOuValor[no] ? no + 1 : estrutura[2 * no + 1];
+            }
+            soma += limiarOuValor[no];
+        }
+        return soma / raizes.length;
+    }
+
+    public int quantidadeArvores() {
+        return raizes.length;
+    }
+
+    public int quantidadeNos() {
+        return limiarOuValor.length;
+    }
+}
@@ -0,0 +1,132 @@
+package br.com.alura.flightontime.inferencia;
+
+import br.com.alura.flightontime.dto.request.RequestPrevisaoDataScienceDTO;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Modelo de atraso avaliado no próprio backend. Reproduz o {@code preparar_features} do ml-api
+ * (features temporais e target encoding com a taxa base para categorias desconhecidas) e avalia a
+ * {@link FlorestaAleatoria} exportada.
+ */
+public final class ModeloAtraso {
+
+    static final int FORMATO_SUPORTADO = 1;
+
+    private enum Feature {
+        RISCO_AERODROMO_ORIGEM("risco_aerodromo_origem"),
+        RISCO_AERODROMO_DESTINO("risco_aerodromo_destino"),
+        RISCO_EMPRESA("risco_empresa"),
+        RISCO_PERIODO_DIA("risco_periodo_dia"),
+        IS_WEEKEND("is_weekend"),
+        ALTA_TEMPORADA("alta_temporada"),
+        PARTIDA_HORA("partida_hora"),
+        PARTIDA_DIA_SEMANA("partida_dia_semana"),
+        PARTIDA_MES("partida_mes"),
+        DISTANCIA_KM("distancia_km");
+
+        private final String nome;
+
+        Feature(String nome) {
+            this.nome = nome;
+        }
+
+        static Feature porNome(String nome) {
+            for (Feature feature : values()) {
+                if (feature.nome.equals(nome)) return feature;
+            }
+            throw new IllegalArgumentException("Feature não suportada pelo modelo embarcado: " + nome);
+        }
+    }
+
+    private final String versao;
+    private final FlorestaAleatoria floresta;
+    private final Feature[] features;
+    private final double taxaBaseAtraso;
+    private final Map<String, Double> riscoOrigem;
+    private final Map<String, Double> riscoDestino;
+    private final Map<String, Double> riscoEmpresa;
+    private final Map<String, Double> riscoPeriodo;
+
+    private ModeloAtraso(ModeloExportado exportado) {
+        this.versao = exportado.dataTreinamento();
+        this.features = exportado.features().stream().map(Feature::porNome).toArray(Feature[]::new);
+        this.floresta = FlorestaAleatoria.de(exportado.arvores(), features.length);
+        this.taxaBaseAtraso = exportado.taxaBaseAtraso();
+
+        Map<String, Map<String, Double>> mapas = exportado.mapasDeRisco() == null ? Map.of() : exportado.mapasDeRisco();
+        this.riscoOrigem = copia(mapas.get("aerodromo_origem"));
+        this.riscoDestino = copia(mapas.get("aerodromo_destino"));
+        this.riscoEmpresa = copia(mapas.get("empresa"));
+        this.riscoPeriodo = copia(mapas.get("periodo_dia"));
+    }
+
+    public static ModeloAtraso de(ModeloExportado exportado) {
+        if (exportado.formato() != FORMATO_SUPORTADO) {
+            throw new IllegalArgumentException("Formato de modelo não suportado: " + exportado.formato());
+        }
+        if (exportado.features() == null || exportado.features().isEmpty()) {
+            throw new IllegalArgumentException("O modelo não informa as features");
+        }
+        return new ModeloAtraso(exportado);
+    }
+
+    public double probabilidadeAtraso(RequestPrevisaoDataScienceDTO voo) {
+        double[] vetor = new double[features.length];
+        preencher(voo, vetor);
+        return floresta.probabilidade(vetor);
+    }
+
+    /** Avalia vários voos reaproveitando o mesmo vetor de features. */
+    public double[] probabilidadesAtraso(List<RequestPrevisaoDataScienceDTO> voos) {
+        double[] vetor = new double[features.length];
+        double[] probabilidades = new double[voos.size()];
+        for (int i = 0; i < voos.size(); i++) {
+            preencher(voos.get(i), vetor);
+            probabilidades[i] = floresta.probabilidade(vetor);
+        }
+        return probabilidades;
+    }
+
+    public String versao() {
+        return versao;
+    }
+
+    public FlorestaAleatoria floresta() {
+        return floresta;
+    }
+
+    // O scikit-learn converte a entrada para float32 antes de comparar com os limiares, então fazemos o mesmo
+    // para que valores próximos de um limiar caiam no mesmo lado da árvore.
+    private void preencher(RequestPrevisaoDataScienceDTO voo, double[] vetor) {
+        for (int i = 0; i < features.length; i++) {
+            vetor[i] = (float) valor(features[i], voo);
+        }
+    }
+
+    private double valor(Feature feature, RequestPrevisaoDataScienceDTO voo) {
+        return switch (feature) {
+            case RISCO_AERODROMO_ORIGEM -> risco(riscoOrigem, voo.origem());
+            case RISCO_AERODROMO_DESTINO -> risco(riscoDestino, voo.destino());
+            case RISCO_EMPRESA -> risco(riscoEmpresa, voo.companhiaAerea());
+            case RISCO_PERIODO_DIA -> risco(riscoPeriodo, voo.periodoDia() == null ? null : voo.periodoDia().getPeriodo());
+            case IS_WEEKEND -> voo.partidaDiaDaSemana() == 5 || voo.partidaDiaDaSemana() == 6 ? 1 : 0;
+            case ALTA_TEMPORADA -> voo.partidaMes() == 12 || voo.partidaMes() == 1 || voo.partidaMes() == 7 ? 1 : 0;
+            case PARTIDA_HORA -> voo.partidaHora();
+            case PARTIDA_DIA_SEMANA -> voo.partidaDiaDaSemana();
+            case PARTIDA_MES -> voo.partidaMes();
+            case DISTANCIA_KM -> voo.distanciaKm() == null ? 0 : voo.distanciaKm();
+        };
+    }
+
+    private double risco(Map<String, Double> mapa, String categoria) {
+        Double risco = categoria == null ? null : mapa.get(categoria);
+        return risco == null ? taxaBaseAtraso : risco;
+    }
+
+    private static Map<String, Double> copia(Map<String, Double> mapa) {
+        return mapa == null ? Map.of() : new HashMap<>(mapa);
+    }
+}
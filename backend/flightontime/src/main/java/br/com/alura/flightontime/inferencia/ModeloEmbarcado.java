@@ -0,0 +1,91 @@
+package br.com.alura.flightontime.inferencia;
+
+import br.com.alura.flightontime.dto.request.RequestPrevisaoDataScienceDTO;
+import br.com.alura.flightontime.dto.response.ResponsePrevisaoDataScienceDTO;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Modelo de atraso carregado do arquivo gerado por {@code ml-api/exportar_modelo.py} quando
+ * {@code api.previsao.modo=embarcado}. Se o modo for {@code remoto} ou o arquivo não puder ser carregado,
+ * {@link #ativo()} retorna {@code false} e as previsões continuam indo para o serviço de previsão.
+ */
+@Component
+public class ModeloEmbarcado {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModeloEmbarcado.class);
+
+    private static final String MODO_EMBARCADO = "embarcado";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${api.previsao.modo:remoto}")
+    private String modo;
+
+    @Value("${api.previsao.modelo.arquivo:}")
+    private String arquivo;
+
+    private volatile ModeloAtraso modelo;
+
+    @PostConstruct
+    public void carregar() {
+        if (!MODO_EMBARCADO.equalsIgnoreCase(modo)) return;
+        if (arquivo.isBlank()) {
+            logger.warn("Modo embarcado sem api.previsao.modelo.arquivo; as previsões continuam no serviço remoto");
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        try (InputStream entrada = Files.newInputStream(Path.of(arquivo))) {
+            var novo = ModeloAtraso.de(objectMapper.readValue(entrada, ModeloExportado.class));
+            this.modelo = novo;
+            logger.info("Modelo embarcado {} carregado de {} com {} árvores e {} nós em {} ms",
+                    novo.versao(), arquivo, novo.floresta().quantidadeArvores(), novo.floresta().quantidadeNos(),
+                    (System.nanoTime() - inicio) / 1_000_000);
+        } catch (IOException | RuntimeException ex) {
+            logger.error("Não foi possível carregar o modelo embarcado de {}; as previsões continuam no serviço remoto: {}",
+                    arquivo, ex.getMessage());
+        }
+    }
+
+    public boolean ativo() {
+        return modelo != null;
+    }
+
+    public String versao() {
+        var atual = modelo;
+        return atual == null ? null : atual.versao();
+    }
+
+    public ResponsePrevisaoDataScienceDTO prever(RequestPrevisaoDataScienceDTO requisicao) {
+        return resposta(modelo.probabilidadeAtraso(requisicao));
+    }
+
+    /** As respostas seguem a ordem da lista recebida, como em {@code ApiPrevisaoClient.preverLote}. */
+    public List<ResponsePrevisaoDataScienceDTO> preverLote(List<RequestPrevisaoDataScienceDTO> requisicoes) {
+        double[] probabilidades = modelo.probabilidadesAtraso(requisicoes);
+        List<ResponsePrevisaoDataScienceDTO> respostas = new ArrayList<>(probabilidades.length);
+        for (double probabilidade : probabilidades) {
+            respostas.add(resposta(probabilidade));
+        }
+        return respostas;
+    }
+
+    // Mesmo arredondamento do ml-api (round(prob, 4)) antes do arredondamento do DTO
+    private static ResponsePrevisaoDataScienceDTO resposta(double probabilidade) {
+        return new ResponsePrevisaoDataScienceDTO(Math.round(probabilidade * 10_000) / 10_000.0);
+    }
+}
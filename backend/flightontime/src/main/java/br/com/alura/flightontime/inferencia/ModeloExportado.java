@@ -0,0 +1,31 @@
+package br.com.alura.flightontime.inferencia;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Formato gerado por {@code ml-api/exportar_modelo.py}: a floresta com uma entrada por árvore, os mapas de
+ * target encoding e a taxa base usada para categorias que não existiam no treino.
+ */
+public record ModeloExportado(
+        int formato,
+
+        @JsonProperty("data_treinamento")
+        String dataTreinamento,
+
+        List<String> features,
+
+        @JsonProperty("taxa_base_atraso")
+        double taxaBaseAtraso,
+
+        @JsonProperty("mapas_de_risco")
+        Map<String, Map<String, Double>> mapasDeRisco,
+
+        List<Arvore> arvores) {
+
+    /** Vetores paralelos indexados pelo número do nó, na ordem do scikit-learn. Folhas têm filhos -1. */
+    public record Arvore(int[] feature, double[] limiar, int[] esquerda, int[] direita, double[] valor) {
+    }
+}
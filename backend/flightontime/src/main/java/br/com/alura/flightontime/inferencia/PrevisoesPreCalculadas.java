@@ -0,0 +1,91 @@
+package br.com.alura.flightontime.inferencia;
+
+import br.com.alura.flightontime.dto.request.RequestPrevisaoDataScienceDTO;
+import br.com.alura.flightontime.dto.response.ResponsePrevisaoDataScienceDTO;
+import br.com.alura.flightontime.infra.client.MonitorVersaoModelo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Consulta a {@link TabelaPrevisoes} configurada em {@code api.previsao.tabela.arquivo} antes de chamar o
+ * modelo. A tabela só é usada quando a versão do modelo em uso (embarcado ou remoto) é conhecida e é a mesma
+ * que a gerou; combinações que não estão nela continuam indo para o modelo.
+ *
+ * <p>A tabela não é indexada pela distância: cada rota foi pontuada com a distância do {@code rotas.csv} usado
+ * na geração, e o {@code distanciaKm} da requisição não é conferido.
+ */
+@Component
+public class PrevisoesPreCalculadas {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrevisoesPreCalculadas.class);
+
+    @Autowired
+    private ModeloEmbarcado modeloEmbarcado;
+
+    @Autowired
+    private MonitorVersaoModelo monitorVersaoModelo;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${api.previsao.tabela.arquivo:}")
+    private String arquivo;
+
+    private volatile TabelaPrevisoes tabela;
+
+    private Counter encontradas;
+    private Counter ausentes;
+
+    @PostConstruct
+    public void iniciar() {
+        encontradas = meterRegistry.counter("previsoes.tabela.consultas", "resultado", "encontrada");
+        ausentes = meterRegistry.counter("previsoes.tabela.consultas", "resultado", "ausente");
+        recarregar();
+    }
+
+    /** Reabre o arquivo. Se ele não puder ser lido, mantém a tabela atual. */
+    public void recarregar() {
+        if (arquivo.isBlank()) return;
+
+        long inicio = System.nanoTime();
+        try {
+            var nova = TabelaPrevisoes.abrir(Path.of(arquivo));
+            this.tabela = nova;
+            logger.info("Tabela de previsões do modelo {} carregada de {} com {} rotas em {} ms",
+                    nova.versaoModelo(), arquivo, nova.quantidadeRotas(), (System.nanoTime() - inicio) / 1_000_000);
+        } catch (IOException | RuntimeException ex) {
+            logger.error("Não foi possível carregar a tabela de previsões de {}: {}", arquivo, ex.getMessage());
+        }
+    }
+
+    /** Resposta pré-calculada para o vetor de features, ou {@code null} se for preciso consultar o modelo. */
+    public ResponsePrevisaoDataScienceDTO consultar(RequestPrevisaoDataScienceDTO requisicao) {
+        var atual = this.tabela;
+        if (atual == null || !versaoCompativel(atual)) return null;
+
+        int centesimos = atual.centesimos(requisicao.origem(), requisicao.destino(), requisicao.companhiaAerea(),
+                requisicao.partidaHora(), requisicao.partidaDiaDaSemana(), requisicao.partidaMes());
+        if (centesimos == TabelaPrevisoes.AUSENTE) {
+            ausentes.increment();
+            return null;
+        }
+        encontradas.increment();
+        return new ResponsePrevisaoDataScienceDTO(centesimos / 100.0);
+    }
+
+    // Enquanto a versão do modelo remoto não é conhecida (na subida ou sem /health), a tabela não é usada
+    private boolean versaoCompativel(TabelaPrevisoes atual) {
+        String versaoModelo = modeloEmbarcado.ativo() ? modeloEmbarcado.versao() : monitorVersaoModelo.versaoAtual();
+        return versaoModelo != null && Objects.equals(versaoModelo, atual.versaoModelo());
+    }
+}
@@ -0,0 +1,137 @@
+package br.com.alura.flightontime.inferencia;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Probabilidades pré-calculadas por {@code ml-api/gerar_tabela_previsoes.py}, lidas de um arquivo mapeado em
+ * memória. Os dicionários de aeroportos e companhias e as chaves das rotas ficam no heap; as probabilidades,
+ * um byte por combinação de hora, dia da semana e mês, continuam no arquivo e são lidas sob demanda.
+ */
+public final class TabelaPrevisoes {
+
+    public static final int AUSENTE = -1;
+
+    private static final int MAGICO = 0x464F5450; // "FOTP"
+    private static final int FORMATO_SUPORTADO = 1;
+    private static final int BITS_INDICE = 20;
+
+    private final String versaoModelo;
+    private final int dias;
+    private final int meses;
+    private final int celulasPorRota;
+    private final Map<String, Integer> aeroportos;
+    private final Map<String, Integer> companhias;
+    private final long[] chaves;
+    private final MappedByteBuffer dados;
+    private final int inicioDados;
+
+    private TabelaPrevisoes(String versaoModelo, int dias, int meses, int celulasPorRota, Map<String, Integer> aeroportos,
+                            Map<String, Integer> companhias, long[] chaves, MappedByteBuffer dados, int inicioDados) {
+        this.versaoModelo = versaoModelo;
+        this.dias = dias;
+        this.meses = meses;
+        this.celulasPorRota = celulasPorRota;
+        this.aeroportos = aeroportos;
+        this.companhias = companhias;
+        this.chaves = chaves;
+        this.dados = dados;
+        this.inicioDados = inicioDados;
+    }
+
+    public static TabelaPrevisoes abrir(Path arquivo) throws IOException {
+        MappedByteBuffer mapeado;
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Tabela de previsões maior que 2 GB");
+            }
+            mapeado = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+
+        if (mapeado.getInt() != MAGICO) {
+            throw new IllegalArgumentException("Arquivo não é uma tabela de previsões");
+        }
+        int formato = mapeado.getInt();
+        if (formato != FORMATO_SUPORTADO) {
+            throw new IllegalArgumentException("Formato de tabela não suportado: " + formato);
+        }
+
+        String versaoModelo = lerTexto(mapeado);
+        int horas = mapeado.getInt();
+        int dias = mapeado.getInt();
+        int meses = mapeado.getInt();
+        Map<String, Integer> aeroportos = lerDicionario(mapeado);
+        Map<String, Integer> companhias = lerDicionario(mapeado);
+
+        long[] chaves = new long[mapeado.getInt()];
+        for (int i = 0; i < chaves.length; i++) {
+            chaves[i] = mapeado.getLong();
+            if (i > 0 && chaves[i] <= chaves[i - 1]) {
+                throw new IllegalArgumentException("Chaves da tabela de previsões fora de ordem");
+            }
+        }
+
+        int celulasPorRota = horas * dias * meses;
+        int inicioDados = mapeado.position();
+        if ((long) chaves.length * celulasPorRota != mapeado.capacity() - inicioDados) {
+            throw new IllegalArgumentException("Tamanho da tabela de previsões não confere com o cabeçalho");
+        }
+
+        return new TabelaPrevisoes(versaoModelo, dias, meses, celulasPorRota, aeroportos, companhias, chaves,
+                mapeado, inicioDados);
+    }
+
+    /**
+     * Probabilidade em centésimos (0 a 100), ou {@link #AUSENTE} se a rota ou o horário não estiverem na tabela.
+     *
+     * @param diaSemana 0 para segunda-feira, como no modelo
+     * @param mes       1 a 12
+     */
+    public int centesimos(String origem, String destino, String companhia, int hora, int diaSemana, int mes) {
+        Integer indiceOrigem = aeroportos.get(origem);
+        Integer indiceDestino = aeroportos.get(destino);
+        Integer indiceCompanhia = companhias.get(companhia);
+        if (indiceOrigem == null || indiceDestino == null || indiceCompanhia == null) return AUSENTE;
+
+        long chave = (long) indiceOrigem << (2 * BITS_INDICE) | (long) indiceDestino << BITS_INDICE | indiceCompanhia;
+        int rota = Arrays.binarySearch(chaves, chave);
+        if (rota < 0) return AUSENTE;
+
+        int celula = (hora * dias + diaSemana) * meses + (mes - 1);
+        if (hora < 0 || diaSemana < 0 || diaSemana >= dias || mes < 1 || mes > meses || celula >= celulasPorRota) {
+            return AUSENTE;
+        }
+        return dados.get(inicioDados + rota * celulasPorRota + celula);
+    }
+
+    public String versaoModelo() {
+        return versaoModelo;
+    }
+
+    public int quantidadeRotas() {
+        return chaves.length;
+    }
+
+    private static Map<String, Integer> lerDicionario(ByteBuffer buffer) {
+        int quantidade = buffer.getInt();
+        Map<String, Integer> dicionario = new HashMap<>(quantidade * 2);
+        for (int i = 0; i < quantidade; i++) {
+            dicionario.put(lerTexto(buffer), i);
+        }
+        return dicionario;
+    }
+
+    private static String lerTexto(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -1,13 +1,20 @@
 package br.com.alura.flightontime.infra;
 
+import br.com.alura.flightontime.infra.exception.AcessoNegadoException;
+import br.com.alura.flightontime.infra.exception.CircuitoAbertoException;
 import br.com.alura.flightontime.infra.exception.ErroConfiguracaoApiException;
+import br.com.alura.flightontime.infra.exception.LimiteConcorrenciaExcedidoException;
+import br.com.alura.flightontime.infra.exception.RequisicoesExcedidasException;
 import br.com.alura.flightontime.infra.exception.RespostaInvalidaServicoExternoException;
 import br.com.alura.flightontime.infra.exception.ServicoExternoIndisponivelException;
 import br.com.alura.flightontime.infra.exception.ValidacaoDBException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -27,6 +34,9 @@ public class TratadorDeErros extends ResponseEntityExceptionHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(TratadorDeErros.class);
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Override
     protected ResponseEntity<Object> handleMethodArgumentNotValid(
             MethodArgumentNotValidException ex, HttpHeaders headers, HttpStatusCode status, WebRequest request) {
@@ -37,6 +47,7 @@ public class TratadorDeErros extends ResponseEntityExceptionHandler {
                 .map(DefaultMessageSourceResolvable::getDefaultMessage)
                 .collect(Collectors.toList());
 
+        contar(ex, HttpStatus.BAD_REQUEST);
         return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST); // 400
     }
 
@@ -48,26 +59,70 @@ public class TratadorDeErros extends ResponseEntityExceptionHandler {
             WebRequest request) {
 
         String mensagemErro = "Formato inválido ou campos com valores incorretos.";
+        contar(ex, HttpStatus.BAD_REQUEST);
 
         return new ResponseEntity<>(List.of(mensagemErro), HttpStatus.BAD_REQUEST); // 400
     }
 
+    // Demais exceções do Spring MVC (método não suportado, recurso inexistente etc.), só para contá-las
+    @Override
+    protected ResponseEntity<Object> handleExceptionInternal(
+            Exception ex, Object body, HttpHeaders headers, HttpStatusCode statusCode, WebRequest request) {
+        contar(ex, statusCode);
+        return super.handleExceptionInternal(ex, body, headers, statusCode, request);
+    }
+
     @ExceptionHandler(ValidacaoDBException.class)
     public ResponseEntity<List<String>> handleValidacaoDB(ValidacaoDBException ex) {
         List<String> erros = ex.getErros();
-        return new ResponseEntity<>(erros, HttpStatus.BAD_REQUEST); // 400
+        contar(ex, HttpStatus.BAD_REQUEST);
+        // Tipo fixo: endpoints que produzem streams (SSE, NDJSON) também respondem os erros em JSON
+        return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(erros); // 400
     }
 
     @ExceptionHandler(ServicoExternoIndisponivelException.class)
-    public ResponseEntity<String> handleServicoExterno(ServicoExternoIndisponivelException ex) {       
+    public ResponseEntity<String> handleServicoExterno(ServicoExternoIndisponivelException ex) {
+        contar(ex, HttpStatus.SERVICE_UNAVAILABLE);
         logger.error("Serviço externo indisponível: {}", ex.getMessage());
         return ResponseEntity
                 .status(HttpStatus.SERVICE_UNAVAILABLE) // 503
                 .body("O serviço de previsão está temporariamente indisponível. Por favor, tente novamente em alguns instantes.");
     }
 
+    @ExceptionHandler(CircuitoAbertoException.class)
+    public ResponseEntity<String> handleCircuitoAberto(CircuitoAbertoException ex) {
+        long segundos = Math.max(1, (ex.getTentarNovamenteEm().toMillis() + 999) / 1000);
+        contar(ex, HttpStatus.SERVICE_UNAVAILABLE);
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE) // 503
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(segundos))
+                .body("O serviço de previsão está fora do ar. Por favor, tente novamente em " + segundos + " segundos.");
+    }
+
+    @ExceptionHandler(LimiteConcorrenciaExcedidoException.class)
+    public ResponseEntity<String> handleLimiteConcorrencia(LimiteConcorrenciaExcedidoException ex) {
+        contar(ex, HttpStatus.SERVICE_UNAVAILABLE);
+        logger.warn("Serviço externo sobrecarregado: {}", ex.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE) // 503
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("O serviço de previsão está sobrecarregado. Por favor, tente novamente em alguns instantes.");
+    }
+
+    @ExceptionHandler(RequisicoesExcedidasException.class)
+    public ResponseEntity<String> handleRequisicoesExcedidas(RequisicoesExcedidasException ex) {
+        long segundos = Math.max(1, (ex.getTentarNovamenteEm().toMillis() + 999) / 1000);
+        contar(ex, HttpStatus.TOO_MANY_REQUESTS);
+        // Sem log: rejeitar precisa ser barato justamente quando chegam requisições demais
+        return ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS) // 429
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(segundos))
+                .body("Muitas requisições. Por favor, tente novamente em " + segundos + " segundos.");
+    }
+
     @ExceptionHandler(RespostaInvalidaServicoExternoException.class)
     public ResponseEntity<String> handleRespostaInvalida(RespostaInvalidaServicoExternoException ex) {
+        contar(ex, HttpStatus.BAD_GATEWAY);
         logger.error("Resposta inválida do serviço externo: {}", ex.getMessage());
         return ResponseEntity
                 .status(HttpStatus.BAD_GATEWAY) // 502
@@ -75,11 +130,23 @@ public class TratadorDeErros extends ResponseEntityExceptionHandler {
     }
 
 
+    @ExceptionHandler(AcessoNegadoException.class)
+    public ResponseEntity<String> handleAcessoNegado(AcessoNegadoException ex) {
+        contar(ex, HttpStatus.FORBIDDEN);
+        logger.warn("Acesso administrativo negado: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Acesso negado."); // 403
+    }
+
     @ExceptionHandler(ErroConfiguracaoApiException.class)
     public ResponseEntity<String> handleErroConfiguracaoApi(ErroConfiguracaoApiException ex) {
+        contar(ex, HttpStatus.INTERNAL_SERVER_ERROR);
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ex.getMessage());
     }
 
-
-
+    // Uma série por tipo de exceção tratada; o conjunto é fechado, então a cardinalidade é baixa
+    private void contar(Exception ex, HttpStatusCode status) {
+        meterRegistry.counter("erros.tratados",
+                "excecao", ex.getClass().getSimpleName(),
+                "status", String.valueOf(status.value())).increment();
+    }
 }
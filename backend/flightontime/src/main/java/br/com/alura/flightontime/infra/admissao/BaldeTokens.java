@@ -0,0 +1,56 @@
+package br.com.alura.flightontime.infra.admissao;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Balde de tokens de um cliente, guardado como o instante teórico da próxima requisição (GCRA): um único
+ * {@code long} atualizado com compare-and-set, sem trava e sem uma thread para reabastecer o balde. Uma
+ * requisição é aceita se esse instante não estiver mais que a rajada à frente de agora.
+ */
+final class BaldeTokens {
+
+    private final AtomicLong proximaRequisicao;
+
+    BaldeTokens(long agora) {
+        this.proximaRequisicao = new AtomicLong(agora);
+    }
+
+    /** Instante teórico da próxima requisição; no passado, o balde está cheio. */
+    long proximaRequisicao() {
+        return proximaRequisicao.get();
+    }
+
+    /**
+     * Consome {@code custoNanos} do balde (o intervalo de reposição vezes a quantidade de tokens). Basta um token
+     * disponível para aceitar: um custo maior que o saldo deixa o balde devendo, e as próximas requisições esperam
+     * a dívida ser paga, então a taxa média continua limitada mesmo para pedidos maiores que a rajada.
+     *
+     * @param custoNanos tempo para repor os tokens consumidos (quantidade / taxa)
+     * @param toleranciaNanos quanto o instante teórico pode estar à frente de agora (rajada menos um, vezes o intervalo)
+     * @return 0 se a requisição foi aceita; senão, em quantos nanossegundos haverá um token
+     */
+    long consumir(long agora, long custoNanos, long toleranciaNanos) {
+        while (true) {
+            long atual = proximaRequisicao.get();
+            long base = Math.max(atual, agora);
+            long espera = base - toleranciaNanos - agora;
+            if (espera > 0) return espera;
+            if (proximaRequisicao.compareAndSet(atual, base + custoNanos)) return 0;
+        }
+    }
+
+    /**
+     * Como {@link #consumir}, mas sempre reserva os tokens, para quem prefere esperar a ser recusado.
+     *
+     * @return quanto esperar, em nanossegundos, antes de usar os tokens reservados; 0 se já estão disponíveis
+     */
+    long reservar(long agora, long custoNanos, long toleranciaNanos) {
+        while (true) {
+            long atual = proximaRequisicao.get();
+            long base = Math.max(atual, agora);
+            if (proximaRequisicao.compareAndSet(atual, base + custoNanos)) {
+                return Math.max(0, base - toleranciaNanos - agora);
+            }
+        }
+    }
+}
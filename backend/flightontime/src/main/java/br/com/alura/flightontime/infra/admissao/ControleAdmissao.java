@@ -0,0 +1,267 @@
+package br.com.alura.flightontime.infra.admissao;
+
+import br.com.alura.flightontime.infra.exception.RequisicoesExcedidasException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Controle de admissão das previsões e do autocomplete, aplicado antes dos controllers. Cada cliente, identificado
+ * pela chave de API em {@code X-API-Key} (se for uma das configuradas) ou pelo IP, tem um {@link BaldeTokens} por
+ * grupo de endpoints. As previsões também passam por um {@link LimiteConcorrenciaAdaptativo} global, que se ajusta à
+ * latência do serviço de previsão. O autocomplete é respondido da memória e fica só com o limite por cliente.
+ *
+ * <p>Nas previsões o custo é por voo previsto, não por requisição: a admissão cobra um token, e os endpoints em
+ * lote ({@code /predict/batch}, {@code /perfil}, {@code /assinaturas}) cobram o restante com
+ * {@link #cobrarPrevisoes} depois de ler o corpo. O {@code /predict/stream} não tem tamanho conhecido: cada janela
+ * lida espera pelos seus tokens com {@link #aguardarPrevisoes}, o que limita o arquivo à taxa do cliente. Como um
+ * upload pode levar minutos, ele também fica fora do limite de concorrência, que mede previsões curtas.
+ *
+ * <p>Os baldes ficam em caches do Caffeine, cujas leituras não travam, e cada um é atualizado com um
+ * compare-and-set, então clientes diferentes não disputam nada no caminho da requisição. Baldes sem uso por
+ * mais que o tempo de enchê-los são descartados, já que um balde novo é equivalente.
+ */
+@Component
+public class ControleAdmissao implements AsyncHandlerInterceptor {
+
+    public static final String CABECALHO_CHAVE_API = "X-API-Key";
+
+    private static final String ATRIBUTO_VAGA = ControleAdmissao.class.getName() + ".vaga";
+    // Previsões já pagas na admissão e ainda não descontadas por cobrarPrevisoes
+    private static final String ATRIBUTO_CREDITO = ControleAdmissao.class.getName() + ".credito";
+    private static final String CAMINHO_STREAM = "/predict/stream";
+    private static final Duration TENTAR_NOVAMENTE_CONCORRENCIA = Duration.ofSeconds(1);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${api.admissao.habilitada:true}")
+    private boolean habilitada;
+
+    @Value("${api.admissao.chaves-api:}")
+    private Set<String> chavesApi;
+
+    @Value("${api.admissao.clientes-maximo:100000}")
+    private long clientesMaximo;
+
+    @Value("${api.admissao.previsao.taxa:50}")
+    private double taxaPrevisao;
+
+    @Value("${api.admissao.previsao.rajada:100}")
+    private int rajadaPrevisao;
+
+    @Value("${api.admissao.autocomplete.taxa:30}")
+    private double taxaAutoComplete;
+
+    @Value("${api.admissao.autocomplete.rajada:60}")
+    private int rajadaAutoComplete;
+
+    // Maior cobrança de uma só vez: os pedidos em lote maiores que isso são recusados pelos próprios endpoints
+    @Value("${api.previsao.lote.tamanho-maximo:500}")
+    private int tamanhoMaximoLote;
+
+    @Value("${api.admissao.previsao.concorrencia.inicial:64}")
+    private int concorrenciaInicial;
+
+    @Value("${api.admissao.previsao.concorrencia.minima:8}")
+    private int concorrenciaMinima;
+
+    @Value("${api.admissao.previsao.concorrencia.maxima:1024}")
+    private int concorrenciaMaxima;
+
+    @Value("${api.admissao.previsao.concorrencia.tolerancia-latencia:2}")
+    private double toleranciaLatencia;
+
+    @Value("${api.admissao.previsao.concorrencia.fator-reducao:0.9}")
+    private double fatorReducao;
+
+    @Value("${api.admissao.previsao.concorrencia.janela:PT0.5S}")
+    private Duration janela;
+
+    private Grupo previsao;
+    private Grupo autoComplete;
+    private LimiteConcorrenciaAdaptativo limiteConcorrencia;
+    private Counter rejeicoesConcorrencia;
+
+    @PostConstruct
+    public void iniciar() {
+        previsao = new Grupo("previsao", taxaPrevisao, rajadaPrevisao, tamanhoMaximoLote);
+        autoComplete = new Grupo("autocomplete", taxaAutoComplete, rajadaAutoComplete, 1);
+        limiteConcorrencia = new LimiteConcorrenciaAdaptativo(concorrenciaInicial, concorrenciaMinima, concorrenciaMaxima,
+                toleranciaLatencia, fatorReducao, janela.toNanos());
+
+        Gauge.builder("admissao.previsao.concorrencia.limite", limiteConcorrencia, LimiteConcorrenciaAdaptativo::limite)
+                .description("Limite atual de previsões simultâneas, ajustado pela latência do serviço de previsão")
+                .register(meterRegistry);
+        Gauge.builder("admissao.previsao.concorrencia.em.andamento", limiteConcorrencia, LimiteConcorrenciaAdaptativo::emAndamento)
+                .register(meterRegistry);
+        rejeicoesConcorrencia = Counter.builder("admissao.rejeicoes")
+                .tag("grupo", "previsao")
+                .tag("motivo", "concorrencia")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // O despacho que entrega o resultado de uma requisição assíncrona já foi admitido
+        if (!habilitada || request.getDispatcherType() == DispatcherType.ASYNC) return true;
+        String caminho = request.getRequestURI().substring(request.getContextPath().length());
+        if (caminho.startsWith("/autocomplete")) {
+            autoComplete.consumir(cliente(request), 1);
+            return true;
+        }
+
+        previsao.consumir(cliente(request), 1);
+        request.setAttribute(ATRIBUTO_CREDITO, 1);
+        if (caminho.equals(CAMINHO_STREAM)) return true;
+        if (!limiteConcorrencia.adquirir()) {
+            rejeicoesConcorrencia.increment();
+            throw new RequisicoesExcedidasException("Limite de previsões simultâneas atingido", TENTAR_NOVAMENTE_CONCORRENCIA);
+        }
+        request.setAttribute(ATRIBUTO_VAGA, Boolean.TRUE);
+        return true;
+    }
+
+    // As assinaturas seguem em processamento assíncrono e não ocupam a vaga enquanto estão abertas
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        liberarVaga(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        liberarVaga(request);
+    }
+
+    /**
+     * Cobra do cliente da requisição atual um token por previsão, descontado o que já foi pago na admissão.
+     * Chamado pelos endpoints em lote assim que o tamanho do pedido é conhecido.
+     *
+     * @throws RequisicoesExcedidasException se o cliente não tiver saldo
+     */
+    public void cobrarPrevisoes(int quantidade) {
+        HttpServletRequest request = requisicaoAtual();
+        if (request == null) return;
+        int restante = quantidade - descontarCredito(request, quantidade);
+        if (restante > 0) previsao.consumir(cliente(request), restante);
+    }
+
+    /**
+     * Como {@link #cobrarPrevisoes}, mas espera o saldo do cliente em vez de recusar: usado pelo
+     * {@code /predict/stream}, que já começou a responder quando lê as próximas janelas.
+     */
+    public void aguardarPrevisoes(int quantidade) throws InterruptedException {
+        HttpServletRequest request = requisicaoAtual();
+        if (request == null) return;
+        int restante = quantidade - descontarCredito(request, quantidade);
+        if (restante <= 0) return;
+        long espera = previsao.reservar(cliente(request), restante);
+        if (espera > 0) Thread.sleep(Duration.ofNanos(espera));
+    }
+
+    /** Latência de uma previsão individual no serviço de previsão, que ajusta o limite de concorrência. */
+    public void registrarLatenciaModelo(long nanos) {
+        limiteConcorrencia.registrarLatencia(nanos);
+    }
+
+    /** Timeout, erro de conexão ou limite de chamadas atingido no serviço de previsão: reduz o limite de concorrência. */
+    public void registrarSobrecargaModelo() {
+        limiteConcorrencia.registrarSobrecarga();
+    }
+
+    private void liberarVaga(HttpServletRequest request) {
+        if (request.getAttribute(ATRIBUTO_VAGA) != null) {
+            request.removeAttribute(ATRIBUTO_VAGA);
+            limiteConcorrencia.liberar();
+        }
+    }
+
+    // Sem requisição (tarefas em segundo plano) ou com o controle desligado, nada é cobrado
+    private HttpServletRequest requisicaoAtual() {
+        if (!habilitada) return null;
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes atributos
+                ? atributos.getRequest()
+                : null;
+    }
+
+    private static int descontarCredito(HttpServletRequest request, int quantidade) {
+        if (!(request.getAttribute(ATRIBUTO_CREDITO) instanceof Integer credito) || credito <= 0) return 0;
+        int usado = Math.min(credito, quantidade);
+        request.setAttribute(ATRIBUTO_CREDITO, credito - usado);
+        return usado;
+    }
+
+    private String cliente(HttpServletRequest request) {
+        String chave = request.getHeader(CABECALHO_CHAVE_API);
+        // Chaves desconhecidas contam pelo IP; senão bastaria trocar de chave para ganhar um balde novo
+        if (chave != null && !chave.isBlank() && chavesApi.contains(chave)) return "chave:" + chave;
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private final class Grupo {
+
+        private final Cache<String, BaldeTokens> baldes;
+        private final long intervaloNanos;
+        private final long toleranciaNanos;
+        private final int tokensMaximos;
+        private final String mensagem;
+        private final Counter rejeicoes;
+
+        Grupo(String nome, double taxa, int rajada, int tokensMaximos) {
+            this.intervaloNanos = (long) (1_000_000_000L / taxa);
+            this.toleranciaNanos = intervaloNanos * (Math.max(1, rajada) - 1);
+            this.tokensMaximos = Math.max(1, tokensMaximos);
+            // Um balde pode ser descartado quando volta a estar cheio. A validade é calculada no acesso, antes da
+            // cobrança que o segue, então inclui a maior cobrança possível para não perdoar uma dívida recente
+            long folgaNanos = Math.max(intervaloNanos * (Math.max(1, rajada) + this.tokensMaximos), 1_000_000_000L);
+            this.baldes = Caffeine.newBuilder()
+                    .maximumSize(clientesMaximo)
+                    .expireAfter(Expiry.<String, BaldeTokens>accessing(
+                            (cliente, balde) -> Duration.ofNanos(Math.max(0, balde.proximaRequisicao() - System.nanoTime()) + folgaNanos)))
+                    .build();
+            this.mensagem = "Limite de requisições por cliente atingido (" + nome + ")";
+            this.rejeicoes = Counter.builder("admissao.rejeicoes")
+                    .tag("grupo", nome)
+                    .tag("motivo", "cliente")
+                    .register(meterRegistry);
+        }
+
+        void consumir(String cliente, int tokens) {
+            long agora = System.nanoTime();
+            long espera = balde(cliente, agora).consumir(agora, custo(tokens), toleranciaNanos);
+            if (espera > 0) {
+                rejeicoes.increment();
+                throw new RequisicoesExcedidasException(mensagem, Duration.ofNanos(espera));
+            }
+        }
+
+        long reservar(String cliente, int tokens) {
+            long agora = System.nanoTime();
+            return balde(cliente, agora).reservar(agora, custo(tokens), toleranciaNanos);
+        }
+
+        private long custo(int tokens) {
+            return intervaloNanos * Math.clamp(tokens, 1, tokensMaximos);
+        }
+
+        private BaldeTokens balde(String cliente, long agora) {
+            return baldes.get(cliente, c -> new BaldeTokens(agora));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package br.com.alura.flightontime.infra.admissao;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limite de requisições simultâneas ajustado por AIMD a partir da latência do serviço de previsão. As
+ * amostras são somadas em {@link LongAdder}s e o limite é recalculado uma vez por janela, por uma única
+ * thread: se a latência média da janela passou da latência de referência vezes a tolerância, ou se o serviço
+ * deu sinais de sobrecarga, o limite é multiplicado pelo fator de redução; se não, e o limite estava sendo
+ * usado, ele cresce de um. A referência acompanha rápido as quedas da latência e devagar as subidas, então
+ * uma lentidão que persiste acaba virando o novo normal em vez de manter o limite no mínimo.
+ */
+final class LimiteConcorrenciaAdaptativo {
+
+    private final int minimo;
+    private final int maximo;
+    private final double tolerancia;
+    private final double fatorReducao;
+    private final long janelaNanos;
+
+    private final AtomicInteger emAndamento = new AtomicInteger();
+    private volatile int limite;
+
+    private final LongAdder somaLatencias = new LongAdder();
+    private final LongAdder amostras = new LongAdder();
+    private final LongAdder sobrecargas = new LongAdder();
+    private final LongAdder rejeicoes = new LongAdder();
+    private final AtomicLong fimJanela;
+    private final AtomicBoolean recalculando = new AtomicBoolean();
+
+    // Só alterada pela thread que recalcula o limite
+    private double latenciaReferencia;
+
+    LimiteConcorrenciaAdaptativo(int inicial, int minimo, int maximo, double tolerancia, double fatorReducao, long janelaNanos) {
+        this.minimo = minimo;
+        this.maximo = Math.max(minimo, maximo);
+        this.limite = Math.clamp(inicial, minimo, this.maximo);
+        this.tolerancia = tolerancia;
+        this.fatorReducao = fatorReducao;
+        this.janelaNanos = janelaNanos;
+        this.fimJanela = new AtomicLong(System.nanoTime() + janelaNanos);
+    }
+
+    boolean adquirir() {
+        while (true) {
+            int atual = emAndamento.get();
+            if (atual >= limite) {
+                rejeicoes.increment();
+                recalcularSeFimJanela();
+                return false;
+            }
+            if (emAndamento.compareAndSet(atual, atual + 1)) return true;
+        }
+    }
+
+    void liberar() {
+        emAndamento.decrementAndGet();
+        // Também sem chamadas ao modelo (respostas em cache), para que o limite volte a crescer
+        recalcularSeFimJanela();
+    }
+
+    void registrarLatencia(long nanos) {
+        somaLatencias.add(nanos);
+        amostras.increment();
+        recalcularSeFimJanela();
+    }
+
+    void registrarSobrecarga() {
+        sobrecargas.increment();
+        recalcularSeFimJanela();
+    }
+
+    int limite() {
+        return limite;
+    }
+
+    int emAndamento() {
+        return emAndamento.get();
+    }
+
+    private void recalcularSeFimJanela() {
+        long agora = System.nanoTime();
+        long fim = fimJanela.get();
+        if (agora - fim < 0 || !fimJanela.compareAndSet(fim, agora + janelaNanos)) return;
+        if (!recalculando.compareAndSet(false, true)) return;
+        try {
+            recalcular();
+        } finally {
+            recalculando.set(false);
+        }
+    }
+
+    private void recalcular() {
+        long n = amostras.sumThenReset();
+        long soma = somaLatencias.sumThenReset();
+        boolean sobrecarga = sobrecargas.sumThenReset() > 0;
+        boolean limiteAtingido = rejeicoes.sumThenReset() > 0;
+
+        boolean lento = false;
+        if (n > 0) {
+            double media = (double) soma / n;
+            if (latenciaReferencia == 0) {
+                latenciaReferencia = media;
+            } else {
+                lento = media > latenciaReferencia * tolerancia;
+                latenciaReferencia = media < latenciaReferencia
+                        ? 0.5 * latenciaReferencia + 0.5 * media
+                        : 0.98 * latenciaReferencia + 0.02 * media;
+            }
+        }
+
+        int atual = limite;
+        if (sobrecarga || lento) {
+            limite = Math.max(minimo, (int) (atual * fatorReducao));
+        } else if (limiteAtingido || emAndamento.get() * 2 >= atual) {
+            limite = Math.min(maximo, atual + 1);
+        }
+    }
+}
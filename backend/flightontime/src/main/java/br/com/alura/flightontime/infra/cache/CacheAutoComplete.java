@@ -0,0 +1,39 @@
+package br.com.alura.flightontime.infra.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Respostas do autocomplete chaveadas pelo índice, pela versão do índice e pelo termo normalizado, então
+ * "São", "sao" e "SAO" compartilham a mesma entrada. Quando os dados de referência mudam, a versão muda e as
+ * entradas antigas deixam de ser lidas até saírem do cache por tamanho.
+ */
+@Component
+public class CacheAutoComplete {
+
+    private final Cache<Chave, List<?>> cache;
+
+    public CacheAutoComplete(MeterRegistry meterRegistry,
+                             @Value("${autocomplete.cache.tamanho-maximo:20000}") long tamanhoMaximo) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "autocomplete");
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> List<T> obter(String indice, long versao, String termoNormalizado, Supplier<List<T>> busca) {
+        return (List<T>) cache.get(new Chave(indice, versao, termoNormalizado), chave -> busca.get());
+    }
+
+    private record Chave(String indice, long versao, String termo) {
+    }
+}
@@ -0,0 +1,156 @@
+package br.com.alura.flightontime.infra.cache;
+
+import br.com.alura.flightontime.dto.request.RequestPrevisaoDataScienceDTO;
+import br.com.alura.flightontime.dto.response.ResponsePrevisaoDataScienceDTO;
+import br.com.alura.flightontime.infra.client.VersaoModeloAlteradaEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cache das respostas do modelo, chaveado pelo vetor de features enviado ao serviço de previsão.
+ * Requisições simultâneas para a mesma chave compartilham uma única chamada ao serviço.
+ */
+@Component
+public class CachePrevisoes {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachePrevisoes.class);
+
+    private final Cache<RequestPrevisaoDataScienceDTO, ResponsePrevisaoDataScienceDTO> cache;
+    private final ConcurrentHashMap<RequestPrevisaoDataScienceDTO, CompletableFuture<ResponsePrevisaoDataScienceDTO>> emAndamento = new ConcurrentHashMap<>();
+
+    // Incrementada a cada invalidação, para que uma chamada iniciada antes dela não grave um resultado antigo
+    private final AtomicLong geracao = new AtomicLong();
+
+    public CachePrevisoes(MeterRegistry meterRegistry,
+                          @Value("${api.previsao.cache.tamanho-maximo:10000}") long tamanhoMaximo,
+                          @Value("${api.previsao.cache.ttl:PT10M}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "previsoes");
+    }
+
+    /**
+     * Retorna a resposta em cache ou executa o carregador na thread atual. Se outra requisição já estiver
+     * carregando a mesma chave, aguarda o resultado dela. Falhas não ficam em cache.
+     */
+    public ResponsePrevisaoDataScienceDTO obter(RequestPrevisaoDataScienceDTO chave,
+                                               Function<RequestPrevisaoDataScienceDTO, ResponsePrevisaoDataScienceDTO> carregador) {
+        ResponsePrevisaoDataScienceDTO emCache = cache.getIfPresent(chave);
+        if (emCache != null) return emCache;
+
+        CompletableFuture<ResponsePrevisaoDataScienceDTO> nova = new CompletableFuture<>();
+        CompletableFuture<ResponsePrevisaoDataScienceDTO> existente = emAndamento.putIfAbsent(chave, nova);
+        if (existente != null) return aguardar(existente);
+
+        long geracaoInicial = geracao.get();
+        try {
+            ResponsePrevisaoDataScienceDTO resposta = carregador.apply(chave);
+            if (geracao.get() == geracaoInicial) {
+                cache.put(chave, resposta);
+            }
+            nova.complete(resposta);
+            return resposta;
+        } catch (RuntimeException ex) {
+            nova.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            emAndamento.remove(chave, nova);
+        }
+    }
+
+    /**
+     * Versão em lote de {@link #obter}: as chaves que não estão em cache nem em carregamento são passadas
+     * juntas ao carregador, que deve devolver as respostas na mesma ordem. Nunca lança exceção; cada
+     * futuro do mapa retornado termina com a resposta ou com a falha da chave correspondente.
+     */
+    public Map<RequestPrevisaoDataScienceDTO, CompletableFuture<ResponsePrevisaoDataScienceDTO>> obterTodos(
+            List<RequestPrevisaoDataScienceDTO> chaves,
+            Function<List<RequestPrevisaoDataScienceDTO>, List<ResponsePrevisaoDataScienceDTO>> carregadorLote) {
+        Map<RequestPrevisaoDataScienceDTO, CompletableFuture<ResponsePrevisaoDataScienceDTO>> resultado = new HashMap<>();
+        List<RequestPrevisaoDataScienceDTO> carregar = new ArrayList<>();
+        List<CompletableFuture<ResponsePrevisaoDataScienceDTO>> proprias = new ArrayList<>();
+
+        for (RequestPrevisaoDataScienceDTO chave : chaves) {
+            if (resultado.containsKey(chave)) continue;
+
+            ResponsePrevisaoDataScienceDTO emCache = cache.getIfPresent(chave);
+            if (emCache != null) {
+                resultado.put(chave, CompletableFuture.completedFuture(emCache));
+                continue;
+            }
+
+            CompletableFuture<ResponsePrevisaoDataScienceDTO> nova = new CompletableFuture<>();
+            CompletableFuture<ResponsePrevisaoDataScienceDTO> existente = emAndamento.putIfAbsent(chave, nova);
+            resultado.put(chave, existente != null ? existente : nova);
+            if (existente == null) {
+                carregar.add(chave);
+                proprias.add(nova);
+            }
+        }
+
+        if (carregar.isEmpty()) return resultado;
+
+        long geracaoInicial = geracao.get();
+        try {
+            List<ResponsePrevisaoDataScienceDTO> respostas = carregadorLote.apply(carregar);
+            boolean gravar = geracao.get() == geracaoInicial;
+            for (int i = 0; i < carregar.size(); i++) {
+                if (gravar) cache.put(carregar.get(i), respostas.get(i));
+                proprias.get(i).complete(respostas.get(i));
+            }
+        } catch (RuntimeException ex) {
+            proprias.forEach(futuro -> futuro.completeExceptionally(ex));
+        } finally {
+            for (int i = 0; i < carregar.size(); i++) {
+                emAndamento.remove(carregar.get(i), proprias.get(i));
+            }
+        }
+        return resultado;
+    }
+
+    public void invalidar() {
+        geracao.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    // Antes dos demais ouvintes, para que quem recalcular previsões já não encontre as da versão anterior
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void aoAlterarVersaoModelo(VersaoModeloAlteradaEvent evento) {
+        logger.info("Invalidando cache de previsões após mudança de versão do modelo ({} -> {})",
+                evento.versaoAnterior(), evento.versaoAtual());
+        invalidar();
+    }
+
+    private static ResponsePrevisaoDataScienceDTO aguardar(CompletableFuture<ResponsePrevisaoDataScienceDTO> futuro) {
+        try {
+            return futuro.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException causa) throw causa;
+            throw ex;
+        }
+    }
+}
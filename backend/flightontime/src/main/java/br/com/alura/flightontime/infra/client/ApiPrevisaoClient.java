@@ -0,0 +1,97 @@
+package br.com.alura.flightontime.infra.client;
+
+import br.com.alura.flightontime.dto.request.RequestPrevisaoDataScienceDTO;
+import br.com.alura.flightontime.dto.response.ResponsePrevisaoDataScienceDTO;
+import br.com.alura.flightontime.infra.admissao.ControleAdmissao;
+import br.com.alura.flightontime.infra.exception.ErroConfiguracaoApiException;
+import br.com.alura.flightontime.infra.exception.LimiteConcorrenciaExcedidoException;
+import br.com.alura.flightontime.infra.exception.RespostaInvalidaServicoExternoException;
+import br.com.alura.flightontime.infra.exception.ServicoExternoIndisponivelException;
+import br.com.alura.flightontime.infra.resiliencia.BalanceadorReplicas;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+@Component
+public class ApiPrevisaoClient {
+
+    @Autowired
+    private RestClient restClient;
+
+    @Autowired
+    private BalanceadorReplicas balanceador;
+
+    @Autowired
+    private ControleAdmissao controleAdmissao;
+
+    // Relativo à URI de cada réplica; uma URI absoluta manda todos os lotes para o mesmo endereço
+    @Value("${api.previsao.lote.uri:}")
+    private String loteUri;
+
+    public ResponsePrevisaoDataScienceDTO prever(RequestPrevisaoDataScienceDTO requisicao) {
+        long inicio = System.nanoTime();
+        var resposta = chamar(() -> balanceador.executarComHedge(replica -> restClient.post()
+                .uri(replica)
+                .body(requisicao)
+                .retrieve()
+                .body(ResponsePrevisaoDataScienceDTO.class)));
+        // Só as previsões individuais: a latência dos lotes depende do tamanho de cada um
+        controleAdmissao.registrarLatenciaModelo(System.nanoTime() - inicio);
+        this.validacao(resposta);
+        return resposta;
+    }
+
+    /**
+     * Envia vários vetores de features em uma única chamada ao endpoint de lote do serviço de previsão.
+     * As respostas seguem a ordem da lista recebida.
+     */
+    public List<ResponsePrevisaoDataScienceDTO> preverLote(List<RequestPrevisaoDataScienceDTO> requisicoes) {
+        var respostas = chamar(() -> balanceador.executar(replica -> restClient.post()
+                .uri(replica.resolve(loteUri.isBlank() ? "predict/lote" : loteUri))
+                .body(requisicoes)
+                .retrieve()
+                .body(ResponsePrevisaoDataScienceDTO[].class)));
+
+        if (respostas == null || respostas.length != requisicoes.size()) {
+            throw new RespostaInvalidaServicoExternoException("Resposta inválida do serviço de previsão");
+        }
+        for (ResponsePrevisaoDataScienceDTO resposta : respostas) {
+            this.validacao(resposta);
+        }
+        return List.of(respostas);
+    }
+
+    private <T> T chamar(Supplier<T> chamada) {
+        try {
+            return chamada.get();
+        } catch (LimiteConcorrenciaExcedidoException ex) {
+            controleAdmissao.registrarSobrecargaModelo();
+            throw ex;
+        } catch (IllegalArgumentException ex) {
+            throw new ErroConfiguracaoApiException("Erro interno do servidor");
+        } catch (ResourceAccessException ex) {
+            controleAdmissao.registrarSobrecargaModelo();
+            throw new ServicoExternoIndisponivelException("Serviço de previsão indisponível no momento", ex);
+        } catch (HttpStatusCodeException ex) {
+            throw new RespostaInvalidaServicoExternoException("Erro ao requisitar serviço de previsão");
+        } catch (RestClientException ex) {
+            // Corpo truncado ou ilegível: a conexão caiu ou a réplica respondeu algo fora do contrato
+            throw new RespostaInvalidaServicoExternoException("Resposta inválida do serviço de previsão");
+        }
+    }
+
+    private void validacao(ResponsePrevisaoDataScienceDTO dto) throws RespostaInvalidaServicoExternoException {
+        if (dto == null || dto.probabilidadeAtraso() == null ||
+            dto.probabilidadeAtraso() < 0 || dto.probabilidadeAtraso() > 1) {
+
+            throw new RespostaInvalidaServicoExternoException("Resposta inválida do serviço de previsão");
+        }
+    }
+}
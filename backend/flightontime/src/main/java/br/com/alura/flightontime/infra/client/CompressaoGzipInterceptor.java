@@ -0,0 +1,130 @@
+package br.com.alura.flightontime.infra.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip nas chamadas ao serviço de previsão: comprime os corpos de requisição a partir de um tamanho mínimo
+ * (na prática só os lotes) e descomprime as respostas enviadas com {@code Content-Encoding: gzip}.
+ * <p>
+ * Substitui a compressão do {@code JdkClientHttpRequestFactory}, que fecha o corpo assim que o
+ * {@link GZIPInputStream} chega ao trailer, antes de o HttpClient ler o fim da resposta. Nesse caso o JDK
+ * descarta a conexão em vez de devolvê-la ao pool.
+ */
+public class CompressaoGzipInterceptor implements ClientHttpRequestInterceptor {
+
+    // Acima disso é mais barato abrir outra conexão do que ler o resto do corpo
+    private static final int MAXIMO_DRENADO = 64 * 1024;
+
+    private final int tamanhoMinimo;
+
+    public CompressaoGzipInterceptor(int tamanhoMinimo) {
+        this.tamanhoMinimo = tamanhoMinimo;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+
+        if (body.length >= tamanhoMinimo && !request.getHeaders().containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+            var saida = new ByteArrayOutputStream(body.length / 4);
+            try (var gzip = new GZIPOutputStream(saida)) {
+                gzip.write(body);
+            }
+            body = saida.toByteArray();
+            request.getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            request.getHeaders().setContentLength(body.length);
+        }
+
+        ClientHttpResponse resposta = execution.execute(request, body);
+        if (!"gzip".equalsIgnoreCase(resposta.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))) {
+            return resposta;
+        }
+        return new RespostaDescomprimida(resposta);
+    }
+
+    private static final class RespostaDescomprimida implements ClientHttpResponse {
+
+        private final ClientHttpResponse original;
+        private final HttpHeaders headers;
+        private InputStream corpo;
+
+        RespostaDescomprimida(ClientHttpResponse original) {
+            this.original = original;
+            this.headers = new HttpHeaders();
+            this.headers.putAll(original.getHeaders());
+            this.headers.remove(HttpHeaders.CONTENT_ENCODING);
+            this.headers.remove(HttpHeaders.CONTENT_LENGTH);
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return original.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return original.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (corpo == null) {
+                corpo = new GZIPInputStream(new CorpoDrenado(original.getBody()));
+            }
+            return corpo;
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (corpo != null) corpo.close();
+            } catch (IOException ex) {
+                // A conexão será descartada pelo HttpClient
+            }
+            original.close();
+        }
+    }
+
+    // Ao ser fechado, lê o restante do corpo original até o fim da resposta
+    private static final class CorpoDrenado extends FilterInputStream {
+
+        private boolean fechado;
+
+        CorpoDrenado(InputStream corpo) {
+            super(corpo);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (fechado) return;
+            fechado = true;
+            try {
+                byte[] buffer = new byte[8192];
+                int drenado = 0;
+                int lidos;
+                while (drenado < MAXIMO_DRENADO && (lidos = in.read(buffer)) != -1) {
+                    drenado += lidos;
+                }
+            } finally {
+                super.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package br.com.alura.flightontime.infra.client;
+
+import br.com.alura.flightontime.dto.response.ResponseSaudeModeloDTO;
+import br.com.alura.flightontime.infra.exception.ServicoExternoIndisponivelException;
+import br.com.alura.flightontime.infra.resiliencia.BalanceadorReplicas;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.net.URI;
+import java.util.Objects;
+
+/**
+ * Acompanha a data de treinamento do modelo carregado no serviço de previsão e publica
+ * {@link VersaoModeloAlteradaEvent} quando ela muda. A data vem das sondagens do {@code /health} de cada réplica
+ * feitas pelo {@link BalanceadorReplicas}, ou de {@code api.previsao.health.uri}, se configurada.
+ */
+@Component
+public class MonitorVersaoModelo {
+
+    private static final Logger logger = LoggerFactory.getLogger(MonitorVersaoModelo.class);
+
+    @Autowired
+    private RestClient restClient;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private BalanceadorReplicas balanceador;
+
+    @Value("${api.previsao.health.uri:}")
+    private String healthUri;
+
+    private volatile String versaoAtual;
+
+    @Scheduled(fixedDelayString = "${api.previsao.versao.intervalo:PT1M}")
+    public void verificarVersao() {
+        String versao;
+        if (healthUri.isBlank()) {
+            versao = balanceador.versaoModelo();
+        } else {
+            try {
+                ResponseSaudeModeloDTO saude = restClient.get()
+                        .uri(URI.create(healthUri))
+                        .retrieve()
+                        .body(ResponseSaudeModeloDTO.class);
+                versao = saude == null ? null : saude.dataTreinamento();
+            } catch (RestClientException | ServicoExternoIndisponivelException ex) {
+                logger.warn("Não foi possível consultar a versão do modelo: {}", ex.getMessage());
+                return;
+            }
+        }
+
+        if (versao == null) return;
+
+        String anterior = this.versaoAtual;
+        if (Objects.equals(anterior, versao)) return;
+
+        this.versaoAtual = versao;
+        if (anterior != null) {
+            logger.info("Versão do modelo alterada de {} para {}", anterior, versao);
+            eventPublisher.publishEvent(new VersaoModeloAlteradaEvent(anterior, versao));
+        }
+    }
+
+    public String versaoAtual() {
+        return versaoAtual;
+    }
+}
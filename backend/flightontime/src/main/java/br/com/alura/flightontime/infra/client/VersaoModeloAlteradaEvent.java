@@ -0,0 +1,7 @@
+package br.com.alura.flightontime.infra.client;
+
+/**
+ * Publicado quando a versão do modelo informada pelo serviço de previsão muda, por exemplo após um novo treinamento.
+ */
+public record VersaoModeloAlteradaEvent(String versaoAnterior, String versaoAtual) {
+}
@@ -0,0 +1,20 @@
+package br.com.alura.flightontime.infra.config;
+
+import br.com.alura.flightontime.infra.seguranca.ProtecaoAdmin;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class AdminConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private ProtecaoAdmin protecaoAdmin;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(protecaoAdmin)
+                .addPathPatterns("/admin", "/admin/**");
+    }
+}
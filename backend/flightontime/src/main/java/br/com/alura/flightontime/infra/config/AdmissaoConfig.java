@@ -0,0 +1,20 @@
+package br.com.alura.flightontime.infra.config;
+
+import br.com.alura.flightontime.infra.admissao.ControleAdmissao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class AdmissaoConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private ControleAdmissao controleAdmissao;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(controleAdmissao)
+                .addPathPatterns("/predict", "/predict/**", "/autocomplete/**");
+    }
+}
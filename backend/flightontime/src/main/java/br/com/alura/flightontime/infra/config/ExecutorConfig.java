@@ -0,0 +1,38 @@
+package br.com.alura.flightontime.infra.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    @Value("${api.previsao.lote.concorrencia:8}")
+    private int concorrencia;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean threadsVirtuais;
+
+    // Limita quantas chamadas ao serviço de previsão os endpoints de lote fazem em paralelo
+    @Bean
+    public AsyncTaskExecutor executorChamadasModelo() {
+        if (threadsVirtuais) {
+            // Uma thread virtual por chamada; o limite de concorrência faz o papel do tamanho do pool
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("modelo-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(concorrencia);
+            executor.setTaskTerminationTimeout(30_000);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concorrencia);
+        executor.setMaxPoolSize(concorrencia);
+        executor.setThreadNamePrefix("modelo-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
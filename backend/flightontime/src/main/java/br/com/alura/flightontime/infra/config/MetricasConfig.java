@@ -0,0 +1,25 @@
+package br.com.alura.flightontime.infra.config;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class MetricasConfig {
+
+    // O Spring Boot já publica o pool do Hikari e os ThreadPoolTaskExecutor (executorChamadasModelo);
+    // falta o pool de threads do HttpClient do serviço de previsão. Com threads virtuais não há pool a medir.
+    @Bean
+    public MeterBinder metricasExecutorClienteHttp(ExecutorService executorClienteHttp) {
+        return registry -> {
+            if (executorClienteHttp instanceof ThreadPoolExecutor) {
+                new ExecutorServiceMetrics(executorClienteHttp, "cliente-previsao", List.of()).bindTo(registry);
+            }
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package br.com.alura.flightontime.infra.config;
+
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+import java.time.Duration;
+
+/**
+ * Repassa {@code api.client.pool.*} para as propriedades de sistema do pool de conexões do {@link java.net.http.HttpClient}.
+ * O JDK as lê uma única vez, na primeira conexão aberta por qualquer HttpClient do processo, então elas são
+ * definidas assim que o {@code Environment} fica pronto, antes de qualquer bean ser criado. Valores passados
+ * com {@code -D} na linha de comando ou no {@code JAVA_TOOL_OPTIONS} prevalecem.
+ */
+public class PoolConexoesHttpClient implements ApplicationListener<ApplicationEnvironmentPreparedEvent> {
+
+    @Override
+    public void onApplicationEvent(ApplicationEnvironmentPreparedEvent evento) {
+        ConfigurableEnvironment ambiente = evento.getEnvironment();
+        int tamanhoMaximo = ambiente.getProperty("api.client.pool.tamanho-maximo", Integer.class, 0);
+        // O keep-alive precisa ser menor que o do servidor (--timeout-keep-alive do uvicorn), senão um POST
+        // pode ser enviado em uma conexão que o servidor já fechou
+        Duration keepAlive = ambiente.getProperty("api.client.pool.keep-alive", Duration.class, Duration.ofSeconds(60));
+
+        definirSeAusente("jdk.httpclient.connectionPoolSize", String.valueOf(tamanhoMaximo));
+        definirSeAusente("jdk.httpclient.keepalive.timeout", String.valueOf(keepAlive.toSeconds()));
+    }
+
+    private static void definirSeAusente(String nome, String valor) {
+        if (System.getProperty(nome) == null) {
+            System.setProperty(nome, valor);
+        }
+    }
+}
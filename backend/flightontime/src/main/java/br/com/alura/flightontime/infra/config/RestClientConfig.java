@@ -1,13 +1,19 @@
 package br.com.alura.flightontime.infra.config;
 
+import br.com.alura.flightontime.infra.client.CompressaoGzipInterceptor;
+import br.com.alura.flightontime.infra.resiliencia.FabricaRequisicoesTimeoutAdaptativo;
+import br.com.alura.flightontime.infra.resiliencia.ResilienciaServicoPrevisao;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.web.client.RestClient;
 
 import java.net.http.HttpClient;
 import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Configuration
 public class RestClientConfig {
@@ -15,28 +21,63 @@ public class RestClientConfig {
     @Value("${api.client.timeout.connect:3}")
     private long connectTimeout;
 
-    @Value("${api.client.timeout.read:3}")
-    private long readTimeout;
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean threadsVirtuais;
+
+    @Value("${api.client.versao-http:HTTP_1_1}")
+    private HttpClient.Version versaoHttp;
+
+    @Value("${api.client.executor.threads:0}")
+    private int threadsExecutor;
+
+    @Value("${api.client.gzip.habilitado:false}")
+    private boolean gzipHabilitado;
+
+    @Value("${api.client.gzip.tamanho-minimo:2048}")
+    private int gzipTamanhoMinimo;
 
     @Bean
     public RestClient.Builder restClientBuilder() {
         return RestClient.builder();
     }
 
+    // Executor próprio do HttpClient, em vez do pool compartilhado criado pelo JDK
+    @Bean(destroyMethod = "close")
+    public ExecutorService executorClienteHttp() {
+        if (threadsVirtuais) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("cliente-previsao-", 0).factory());
+        }
+        var threadFactory = new CustomizableThreadFactory("cliente-previsao-");
+        threadFactory.setDaemon(true);
+        return threadsExecutor > 0
+                ? Executors.newFixedThreadPool(threadsExecutor, threadFactory)
+                : Executors.newCachedThreadPool(threadFactory);
+    }
 
     @Bean
-    public RestClient restClient(RestClient.Builder builder) {
+    public RestClient restClient(RestClient.Builder builder, ResilienciaServicoPrevisao resiliencia,
+                                 ExecutorService executorClienteHttp) {
+        // O tamanho e o keep-alive do pool de conexões são definidos pelo PoolConexoesHttpClient
+        // Com HTTP_2 e URI http://, o JDK tenta o upgrade para h2c e continua em HTTP/1.1 se o servidor recusar
         HttpClient httpClient = HttpClient.newBuilder()
-                .version(HttpClient.Version.HTTP_1_1)
+                .version(versaoHttp)
                 .connectTimeout(Duration.ofSeconds(connectTimeout))
+                .executor(executorClienteHttp)
                 .build();
 
-        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
-
-        requestFactory.setReadTimeout(Duration.ofSeconds(readTimeout));
+        var fabrica = new FabricaRequisicoesTimeoutAdaptativo(() -> {
+            var requestFactory = new JdkClientHttpRequestFactory(httpClient, executorClienteHttp);
+            // Ligada por padrão no Spring 7; o gzip fica com o CompressaoGzipInterceptor
+            requestFactory.enableCompression(false);
+            return requestFactory;
+        }, resiliencia);
 
-        return builder
-                .requestFactory(requestFactory)
-                .build();
+        // O timeout de leitura acompanha a latência observada, limitado por api.client.timeout.read
+        builder.requestFactory(fabrica)
+                .requestInterceptor(resiliencia);
+        if (gzipHabilitado) {
+            builder.requestInterceptor(new CompressaoGzipInterceptor(gzipTamanhoMinimo));
+        }
+        return builder.build();
     }
 }
@@ -0,0 +1,23 @@
+package br.com.alura.flightontime.infra.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.tomcat.TomcatConnectorCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TomcatConfig {
+
+    @Value("${server.tomcat.socket.buffer:4096}")
+    private int bufferSocket;
+
+    // Cada conexão aberta mantém os buffers de leitura e escrita do socket; com dezenas de milhares de streams
+    // de assinatura, o padrão de 8 KB de cada um pesa mais no heap que o estado das próprias assinaturas
+    @Bean
+    public TomcatConnectorCustomizer buffersSocketTomcat() {
+        return connector -> {
+            connector.setProperty("socket.appReadBufSize", String.valueOf(bufferSocket));
+            connector.setProperty("socket.appWriteBufSize", String.valueOf(bufferSocket));
+        };
+    }
+}
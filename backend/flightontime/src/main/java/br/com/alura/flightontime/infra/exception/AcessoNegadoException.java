@@ -0,0 +1,12 @@
+package br.com.alura.flightontime.infra.exception;
+
+/**
+ * Lançada antes de a requisição chegar a um endpoint administrativo quando a chave de administração está ausente,
+ * não confere ou não foi configurada.
+ */
+public class AcessoNegadoException extends RuntimeException {
+
+    public AcessoNegadoException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,20 @@
+package br.com.alura.flightontime.infra.exception;
+
+import java.time.Duration;
+
+/**
+ * Lançada sem chamar o serviço de previsão enquanto o disjuntor está aberto.
+ */
+public class CircuitoAbertoException extends ServicoExternoIndisponivelException {
+
+    private final Duration tentarNovamenteEm;
+
+    public CircuitoAbertoException(String message, Duration tentarNovamenteEm) {
+        super(message);
+        this.tentarNovamenteEm = tentarNovamenteEm;
+    }
+
+    public Duration getTentarNovamenteEm() {
+        return tentarNovamenteEm;
+    }
+}
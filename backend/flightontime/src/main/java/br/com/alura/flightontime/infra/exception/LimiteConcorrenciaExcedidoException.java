@@ -0,0 +1,10 @@
+package br.com.alura.flightontime.infra.exception;
+
+/**
+ * Lançada quando já há o número máximo de chamadas ao serviço de previsão em andamento.
+ */
+public class LimiteConcorrenciaExcedidoException extends ServicoExternoIndisponivelException {
+    public LimiteConcorrenciaExcedidoException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,21 @@
+package br.com.alura.flightontime.infra.exception;
+
+import java.time.Duration;
+
+/**
+ * Lançada pelo controle de admissão antes de a requisição chegar ao controller, quando o cliente passou da sua
+ * taxa ou o backend está no limite de requisições simultâneas. Sem stack trace, para que a rejeição seja barata.
+ */
+public class RequisicoesExcedidasException extends RuntimeException {
+
+    private final Duration tentarNovamenteEm;
+
+    public RequisicoesExcedidasException(String message, Duration tentarNovamenteEm) {
+        super(message, null, false, false);
+        this.tentarNovamenteEm = tentarNovamenteEm;
+    }
+
+    public Duration getTentarNovamenteEm() {
+        return tentarNovamenteEm;
+    }
+}
@@ -4,4 +4,8 @@ public class ServicoExternoIndisponivelException extends RuntimeException {
     public ServicoExternoIndisponivelException(String message, Throwable cause ) {
         super(message, cause);
     }
+
+    public ServicoExternoIndisponivelException(String message) {
+        super(message);
+    }
 }
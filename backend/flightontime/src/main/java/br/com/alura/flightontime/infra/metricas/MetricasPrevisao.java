@@ -0,0 +1,132 @@
+package br.com.alura.flightontime.infra.metricas;
+
+import br.com.alura.flightontime.referencia.ConjuntoCodigos;
+import br.com.alura.flightontime.referencia.DadosReferenciaRecarregadosEvent;
+import br.com.alura.flightontime.repository.AeroportoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers das etapas de uma previsão ({@code previsao.etapa}) e de uma previsão em lote
+ * ({@code previsao.lote.etapa}). Para manter a cardinalidade baixa, a companhia aérea só vira tag quando está
+ * em {@code metricas.tags.companhias} (as demais ficam em {@code outras}) e a rota é reduzida a doméstica ou
+ * internacional em relação a {@code metricas.tags.pais}. Todos os timers são criados na inicialização,
+ * então registrar uma medição não aloca nem consulta o registro.
+ */
+@Component
+public class MetricasPrevisao {
+
+    public enum Etapa {
+        VALIDACAO, TABELA, MODELO, CLASSIFICACAO;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    private enum Rota {
+        DOMESTICA, INTERNACIONAL;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    private static final String OUTRAS = "outras";
+
+    // Poucos buckets fixos em vez do histograma de percentis do Micrometer (mais de 100 buckets por série)
+    private static final Duration[] BUCKETS = {
+            Duration.ofNanos(50_000), Duration.ofNanos(100_000), Duration.ofNanos(250_000), Duration.ofNanos(500_000),
+            Duration.ofMillis(1), Duration.ofMillis(2), Duration.ofMillis(5), Duration.ofMillis(10),
+            Duration.ofMillis(25), Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250),
+            Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofSeconds(2), Duration.ofSeconds(5)};
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private AeroportoRepository aeroportoRepository;
+
+    @Value("${metricas.tags.companhias:GLO,TAM,AZU,PTB}")
+    private List<String> companhias;
+
+    @Value("${metricas.tags.pais:BR}")
+    private String pais;
+
+    // [etapa][companhia][rota]; a última posição de companhia é "outras"
+    private Timer[][][] timers;
+    private Timer[] timersLote;
+    private volatile ConjuntoCodigos aeroportosDomesticos;
+
+    @PostConstruct
+    public void iniciar() {
+        int etapas = Etapa.values().length;
+        timers = new Timer[etapas][companhias.size() + 1][Rota.values().length];
+        timersLote = new Timer[etapas];
+        for (Etapa etapa : Etapa.values()) {
+            for (int c = 0; c <= companhias.size(); c++) {
+                String companhia = c < companhias.size() ? companhias.get(c) : OUTRAS;
+                for (Rota rota : Rota.values()) {
+                    timers[etapa.ordinal()][c][rota.ordinal()] = histograma(Timer.builder("previsao.etapa")
+                            .description("Duração de cada etapa de uma previsão")
+                            .tag("etapa", etapa.tag)
+                            .tag("companhia", companhia)
+                            .tag("rota", rota.tag));
+                }
+            }
+            // No lote, a consulta à tabela faz parte da etapa do modelo
+            if (etapa != Etapa.TABELA) {
+                timersLote[etapa.ordinal()] = histograma(Timer.builder("previsao.lote.etapa")
+                        .description("Duração de cada etapa de uma previsão em lote")
+                        .tag("etapa", etapa.tag));
+            }
+        }
+        carregarAeroportosDomesticos();
+    }
+
+    @EventListener(DadosReferenciaRecarregadosEvent.class)
+    public void carregarAeroportosDomesticos() {
+        this.aeroportosDomesticos = ConjuntoCodigos.de(aeroportoRepository.listaCodigosIcaoPorPais(pais));
+    }
+
+    /**
+     * Registra a duração da etapa, contada de {@code inicio} até agora, e devolve o instante atual para
+     * servir de início da próxima etapa.
+     */
+    public long registrar(Etapa etapa, String companhia, String origem, String destino, long inicio) {
+        long agora = System.nanoTime();
+        timers[etapa.ordinal()][indiceCompanhia(companhia)][rota(origem, destino).ordinal()]
+                .record(agora - inicio, TimeUnit.NANOSECONDS);
+        return agora;
+    }
+
+    /** Como {@link #registrar}, para as etapas de um lote inteiro. */
+    public long registrarLote(Etapa etapa, long inicio) {
+        long agora = System.nanoTime();
+        timersLote[etapa.ordinal()].record(agora - inicio, TimeUnit.NANOSECONDS);
+        return agora;
+    }
+
+    private int indiceCompanhia(String companhia) {
+        // Poucas companhias configuradas: a busca linear é mais barata que um hash
+        for (int i = 0; i < companhias.size(); i++) {
+            if (companhias.get(i).equals(companhia)) return i;
+        }
+        return companhias.size();
+    }
+
+    private Rota rota(String origem, String destino) {
+        var domesticos = this.aeroportosDomesticos;
+        return domesticos.contem(origem) && domesticos.contem(destino) ? Rota.DOMESTICA : Rota.INTERNACIONAL;
+    }
+
+    private Timer histograma(Timer.Builder builder) {
+        return builder.serviceLevelObjectives(BUCKETS).register(meterRegistry);
+    }
+}
@@ -0,0 +1,360 @@
+package br.com.alura.flightontime.infra.resiliencia;
+
+import br.com.alura.flightontime.dto.response.ResponseSaudeModeloDTO;
+import br.com.alura.flightontime.infra.exception.ServicoExternoIndisponivelException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Distribui as chamadas ao serviço de previsão entre as réplicas de {@code api.previsao.uri}, escolhendo a
+ * que tem menos chamadas em andamento. Réplicas cujo {@code /health} falha nas sondagens periódicas, ou que
+ * acumulam falhas consecutivas nas chamadas (I/O, timeout ou 5xx), deixam de receber chamadas; as ejetadas
+ * voltam depois de um tempo que cresce a cada nova ejeção. Se nenhuma réplica estiver disponível, todas
+ * voltam a ser usadas, já que recusar a chamada seria pior que tentar.
+ *
+ * <p>Com hedge habilitado, uma previsão que passa do percentil configurado das latências recentes é enviada
+ * também a outra réplica, e vale a primeira resposta. A chamada mais lenta não é cancelada: termina em
+ * segundo plano, contando como chamada em andamento da réplica lenta. Os hedges são limitados a uma fração
+ * das chamadas, para não dobrar a carga quando todas as réplicas estão lentas.
+ */
+@Component
+public class BalanceadorReplicas {
+
+    private static final Logger logger = LoggerFactory.getLogger(BalanceadorReplicas.class);
+
+    private static final int JANELA_LATENCIAS = 512;
+    // Orçamento de hedges em milésimos: cada chamada acrescenta a taxa máxima e cada hedge consome uma unidade
+    private static final long CUSTO_HEDGE = 1000;
+    private static final long SALDO_MAXIMO_HEDGES = 10 * CUSTO_HEDGE;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${api.previsao.uri}")
+    private List<URI> uris;
+
+    @Value("${api.previsao.replicas.ejecao.falhas-consecutivas:5}")
+    private int falhasParaEjecao;
+
+    @Value("${api.previsao.replicas.ejecao.tempo:PT30S}")
+    private Duration tempoEjecao;
+
+    @Value("${api.previsao.replicas.ejecao.tempo-maximo:PT5M}")
+    private Duration tempoMaximoEjecao;
+
+    // Nunca ejeta mais que essa porcentagem das réplicas; com uma réplica só, ela nunca é ejetada
+    @Value("${api.previsao.replicas.ejecao.percentual-maximo:50}")
+    private int percentualMaximoEjecao;
+
+    @Value("${api.previsao.replicas.sondagem.falhas:2}")
+    private int falhasParaIndisponibilidade;
+
+    @Value("${api.previsao.replicas.sondagem.timeout:PT1S}")
+    private Duration timeoutSondagem;
+
+    @Value("${api.previsao.replicas.hedge.habilitado:false}")
+    private boolean hedgeHabilitado;
+
+    @Value("${api.previsao.replicas.hedge.percentil:0.95}")
+    private double percentilHedge;
+
+    @Value("${api.previsao.replicas.hedge.atraso-minimo:PT0.01S}")
+    private Duration atrasoMinimoHedge;
+
+    @Value("${api.previsao.replicas.hedge.taxa-maxima:0.1}")
+    private double taxaMaximaHedge;
+
+    @Value("${api.client.timeout.read:3}")
+    private long timeoutMaximoSegundos;
+
+    private List<ReplicaServicoPrevisao> replicas;
+    private TimeoutAdaptativo atrasoHedge;
+    private long creditoHedgePorChamada;
+    private final AtomicLong saldoHedges = new AtomicLong(SALDO_MAXIMO_HEDGES);
+    private final ReentrantLock travaEjecao = new ReentrantLock();
+
+    private RestClient sondas;
+    private ExecutorService tentativas;
+    // Montado uma vez na inicialização e só lido depois
+    private Map<ReplicaServicoPrevisao, Counter> contadoresEjecao;
+    private Counter hedgesEnviados;
+    private Counter hedgesVencedores;
+
+    @PostConstruct
+    public void iniciar() {
+        replicas = uris.stream().distinct().map(ReplicaServicoPrevisao::new).toList();
+        atrasoHedge = new TimeoutAdaptativo(JANELA_LATENCIAS, percentilHedge, 1, atrasoMinimoHedge,
+                Duration.ofSeconds(timeoutMaximoSegundos));
+        creditoHedgePorChamada = Math.round(taxaMaximaHedge * CUSTO_HEDGE);
+        tentativas = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("replica-", 0).factory());
+
+        var requestFactory = new JdkClientHttpRequestFactory(HttpClient.newBuilder()
+                .connectTimeout(timeoutSondagem)
+                .executor(tentativas)
+                .build());
+        requestFactory.setReadTimeout(timeoutSondagem);
+        sondas = RestClient.builder().requestFactory(requestFactory).build();
+
+        var contadores = new HashMap<ReplicaServicoPrevisao, Counter>();
+        for (ReplicaServicoPrevisao replica : replicas) {
+            contadores.put(replica, Counter.builder("servico.previsao.replica.ejecoes")
+                    .tag("replica", replica.toString())
+                    .register(meterRegistry));
+            Gauge.builder("servico.previsao.replica.chamadas.em.andamento", replica, ReplicaServicoPrevisao::emAndamento)
+                    .tag("replica", replica.toString())
+                    .register(meterRegistry);
+            Gauge.builder("servico.previsao.replica.disponivel", replica, r -> r.elegivel(System.nanoTime()) ? 1 : 0)
+                    .description("1 se a réplica recebe chamadas; 0 se está ejetada ou falhando no /health")
+                    .tag("replica", replica.toString())
+                    .register(meterRegistry);
+        }
+        Gauge.builder("servico.previsao.hedge.atraso", atrasoHedge, t -> t.atual().toMillis())
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        contadoresEjecao = Map.copyOf(contadores);
+        hedgesEnviados = Counter.builder("servico.previsao.hedges").tag("resultado", "enviado").register(meterRegistry);
+        hedgesVencedores = Counter.builder("servico.previsao.hedges").tag("resultado", "venceu").register(meterRegistry);
+        logger.info("Serviço de previsão com {} réplica(s): {}", replicas.size(), replicas);
+
+        // Já na inicialização, para que a versão do modelo seja conhecida desde as primeiras previsões
+        sondar();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        tentativas.shutdownNow();
+    }
+
+    public List<ReplicaServicoPrevisao> replicas() {
+        return replicas;
+    }
+
+    /**
+     * Faz a chamada na réplica com menos chamadas em andamento.
+     *
+     * @param chamada recebe a URI de previsão da réplica escolhida
+     */
+    public <T> T executar(Function<URI, T> chamada) {
+        return tentar(escolher(null), chamada);
+    }
+
+    /**
+     * Como {@link #executar}, mas, se a resposta demorar mais que o percentil configurado das latências recentes,
+     * envia a mesma chamada a outra réplica e devolve a primeira resposta bem-sucedida. Só serve para chamadas
+     * idempotentes.
+     */
+    public <T> T executarComHedge(Function<URI, T> chamada) {
+        if (!hedgeHabilitado || replicas.size() < 2) return executar(chamada);
+        saldoHedges.accumulateAndGet(creditoHedgePorChamada, (saldo, credito) -> Math.min(saldo + credito, SALDO_MAXIMO_HEDGES));
+
+        ReplicaServicoPrevisao primeira = escolher(null);
+        CompletableFuture<T> original = CompletableFuture.supplyAsync(() -> tentarMedindo(primeira, chamada), tentativas);
+        try {
+            return original.get(atrasoHedge.atual().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            // Segue para o hedge
+        } catch (ExecutionException ex) {
+            throw relancar(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServicoExternoIndisponivelException("Chamada ao serviço de previsão interrompida", ex);
+        }
+
+        ReplicaServicoPrevisao segunda = escolher(primeira);
+        if (segunda == null || saldoHedges.getAndUpdate(saldo -> saldo >= CUSTO_HEDGE ? saldo - CUSTO_HEDGE : saldo) < CUSTO_HEDGE) {
+            return aguardar(original);
+        }
+        hedgesEnviados.increment();
+        CompletableFuture<T> hedge = CompletableFuture.supplyAsync(() -> tentarMedindo(segunda, chamada), tentativas);
+
+        // Primeira resposta bem-sucedida; a falha de uma das chamadas só conta se a outra também falhar
+        var resposta = new CompletableFuture<T>();
+        var falhas = new AtomicInteger();
+        original.whenComplete((valor, erro) -> concluir(resposta, valor, erro, falhas));
+        hedge.whenComplete((valor, erro) -> {
+            if (erro == null && !resposta.isDone()) hedgesVencedores.increment();
+            concluir(resposta, valor, erro, falhas);
+        });
+        return aguardar(resposta);
+    }
+
+    /**
+     * Data de treinamento mais recente entre as réplicas saudáveis, segundo a última sondagem. Durante a troca
+     * do modelo nas réplicas, a versão nova aparece assim que a primeira réplica a carrega.
+     */
+    public String versaoModelo() {
+        return replicas.stream()
+                .filter(ReplicaServicoPrevisao::saudavel)
+                .map(ReplicaServicoPrevisao::versaoModelo)
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+    }
+
+    @Scheduled(fixedDelayString = "${api.previsao.replicas.sondagem.intervalo:PT5S}")
+    public void sondar() {
+        List<CompletableFuture<Void>> sondagens = replicas.stream()
+                .map(replica -> CompletableFuture.runAsync(() -> this.sondar(replica), tentativas))
+                .toList();
+        CompletableFuture.allOf(sondagens.toArray(CompletableFuture[]::new)).join();
+
+        long agora = System.nanoTime();
+        replicas.forEach(replica -> replica.perdoarEjecoes(agora, tempoMaximoEjecao.toNanos()));
+    }
+
+    private void sondar(ReplicaServicoPrevisao replica) {
+        boolean sucesso;
+        String versao = null;
+        try {
+            ResponseSaudeModeloDTO saude = sondas.get()
+                    .uri(replica.uri().resolve("health"))
+                    .retrieve()
+                    .body(ResponseSaudeModeloDTO.class);
+            sucesso = true;
+            versao = saude == null ? null : saude.dataTreinamento();
+        } catch (RestClientException ex) {
+            sucesso = false;
+        }
+        if (replica.registrarSondagem(sucesso, versao, falhasParaIndisponibilidade)) {
+            if (replica.saudavel()) {
+                logger.info("Réplica {} do serviço de previsão voltou a responder no /health", replica);
+            } else {
+                logger.warn("Réplica {} do serviço de previsão não responde no /health; deixa de receber chamadas", replica);
+            }
+        }
+    }
+
+    /**
+     * Réplica disponível com menos chamadas em andamento, com desempate aleatório. Sem {@code excluida}, recorre
+     * a todas as réplicas se nenhuma estiver disponível; com ela, devolve {@code null} nesse caso.
+     */
+    ReplicaServicoPrevisao escolher(ReplicaServicoPrevisao excluida) {
+        long agora = System.nanoTime();
+        ReplicaServicoPrevisao escolhida = menosOcupada(excluida, agora, true);
+        if (escolhida == null && excluida == null) {
+            escolhida = menosOcupada(null, agora, false);
+        }
+        return escolhida;
+    }
+
+    private ReplicaServicoPrevisao menosOcupada(ReplicaServicoPrevisao excluida, long agora, boolean somenteDisponiveis) {
+        ReplicaServicoPrevisao escolhida = null;
+        int menor = Integer.MAX_VALUE;
+        int empates = 0;
+        for (ReplicaServicoPrevisao replica : replicas) {
+            if (replica == excluida || (somenteDisponiveis && !replica.elegivel(agora))) continue;
+            int emAndamento = replica.emAndamento();
+            if (emAndamento < menor) {
+                escolhida = replica;
+                menor = emAndamento;
+                empates = 1;
+            } else if (emAndamento == menor && ThreadLocalRandom.current().nextInt(++empates) == 0) {
+                escolhida = replica;
+            }
+        }
+        return escolhida;
+    }
+
+    private <T> T tentarMedindo(ReplicaServicoPrevisao replica, Function<URI, T> chamada) {
+        long inicio = System.nanoTime();
+        T resposta = tentar(replica, chamada);
+        atrasoHedge.registrar(System.nanoTime() - inicio);
+        return resposta;
+    }
+
+    private <T> T tentar(ReplicaServicoPrevisao replica, Function<URI, T> chamada) {
+        replica.iniciarChamada();
+        try {
+            T resposta = chamada.apply(replica.uri());
+            replica.registrarSucesso();
+            return resposta;
+        } catch (ResourceAccessException | HttpServerErrorException ex) {
+            // Rejeições locais (circuito, concorrência) e erros 4xx não dizem nada sobre a réplica
+            registrarFalha(replica);
+            throw ex;
+        } finally {
+            replica.finalizarChamada();
+        }
+    }
+
+    private void registrarFalha(ReplicaServicoPrevisao replica) {
+        if (replica.registrarFalha() < falhasParaEjecao) return;
+        travaEjecao.lock();
+        try {
+            long agora = System.nanoTime();
+            if (replica.ejetada(agora)) return;
+            long ejetadas = replicas.stream().filter(r -> r.ejetada(agora)).count();
+            if ((ejetadas + 1) * 100 > (long) percentualMaximoEjecao * replicas.size()) return;
+
+            int ejecoes = replica.ejetar(agora, tempoEjecao.toNanos(), tempoMaximoEjecao.toNanos());
+            contadoresEjecao.get(replica).increment();
+            logger.warn("Réplica {} do serviço de previsão ejetada após {} falhas consecutivas ({}ª ejeção seguida)",
+                    replica, falhasParaEjecao, ejecoes);
+        } finally {
+            travaEjecao.unlock();
+        }
+    }
+
+    private static <T> void concluir(CompletableFuture<T> resposta, T valor, Throwable erro, AtomicInteger falhas) {
+        if (erro == null) {
+            resposta.complete(valor);
+        } else if (falhas.incrementAndGet() == 2) {
+            resposta.completeExceptionally(erro);
+        }
+    }
+
+    private static <T> T aguardar(CompletableFuture<T> futuro) {
+        try {
+            return futuro.get();
+        } catch (ExecutionException ex) {
+            throw relancar(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServicoExternoIndisponivelException("Chamada ao serviço de previsão interrompida", ex);
+        }
+    }
+
+    private static RuntimeException relancar(Throwable causa) {
+        if (causa instanceof CompletionException && causa.getCause() != null) {
+            causa = causa.getCause();
+        }
+        if (causa instanceof RuntimeException ex) return ex;
+        if (causa instanceof Error erro) throw erro;
+        return new IllegalStateException(causa);
+    }
+}
@@ -0,0 +1,108 @@
+package br.com.alura.flightontime.infra.resiliencia;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker baseado em uma janela com as últimas chamadas. Abre quando a taxa de falhas da janela
+ * passa do limite, rejeita chamadas durante {@code tempoAberto} e depois libera algumas chamadas de teste:
+ * se todas derem certo o circuito fecha, se uma falhar ele volta a abrir.
+ */
+public final class Disjuntor {
+
+    public enum Estado { FECHADO, SEMI_ABERTO, ABERTO }
+
+    private final boolean[] janela;
+    private final int minimoChamadas;
+    private final double limiteFalhas;
+    private final long tempoAbertoNanos;
+    private final int chamadasTeste;
+
+    private Estado estado = Estado.FECHADO;
+    private int posicao;
+    private int registradas;
+    private int falhas;
+    private long abertoDesde;
+    private int testesEmAndamento;
+    private int testesComSucesso;
+
+    public Disjuntor(int tamanhoJanela, int minimoChamadas, double limiteFalhas, Duration tempoAberto, int chamadasTeste) {
+        this.janela = new boolean[tamanhoJanela];
+        this.minimoChamadas = Math.min(minimoChamadas, tamanhoJanela);
+        this.limiteFalhas = limiteFalhas;
+        this.tempoAbertoNanos = tempoAberto.toNanos();
+        this.chamadasTeste = chamadasTeste;
+    }
+
+    /**
+     * Indica se uma chamada pode ser feita agora. Toda chamada permitida deve terminar com
+     * {@link #registrarSucesso()} ou {@link #registrarFalha()}.
+     */
+    public synchronized boolean permitir() {
+        if (estado == Estado.ABERTO) {
+            if (System.nanoTime() - abertoDesde < tempoAbertoNanos) return false;
+            estado = Estado.SEMI_ABERTO;
+            testesEmAndamento = 0;
+            testesComSucesso = 0;
+        }
+        if (estado == Estado.SEMI_ABERTO) {
+            if (testesEmAndamento + testesComSucesso >= chamadasTeste) return false;
+            testesEmAndamento++;
+        }
+        return true;
+    }
+
+    public synchronized void registrarSucesso() {
+        if (estado == Estado.SEMI_ABERTO) {
+            testesEmAndamento--;
+            if (++testesComSucesso >= chamadasTeste) fechar();
+            return;
+        }
+        registrar(false);
+    }
+
+    public synchronized void registrarFalha() {
+        if (estado == Estado.SEMI_ABERTO) {
+            abrir();
+            return;
+        }
+        registrar(true);
+        if (estado == Estado.FECHADO && registradas >= minimoChamadas && falhas >= limiteFalhas * registradas) {
+            abrir();
+        }
+    }
+
+    public synchronized Estado estado() {
+        return estado;
+    }
+
+    /**
+     * Tempo até o circuito aceitar chamadas de teste; zero se não estiver aberto.
+     */
+    public synchronized Duration tempoAteNovaTentativa() {
+        if (estado != Estado.ABERTO) return Duration.ZERO;
+        return Duration.ofNanos(Math.max(0, tempoAbertoNanos - (System.nanoTime() - abertoDesde)));
+    }
+
+    private void registrar(boolean falha) {
+        if (registradas == janela.length) {
+            if (janela[posicao]) falhas--;
+        } else {
+            registradas++;
+        }
+        janela[posicao] = falha;
+        if (falha) falhas++;
+        posicao = (posicao + 1) % janela.length;
+    }
+
+    private void abrir() {
+        estado = Estado.ABERTO;
+        abertoDesde = System.nanoTime();
+    }
+
+    private void fechar() {
+        estado = Estado.FECHADO;
+        posicao = 0;
+        registradas = 0;
+        falhas = 0;
+    }
+}
@@ -0,0 +1,50 @@
+package br.com.alura.flightontime.infra.resiliencia;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Cria as requisições com o timeout de leitura atual do endpoint. O {@link JdkClientHttpRequestFactory}
+ * tem um timeout fixo, então mantemos uma fábrica por faixa de timeout, todas sobre o mesmo {@link HttpClient}
+ * e portanto sobre o mesmo pool de conexões.
+ */
+public class FabricaRequisicoesTimeoutAdaptativo implements ClientHttpRequestFactory {
+
+    private static final long FAIXA_MILIS = 50;
+
+    private final Supplier<JdkClientHttpRequestFactory> novaFabrica;
+    private final ResilienciaServicoPrevisao resiliencia;
+    private final ConcurrentHashMap<Long, JdkClientHttpRequestFactory> fabricasPorTimeout = new ConcurrentHashMap<>();
+
+    /**
+     * @param novaFabrica cria uma fábrica já configurada sobre o {@link HttpClient} compartilhado; o timeout
+     *                    de leitura é definido aqui
+     */
+    public FabricaRequisicoesTimeoutAdaptativo(Supplier<JdkClientHttpRequestFactory> novaFabrica,
+                                               ResilienciaServicoPrevisao resiliencia) {
+        this.novaFabrica = novaFabrica;
+        this.resiliencia = resiliencia;
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        long timeoutMilis = resiliencia.timeoutPara(uri).atual().toMillis();
+        long faixa = Math.max(1, (timeoutMilis + FAIXA_MILIS - 1) / FAIXA_MILIS) * FAIXA_MILIS;
+        return fabricasPorTimeout.computeIfAbsent(faixa, this::criarFabrica).createRequest(uri, httpMethod);
+    }
+
+    private JdkClientHttpRequestFactory criarFabrica(long timeoutMilis) {
+        JdkClientHttpRequestFactory fabrica = novaFabrica.get();
+        fabrica.setReadTimeout(Duration.ofMillis(timeoutMilis));
+        return fabrica;
+    }
+}
@@ -0,0 +1,110 @@
+package br.com.alura.flightontime.infra.resiliencia;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Uma réplica do serviço de previsão como vista pelo {@link BalanceadorReplicas}: chamadas em andamento,
+ * resultado das sondagens do {@code /health} e ejeção temporária depois de falhas consecutivas.
+ */
+public final class ReplicaServicoPrevisao {
+
+    private final URI uri;
+    private final AtomicInteger emAndamento = new AtomicInteger();
+    private final AtomicInteger falhasConsecutivas = new AtomicInteger();
+
+    // Alterados só pela sondagem agendada
+    private volatile boolean saudavel = true;
+    private volatile int sondagensComFalha;
+    private volatile String versaoModelo;
+
+    // Alterados sob a trava de ejeção do balanceador
+    private volatile boolean ejetada;
+    private volatile long ejetadaAte;
+    private volatile int ejecoes;
+
+    ReplicaServicoPrevisao(URI uri) {
+        this.uri = uri;
+    }
+
+    /** URI de previsão da réplica, base para os demais caminhos ({@code predict/lote}, {@code health}). */
+    public URI uri() {
+        return uri;
+    }
+
+    public int emAndamento() {
+        return emAndamento.get();
+    }
+
+    public boolean saudavel() {
+        return saudavel;
+    }
+
+    public String versaoModelo() {
+        return versaoModelo;
+    }
+
+    boolean ejetada(long agora) {
+        return ejetada && agora - ejetadaAte < 0;
+    }
+
+    boolean elegivel(long agora) {
+        return saudavel && !ejetada(agora);
+    }
+
+    void iniciarChamada() {
+        emAndamento.incrementAndGet();
+    }
+
+    void finalizarChamada() {
+        emAndamento.decrementAndGet();
+    }
+
+    void registrarSucesso() {
+        if (falhasConsecutivas.get() != 0) falhasConsecutivas.set(0);
+    }
+
+    /** @return falhas consecutivas, incluindo esta */
+    int registrarFalha() {
+        return falhasConsecutivas.incrementAndGet();
+    }
+
+    /**
+     * Ejeta a réplica por um tempo que cresce a cada ejeção seguida, até o máximo.
+     *
+     * @return quantas vezes a réplica foi ejetada seguidas, incluindo esta
+     */
+    int ejetar(long agora, long tempoNanos, long tempoMaximoNanos) {
+        int seguidas = ++ejecoes;
+        ejetadaAte = agora + Math.min(tempoNanos * seguidas, tempoMaximoNanos);
+        ejetada = true;
+        falhasConsecutivas.set(0);
+        return seguidas;
+    }
+
+    /** Esquece as ejeções anteriores de uma réplica que voltou e ficou estável. */
+    void perdoarEjecoes(long agora, long estabilidadeNanos) {
+        if (ejecoes > 0 && !ejetada(agora) && agora - ejetadaAte > estabilidadeNanos) {
+            ejecoes = 0;
+            ejetada = false;
+        }
+    }
+
+    /** @return se a réplica mudou de saudável para não saudável ou o contrário */
+    boolean registrarSondagem(boolean sucesso, String versaoModelo, int falhasParaIndisponibilidade) {
+        boolean anterior = saudavel;
+        if (sucesso) {
+            sondagensComFalha = 0;
+            saudavel = true;
+            if (versaoModelo != null) this.versaoModelo = versaoModelo;
+        } else if (++sondagensComFalha >= falhasParaIndisponibilidade) {
+            saudavel = false;
+        }
+        return anterior != saudavel;
+    }
+
+    @Override
+    public String toString() {
+        return uri.getAuthority();
+    }
+}
@@ -0,0 +1,160 @@
+package br.com.alura.flightontime.infra.resiliencia;
+
+import br.com.alura.flightontime.infra.exception.CircuitoAbertoException;
+import br.com.alura.flightontime.infra.exception.LimiteConcorrenciaExcedidoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Camada de resiliência aplicada a toda chamada feita pelo {@code RestClient} ao serviço de previsão:
+ * limita as chamadas simultâneas, falha rápido enquanto o {@link Disjuntor} está aberto e mede a latência
+ * de cada endpoint para o {@link TimeoutAdaptativo}. Respostas 5xx e erros de I/O, inclusive timeouts,
+ * contam como falha; os timeouts também alargam o timeout adaptativo do endpoint.
+ */
+@Component
+public class ResilienciaServicoPrevisao implements ClientHttpRequestInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResilienciaServicoPrevisao.class);
+
+    private static final int JANELA_LATENCIAS = 512;
+
+    private final Disjuntor disjuntor;
+    private final Semaphore chamadasDisponiveis;
+    private final int concorrenciaMaxima;
+    private final long esperaConcorrenciaNanos;
+    private final ConcurrentHashMap<String, TimeoutAdaptativo> timeoutsPorCaminho = new ConcurrentHashMap<>();
+
+    private final MeterRegistry meterRegistry;
+    private final Counter rejeicoesCircuito;
+    private final Counter rejeicoesConcorrencia;
+
+    @Value("${api.previsao.resiliencia.timeout.percentil:0.99}")
+    private double percentilTimeout;
+
+    @Value("${api.previsao.resiliencia.timeout.fator:3}")
+    private double fatorTimeout;
+
+    @Value("${api.previsao.resiliencia.timeout.minimo:PT0.3S}")
+    private Duration timeoutMinimo;
+
+    @Value("${api.client.timeout.read:3}")
+    private long timeoutMaximoSegundos;
+
+    public ResilienciaServicoPrevisao(MeterRegistry meterRegistry,
+                                      @Value("${api.previsao.resiliencia.circuito.janela:50}") int janela,
+                                      @Value("${api.previsao.resiliencia.circuito.minimo-chamadas:20}") int minimoChamadas,
+                                      @Value("${api.previsao.resiliencia.circuito.taxa-falhas:0.5}") double taxaFalhas,
+                                      @Value("${api.previsao.resiliencia.circuito.tempo-aberto:PT15S}") Duration tempoAberto,
+                                      @Value("${api.previsao.resiliencia.circuito.chamadas-teste:3}") int chamadasTeste,
+                                      @Value("${api.previsao.resiliencia.concorrencia-maxima:64}") int concorrenciaMaxima,
+                                      @Value("${api.previsao.resiliencia.espera-concorrencia:PT0.1S}") Duration esperaConcorrencia) {
+        this.disjuntor = new Disjuntor(janela, minimoChamadas, taxaFalhas, tempoAberto, chamadasTeste);
+        this.chamadasDisponiveis = new Semaphore(concorrenciaMaxima);
+        this.concorrenciaMaxima = concorrenciaMaxima;
+        this.esperaConcorrenciaNanos = esperaConcorrencia.toNanos();
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("servico.previsao.circuito.estado", disjuntor, d -> d.estado().ordinal())
+                .description("Estado do circuit breaker: 0 fechado, 1 semiaberto, 2 aberto")
+                .register(meterRegistry);
+        Gauge.builder("servico.previsao.chamadas.em.andamento", this, r -> r.chamadasEmAndamento())
+                .register(meterRegistry);
+        this.rejeicoesCircuito = Counter.builder("servico.previsao.rejeicoes").tag("motivo", "circuito").register(meterRegistry);
+        this.rejeicoesConcorrencia = Counter.builder("servico.previsao.rejeicoes").tag("motivo", "concorrencia").register(meterRegistry);
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        if (!adquirirChamada()) {
+            rejeicoesConcorrencia.increment();
+            throw new LimiteConcorrenciaExcedidoException("Limite de chamadas simultâneas ao serviço de previsão atingido");
+        }
+        try {
+            if (!disjuntor.permitir()) {
+                rejeicoesCircuito.increment();
+                throw new CircuitoAbertoException("Circuito do serviço de previsão aberto", disjuntor.tempoAteNovaTentativa());
+            }
+
+            long inicio = System.nanoTime();
+            ClientHttpResponse resposta;
+            try {
+                resposta = execution.execute(request, body);
+            } catch (HttpTimeoutException ex) {
+                registrarFalha();
+                timeoutPara(request.getURI()).registrarTimeout(System.nanoTime() - inicio);
+                throw ex;
+            } catch (IOException | RuntimeException ex) {
+                registrarFalha();
+                throw ex;
+            }
+
+            if (resposta.getStatusCode().is5xxServerError()) {
+                registrarFalha();
+            } else {
+                disjuntor.registrarSucesso();
+                timeoutPara(request.getURI()).registrar(System.nanoTime() - inicio);
+            }
+            return resposta;
+        } finally {
+            chamadasDisponiveis.release();
+        }
+    }
+
+    /**
+     * Timeout de leitura a ser usado em uma chamada para a URI. Cada endpoint tem sua própria janela de
+     * latências, já que uma chamada de lote é naturalmente mais lenta que uma previsão individual.
+     */
+    public TimeoutAdaptativo timeoutPara(URI uri) {
+        return timeoutsPorCaminho.computeIfAbsent(uri.getPath(), caminho -> {
+            var timeout = new TimeoutAdaptativo(JANELA_LATENCIAS, percentilTimeout, fatorTimeout,
+                    timeoutMinimo, Duration.ofSeconds(timeoutMaximoSegundos));
+            Gauge.builder("servico.previsao.timeout", timeout, t -> t.atual().toMillis())
+                    .tag("caminho", caminho)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+            return timeout;
+        });
+    }
+
+    public Disjuntor.Estado estadoCircuito() {
+        return disjuntor.estado();
+    }
+
+    public int chamadasEmAndamento() {
+        return concorrenciaMaxima - chamadasDisponiveis.availablePermits();
+    }
+
+    private boolean adquirirChamada() {
+        try {
+            return chamadasDisponiveis.tryAcquire(esperaConcorrenciaNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void registrarFalha() {
+        Disjuntor.Estado anterior = disjuntor.estado();
+        disjuntor.registrarFalha();
+        if (anterior != Disjuntor.Estado.ABERTO && disjuntor.estado() == Disjuntor.Estado.ABERTO) {
+            logger.warn("Circuito do serviço de previsão aberto; nova tentativa em {}", disjuntor.tempoAteNovaTentativa());
+        }
+    }
+}
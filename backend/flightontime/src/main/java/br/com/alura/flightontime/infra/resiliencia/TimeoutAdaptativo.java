@@ -0,0 +1,69 @@
+package br.com.alura.flightontime.infra.resiliencia;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Timeout de leitura derivado das latências recentes: um percentil das últimas chamadas bem-sucedidas ou
+ * interrompidas por timeout multiplicado por um fator, limitado entre um mínimo e o timeout configurado.
+ * Enquanto não houver amostras suficientes, usa o timeout configurado.
+ */
+public final class TimeoutAdaptativo {
+
+    // O percentil é recalculado a cada tantas amostras, e não a cada chamada
+    private static final int INTERVALO_RECALCULO = 32;
+
+    private final long[] amostras;
+    private final double percentil;
+    private final double fator;
+    private final long minimoNanos;
+    private final long maximoNanos;
+
+    private int posicao;
+    private int registradas;
+    private int desdeUltimoCalculo;
+    private volatile long timeoutNanos;
+
+    public TimeoutAdaptativo(int tamanhoJanela, double percentil, double fator, Duration minimo, Duration maximo) {
+        this.amostras = new long[tamanhoJanela];
+        this.percentil = percentil;
+        this.fator = fator;
+        this.minimoNanos = minimo.toNanos();
+        this.maximoNanos = maximo.toNanos();
+        this.timeoutNanos = maximoNanos;
+    }
+
+    public Duration atual() {
+        return Duration.ofNanos(timeoutNanos);
+    }
+
+    public synchronized void registrar(long latenciaNanos) {
+        adicionar(latenciaNanos);
+    }
+
+    /**
+     * Chamada interrompida pelo timeout atual. Entra na janela com o tempo decorrido, já que a latência real
+     * é desconhecida, e o timeout dobra na hora, até o configurado: sem isso, se o serviço ficar mais lento
+     * que o timeout, todas as chamadas falhariam sem gerar amostras e o timeout nunca subiria.
+     */
+    public synchronized void registrarTimeout(long decorridoNanos) {
+        adicionar(decorridoNanos);
+        // Depois do recálculo, que com poucas amostras lentas na janela ainda voltaria ao timeout anterior
+        timeoutNanos = Math.clamp(Math.max(timeoutNanos, decorridoNanos) * 2, minimoNanos, maximoNanos);
+    }
+
+    private void adicionar(long latenciaNanos) {
+        amostras[posicao] = latenciaNanos;
+        posicao = (posicao + 1) % amostras.length;
+        if (registradas < amostras.length) registradas++;
+
+        if (++desdeUltimoCalculo < INTERVALO_RECALCULO || registradas < INTERVALO_RECALCULO) return;
+        desdeUltimoCalculo = 0;
+
+        long[] ordenadas = Arrays.copyOf(amostras, registradas);
+        Arrays.sort(ordenadas);
+        int indice = (int) Math.ceil(percentil * registradas) - 1;
+        long latencia = ordenadas[Math.clamp(indice, 0, registradas - 1)];
+        timeoutNanos = Math.clamp((long) (latencia * fator), minimoNanos, maximoNanos);
+    }
+}
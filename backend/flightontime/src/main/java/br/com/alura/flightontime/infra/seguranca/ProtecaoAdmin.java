@@ -0,0 +1,39 @@
+package br.com.alura.flightontime.infra.seguranca;
+
+import br.com.alura.flightontime.infra.exception.AcessoNegadoException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Exige a chave de administração em {@code X-Admin-Key} nos endpoints de {@code /admin}, que reconstroem
+ * índices e substituem tabelas inteiras. Sem chave configurada, eles ficam desabilitados: o Nginx repassa
+ * todo o {@code /api/} e um padrão aberto os deixaria expostos na internet.
+ */
+@Component
+public class ProtecaoAdmin implements HandlerInterceptor {
+
+    public static final String CABECALHO_CHAVE_ADMIN = "X-Admin-Key";
+
+    @Value("${api.admin.chave:}")
+    private String chave;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (chave.isBlank()) {
+            throw new AcessoNegadoException("Endpoints administrativos desabilitados: api.admin.chave não configurada");
+        }
+        String recebida = request.getHeader(CABECALHO_CHAVE_ADMIN);
+        // Comparação em tempo constante, para que o tempo de resposta não revele o prefixo correto
+        if (recebida == null || !MessageDigest.isEqual(recebida.getBytes(StandardCharsets.UTF_8),
+                chave.getBytes(StandardCharsets.UTF_8))) {
+            throw new AcessoNegadoException("Chave de administração ausente ou inválida");
+        }
+        return true;
+    }
+}
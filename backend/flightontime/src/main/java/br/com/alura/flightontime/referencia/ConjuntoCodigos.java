@@ -0,0 +1,81 @@
+package br.com.alura.flightontime.referencia;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Conjunto imutável de códigos curtos (ICAO, IATA). Cada código ASCII de até 8 caracteres é empacotado
+ * em um {@code long} e guardado em um array ordenado, então a consulta é uma busca binária sem alocação
+ * e sem objetos por elemento. Códigos fora desse formato, que são raros na base, ficam em um conjunto comum.
+ */
+public final class ConjuntoCodigos {
+
+    private static final int TAMANHO_MAXIMO_EMPACOTADO = 8;
+
+    private final long[] empacotados;
+    private final Set<String> demais;
+
+    private ConjuntoCodigos(long[] empacotados, Set<String> demais) {
+        this.empacotados = empacotados;
+        this.demais = demais;
+    }
+
+    public static ConjuntoCodigos de(Collection<String> codigos) {
+        long[] empacotados = new long[codigos.size()];
+        Set<String> demais = new HashSet<>();
+        int total = 0;
+
+        for (String codigo : codigos) {
+            if (codigo == null || codigo.isEmpty()) continue;
+            long valor = empacota(codigo);
+            if (valor < 0) {
+                demais.add(codigo);
+            } else {
+                empacotados[total++] = valor;
+            }
+        }
+
+        long[] ordenados = Arrays.copyOf(empacotados, total);
+        Arrays.sort(ordenados);
+        return new ConjuntoCodigos(Arrays.stream(ordenados).distinct().toArray(), Set.copyOf(demais));
+    }
+
+    public boolean contem(String codigo) {
+        if (codigo == null || codigo.isEmpty()) return false;
+        long valor = empacota(codigo);
+        return valor < 0 ? demais.contains(codigo) : Arrays.binarySearch(empacotados, valor) >= 0;
+    }
+
+    public int tamanho() {
+        return empacotados.length + demais.size();
+    }
+
+    // 7 bits por caractere, então 8 caracteres ocupam 56 bits e o valor nunca é negativo.
+    // O tamanho entra nos bits mais altos para que "AB" e "AB\0" não colidam.
+    private static long empacota(String codigo) {
+        int tamanho = codigo.length();
+        if (tamanho > TAMANHO_MAXIMO_EMPACOTADO) return -1;
+
+        long valor = tamanho;
+        for (int i = 0; i < tamanho; i++) {
+            char c = codigo.charAt(i);
+            if (c > 0x7F) return -1;
+            valor = (valor << 7) | c;
+        }
+        return valor;
+    }
+
+    @Override
+    public boolean equals(Object outro) {
+        return outro instanceof ConjuntoCodigos conjunto
+                && Arrays.equals(empacotados, conjunto.empacotados)
+                && demais.equals(conjunto.demais);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(empacotados) + demais.hashCode();
+    }
+}
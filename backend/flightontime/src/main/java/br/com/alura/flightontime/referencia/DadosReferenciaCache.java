@@ -0,0 +1,104 @@
+package br.com.alura.flightontime.referencia;
+
+import br.com.alura.flightontime.repository.AeroportoRepository;
+import br.com.alura.flightontime.repository.CompanhiaAereaRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Códigos ICAO válidos de aeroportos e de companhias aéreas ativas, mantidos em memória para que a
+ * validação de uma previsão não precise consultar o banco. É carregado na inicialização e recarregado
+ * periodicamente ou pelo endpoint administrativo.
+ */
+@Component
+public class DadosReferenciaCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(DadosReferenciaCache.class);
+
+    @Autowired
+    private AeroportoRepository aeroportoRepository;
+
+    @Autowired
+    private CompanhiaAereaRepository companhiaAereaRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // ReentrantLock em vez de synchronized: no JDK 21 uma thread virtual que bloqueia em I/O dentro de
+    // um bloco synchronized prende a thread portadora
+    private final ReentrantLock travaRecarga = new ReentrantLock();
+
+    private volatile Dados dados;
+
+    @PostConstruct
+    public void inicializar() {
+        this.dados = carregar(System.currentTimeMillis());
+        logger.info("Dados de referência carregados: {} aeroportos e {} companhias aéreas ativas",
+                dados.aeroportos().tamanho(), dados.companhiasAereasAtivas().tamanho());
+    }
+
+    /**
+     * Relê as tabelas e troca os dados em memória. A versão só muda, e o evento só é publicado,
+     * quando o conteúdo é diferente do que já estava carregado.
+     *
+     * @return {@code true} se os dados mudaram
+     */
+    public boolean recarregar() {
+        travaRecarga.lock();
+        try {
+            Dados atuais = this.dados;
+            Dados novos = carregar(System.currentTimeMillis());
+
+            if (novos.aeroportos().equals(atuais.aeroportos())
+                    && novos.companhiasAereasAtivas().equals(atuais.companhiasAereasAtivas())) {
+                return false;
+            }
+
+            this.dados = novos;
+            logger.info("Dados de referência atualizados para a versão {}", novos.versao());
+            eventPublisher.publishEvent(new DadosReferenciaRecarregadosEvent(novos.versao()));
+            return true;
+        } finally {
+            travaRecarga.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${dados-referencia.recarga.intervalo:PT30M}",
+            initialDelayString = "${dados-referencia.recarga.intervalo:PT30M}")
+    public void recarregarPeriodicamente() {
+        try {
+            recarregar();
+        } catch (RuntimeException ex) {
+            logger.error("Falha ao recarregar dados de referência, mantendo a versão {}: {}", versao(), ex.getMessage());
+        }
+    }
+
+    public boolean aeroportoExiste(String codigoIcao) {
+        return dados.aeroportos().contem(codigoIcao);
+    }
+
+    public boolean companhiaAereaAtiva(String codigoIcao) {
+        return dados.companhiasAereasAtivas().contem(codigoIcao);
+    }
+
+    public long versao() {
+        return dados.versao();
+    }
+
+    private Dados carregar(long versao) {
+        return new Dados(
+                ConjuntoCodigos.de(aeroportoRepository.listaCodigosIcao()),
+                ConjuntoCodigos.de(companhiaAereaRepository.listaCodigosIcaoAtivos()),
+                versao);
+    }
+
+    private record Dados(ConjuntoCodigos aeroportos, ConjuntoCodigos companhiasAereasAtivas, long versao) {
+    }
+}
@@ -0,0 +1,7 @@
+package br.com.alura.flightontime.referencia;
+
+/**
+ * Publicado quando uma recarga encontra aeroportos ou companhias aéreas diferentes dos que estavam em memória.
+ */
+public record DadosReferenciaRecarregadosEvent(long versao) {
+}
@@ -0,0 +1,91 @@
+package br.com.alura.flightontime.service;
+
+import br.com.alura.flightontime.dto.response.ResponseAnaliseAtrasoDTO;
+import br.com.alura.flightontime.infra.exception.ValidacaoDBException;
+import br.com.alura.flightontime.model.PeriodoDia;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Consultas de probabilidade de atraso sobre {@code historico_previsoes_agregados}, mantida a cada lote gravado no
+ * histórico. Como a tabela já está agregada por mês, rota, companhia e hora, uma consulta lê no máximo algumas
+ * milhares de linhas pelos índices, seja qual for o tamanho do histórico.
+ */
+@Service
+public class AnaliseAtrasosService {
+
+    public enum Agrupamento {
+        COMPANHIA("airline_icao"),
+        ORIGEM("origin_icao"),
+        DESTINO("destination_icao"),
+        ROTA("origin_icao || '-' || destination_icao"),
+        HORA("departure_hour::text"),
+        PERIODO("day_period"),
+        MES("to_char(month, 'YYYY-MM')");
+
+        private final String expressao;
+
+        Agrupamento(String expressao) {
+            this.expressao = expressao;
+        }
+
+        public static Agrupamento de(String nome) {
+            try {
+                return valueOf(nome.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new ValidacaoDBException(List.of("Agrupamento inválido: " + nome + ". Use "
+                        + Arrays.stream(values()).map(a -> a.name().toLowerCase(Locale.ROOT)).collect(Collectors.joining(", ")) + "."));
+            }
+        }
+    }
+
+    private static final int LIMITE_MAXIMO = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public List<ResponseAnaliseAtrasoDTO> consultar(Agrupamento agrupamento, YearMonth mes, String origem, String destino,
+                                                    String companhia, long minimoPrevisoes, int limite) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(agrupamento.expressao).append(" AS grupo, ")
+                .append("sum(predictions) AS previsoes, sum(probability_sum) / sum(predictions) AS media, ")
+                .append("sum(high_delay_count)::float8 / sum(predictions) AS altos ")
+                .append("FROM historico_previsoes_agregados WHERE true");
+        List<Object> parametros = new ArrayList<>();
+        if (mes != null) {
+            sql.append(" AND month = ?");
+            parametros.add(Date.valueOf(mes.atDay(1)));
+        }
+        filtrar(sql, parametros, "origin_icao", origem);
+        filtrar(sql, parametros, "destination_icao", destino);
+        filtrar(sql, parametros, "airline_icao", companhia);
+        // As piores primeiro: é a pergunta mais comum ("piores horários em SBSP")
+        sql.append(" GROUP BY 1 HAVING sum(predictions) >= ? ORDER BY media DESC, grupo LIMIT ?");
+        parametros.add(Math.max(1, minimoPrevisoes));
+        parametros.add(Math.clamp(limite, 1, LIMITE_MAXIMO));
+
+        return jdbcTemplate.query(sql.toString(), (linha, numero) -> new ResponseAnaliseAtrasoDTO(
+                agrupamento == Agrupamento.PERIODO ? PeriodoDia.valueOf(linha.getString("grupo")).getPeriodo() : linha.getString("grupo"),
+                linha.getLong("previsoes"),
+                arredondar(linha.getDouble("media")),
+                arredondar(linha.getDouble("altos"))), parametros.toArray());
+    }
+
+    private static void filtrar(StringBuilder sql, List<Object> parametros, String coluna, String valor) {
+        if (valor == null || valor.isBlank()) return;
+        sql.append(" AND ").append(coluna).append(" = ?");
+        parametros.add(valor.strip().toUpperCase(Locale.ROOT));
+    }
+
+    private static double arredondar(double valor) {
+        return Math.round(valor * 10_000) / 10_000.0;
+    }
+}
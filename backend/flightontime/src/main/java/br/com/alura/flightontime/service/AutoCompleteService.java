@@ -1,47 +1,128 @@
 package br.com.alura.flightontime.service;
 
+import br.com.alura.flightontime.busca.DicionarioAutoComplete;
+import br.com.alura.flightontime.busca.IndiceAeroportos;
+import br.com.alura.flightontime.busca.IndiceCompanhiasAereas;
+import br.com.alura.flightontime.busca.NormalizadorTexto;
+import br.com.alura.flightontime.busca.GradeGeografica;
+import br.com.alura.flightontime.dto.response.ResponseAeroportoProximoDTO;
 import br.com.alura.flightontime.dto.response.ResponseAutoCompleteAeroportoDTO;
 import br.com.alura.flightontime.dto.response.ResponseAutoCompleteCompanhiaAereaDTO;
-import br.com.alura.flightontime.model.Aeroporto;
-import br.com.alura.flightontime.model.CompanhiaAerea;
-import br.com.alura.flightontime.repository.AeroportoRepository;
-import br.com.alura.flightontime.repository.CompanhiaAereaRepository;
+import br.com.alura.flightontime.infra.cache.CacheAutoComplete;
+import br.com.alura.flightontime.infra.exception.ValidacaoDBException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Service
 public class AutoCompleteService {
 
     @Autowired
-    private AeroportoRepository aeroportoRepository;
+    private IndiceAeroportos indiceAeroportos;
 
     @Autowired
-    private CompanhiaAereaRepository companhiaAereaRepository;
+    private IndiceCompanhiasAereas indiceCompanhiasAereas;
 
-    public List<ResponseAutoCompleteAeroportoDTO> autoCompleteAeroportos(String termo) {
-        Pageable limite = PageRequest.of(0, 5);
+    @Autowired
+    private CacheAutoComplete cacheAutoComplete;
+
+    @Autowired
+    private DicionarioAutoComplete dicionarioAutoComplete;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public static final double RAIO_MAXIMO_KM = 1000;
+    public static final int LIMITE_MAXIMO_PROXIMOS = 50;
+
+    private static final Duration[] BUCKETS = {
+            Duration.ofNanos(10_000), Duration.ofNanos(25_000), Duration.ofNanos(50_000), Duration.ofNanos(100_000),
+            Duration.ofNanos(250_000), Duration.ofNanos(500_000), Duration.ofMillis(1), Duration.ofMillis(5),
+            Duration.ofMillis(10), Duration.ofMillis(50)};
 
-        List<Aeroporto> aeroportosEncontrados = aeroportoRepository.buscaAutoComplete(termo, limite);
-        List<ResponseAutoCompleteAeroportoDTO> resultados = new ArrayList<>();
-        aeroportosEncontrados.forEach(aeroporto -> {
-            resultados.add(new ResponseAutoCompleteAeroportoDTO(aeroporto.getNomeAeroporto(), aeroporto.getCodigoIata(), aeroporto.getCodigoIcao(), aeroporto.getLatitude(), aeroporto.getLongitude()));
-        });
-        return resultados;
+    // [com resultados, sem resultados]
+    private Timer[] buscasAeroportos;
+    private Timer[] buscasCompanhias;
+    private Timer[] buscasProximos;
+
+    @PostConstruct
+    public void registrarMetricas() {
+        buscasAeroportos = timers("aeroportos");
+        buscasCompanhias = timers("companhias");
+        buscasProximos = timers("aeroportos-proximos");
+    }
+
+    // Só as buscas que não estavam no cache passam pelos timers; os acertos aparecem nas métricas do cache
+    public List<ResponseAutoCompleteAeroportoDTO> autoCompleteAeroportos(String termo) {
+        return cacheAutoComplete.obter("aeroportos", indiceAeroportos.versao(), NormalizadorTexto.normalizar(termo),
+                () -> medir(buscasAeroportos, () -> indiceAeroportos.buscar(termo, 5)));
     }
 
     public List<ResponseAutoCompleteCompanhiaAereaDTO> autoCompleteCompanhiaAerea(String termo) {
-        Pageable limite = PageRequest.of(0, 5);
-        List<CompanhiaAerea> companhiaAereasEncontradas = companhiaAereaRepository.buscaAutoComplete(termo, limite);
-        List<ResponseAutoCompleteCompanhiaAereaDTO> resultados = new ArrayList<>();
-
-        companhiaAereasEncontradas.forEach(c -> {
-            resultados.add(new ResponseAutoCompleteCompanhiaAereaDTO(c.getNome(), c.getCodigoIata(), c.getCodigoIcao()));
-        });
-        return resultados;
+        return cacheAutoComplete.obter("companhias", indiceCompanhiasAereas.versao(), NormalizadorTexto.normalizar(termo),
+                () -> medir(buscasCompanhias, () -> indiceCompanhiasAereas.buscar(termo, 5)));
+    }
+
+    /** Dicionário para o autocomplete no cliente: as diferenças desde a versão informada, se ainda retida, ou o completo. */
+    public DicionarioAutoComplete.Pacote dicionario(String desde) {
+        return dicionarioAutoComplete.pacote(desde);
+    }
+
+    /**
+     * ETag forte da resposta do autocomplete: muda quando o conteúdo do índice muda e é igual para termos com
+     * a mesma normalização, em qualquer instância do backend.
+     */
+    public String etagAeroportos(String termo) {
+        return etag("a", indiceAeroportos.versao(), termo);
+    }
+
+    public String etagCompanhiasAereas(String termo) {
+        return etag("c", indiceCompanhiasAereas.versao(), termo);
+    }
+
+    private static String etag(String prefixo, long versao, String termo) {
+        return "\"" + prefixo + Long.toHexString(versao) + "-" + Integer.toHexString(NormalizadorTexto.normalizar(termo).hashCode()) + "\"";
+    }
+
+    public List<ResponseAeroportoProximoDTO> aeroportosProximos(double latitude, double longitude, double raioKm, int limite) {
+        List<String> erros = new ArrayList<>();
+        if (!GradeGeografica.coordenadasValidas(latitude, longitude)) {
+            erros.add("Latitude deve estar entre -90 e 90 e longitude entre -180 e 180.");
+        }
+        if (!(raioKm > 0 && raioKm <= RAIO_MAXIMO_KM)) {
+            erros.add("O raio deve ser maior que 0 e de no máximo " + (int) RAIO_MAXIMO_KM + " km.");
+        }
+        if (!erros.isEmpty()) throw new ValidacaoDBException(erros);
+
+        return medir(buscasProximos, () -> indiceAeroportos.proximos(latitude, longitude, raioKm,
+                Math.clamp(limite, 1, LIMITE_MAXIMO_PROXIMOS)));
+    }
+
+    private static <T> List<T> medir(Timer[] timers, Supplier<List<T>> busca) {
+        long inicio = System.nanoTime();
+        List<T> resultado = busca.get();
+        timers[resultado.isEmpty() ? 1 : 0].record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        return resultado;
+    }
+
+    private Timer[] timers(String indice) {
+        return new Timer[]{timer(indice, "encontrado"), timer(indice, "vazio")};
+    }
+
+    private Timer timer(String indice, String resultado) {
+        return Timer.builder("autocomplete.busca")
+                .description("Duração das buscas do autocomplete no índice em memória")
+                .tag("indice", indice)
+                .tag("resultado", resultado)
+                .serviceLevelObjectives(BUCKETS)
+                .register(meterRegistry);
     }
 }
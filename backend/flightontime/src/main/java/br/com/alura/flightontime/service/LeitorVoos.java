@@ -0,0 +1,173 @@
+package br.com.alura.flightontime.service;
+
+import br.com.alura.flightontime.dto.request.HorarioPartida;
+import br.com.alura.flightontime.dto.request.RequestPrevisaoDTO;
+import br.com.alura.flightontime.infra.exception.ValidacaoDBException;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Lê voos de um corpo NDJSON (um {@link RequestPrevisaoDTO} por linha) ou CSV com cabeçalho, sem carregar o
+ * arquivo inteiro: cada chamada a {@link #proximaJanela(int)} consome apenas as linhas da janela. Uma linha
+ * que não pode ser interpretada vira {@code null} na janela, e o lote a reporta como item com erro.
+ *
+ * <p>As linhas têm no máximo {@value #TAMANHO_MAXIMO_LINHA} caracteres, bem mais que um voo ocupa. O resto de
+ * uma linha maior é descartado sem ser guardado e ela vira um item com erro, então um corpo sem quebras de
+ * linha não acumula na memória.
+ */
+abstract class LeitorVoos {
+
+    static final int TAMANHO_MAXIMO_LINHA = 4096;
+
+    // Devolvida no lugar de uma linha longa demais; comparada por identidade
+    private static final String LINHA_LONGA = new String("linha longa demais");
+
+    private final BufferedReader leitor;
+    private final StringBuilder linhaAtual = new StringBuilder(256);
+
+    private LeitorVoos(InputStream entrada) {
+        this.leitor = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+    }
+
+    static LeitorVoos ndjson(InputStream entrada, ObjectReader leitorJson) {
+        return new LeitorVoos(entrada) {
+            @Override
+            RequestPrevisaoDTO interpretar(String linha) {
+                try {
+                    return leitorJson.readValue(linha);
+                } catch (JacksonException ex) {
+                    return null;
+                }
+            }
+        };
+    }
+
+    /**
+     * O cabeçalho indica a ordem das colunas {@code codigoIcaoCompanhiaAerea}, {@code codigoIcaoVooOrigem},
+     * {@code codigoIcaoVooDestino} e {@code dataPartida}; o separador pode ser vírgula ou ponto e vírgula.
+     */
+    static LeitorVoos csv(InputStream entrada) throws IOException {
+        var leitorCsv = new LeitorCsv(entrada);
+        leitorCsv.lerCabecalho();
+        return leitorCsv;
+    }
+
+    /** Até {@code tamanho} voos; lista vazia quando o corpo terminou. Linhas em branco são ignoradas. */
+    List<RequestPrevisaoDTO> proximaJanela(int tamanho) throws IOException {
+        List<RequestPrevisaoDTO> janela = new ArrayList<>(tamanho);
+        String linha;
+        while (janela.size() < tamanho && (linha = proximaLinha()) != null) {
+            janela.add(linha == LINHA_LONGA ? null : interpretar(linha));
+        }
+        return janela;
+    }
+
+    abstract RequestPrevisaoDTO interpretar(String linha);
+
+    String proximaLinha() throws IOException {
+        String linha;
+        do {
+            linha = lerLinha();
+        } while (linha != null && linha != LINHA_LONGA && linha.isBlank());
+        return linha;
+    }
+
+    /** Como {@link BufferedReader#readLine()}, mas sem guardar mais que {@link #TAMANHO_MAXIMO_LINHA} caracteres. */
+    private String lerLinha() throws IOException {
+        linhaAtual.setLength(0);
+        boolean longa = false;
+        int c;
+        while ((c = leitor.read()) != -1 && c != '\n') {
+            if (linhaAtual.length() < TAMANHO_MAXIMO_LINHA) {
+                linhaAtual.append((char) c);
+            } else {
+                longa = true;
+            }
+        }
+        if (c == -1 && linhaAtual.isEmpty() && !longa) return null;
+        if (longa) return LINHA_LONGA;
+        int fim = linhaAtual.length();
+        if (fim > 0 && linhaAtual.charAt(fim - 1) == '\r') fim--;
+        return linhaAtual.substring(0, fim);
+    }
+
+    private static final class LeitorCsv extends LeitorVoos {
+
+        private static final List<String> COLUNAS = List.of(
+                "codigoIcaoCompanhiaAerea", "codigoIcaoVooOrigem", "codigoIcaoVooDestino", "dataPartida");
+
+        // Posição de cada coluna de COLUNAS na linha
+        private final int[] posicoes = new int[COLUNAS.size()];
+        private String separador;
+
+        private LeitorCsv(InputStream entrada) {
+            super(entrada);
+        }
+
+        private void lerCabecalho() throws IOException {
+            String cabecalho = proximaLinha();
+            if (cabecalho == null) {
+                throw new ValidacaoDBException(List.of("O arquivo CSV está vazio."));
+            }
+            if (cabecalho == LINHA_LONGA) {
+                throw new ValidacaoDBException(List.of("O cabeçalho do CSV passa de " + TAMANHO_MAXIMO_LINHA + " caracteres."));
+            }
+            // Remove o BOM que planilhas costumam gravar no início do arquivo
+            if (cabecalho.startsWith("﻿")) cabecalho = cabecalho.substring(1);
+            separador = cabecalho.contains(";") ? ";" : ",";
+
+            List<String> nomes = new ArrayList<>();
+            for (String nome : cabecalho.split(separador, -1)) {
+                nomes.add(limpar(nome).toLowerCase(Locale.ROOT));
+            }
+            List<String> ausentes = new ArrayList<>();
+            for (int i = 0; i < COLUNAS.size(); i++) {
+                posicoes[i] = nomes.indexOf(COLUNAS.get(i).toLowerCase(Locale.ROOT));
+                if (posicoes[i] < 0) ausentes.add(COLUNAS.get(i));
+            }
+            if (!ausentes.isEmpty()) {
+                throw new ValidacaoDBException(List.of("Colunas ausentes no cabeçalho do CSV: " + String.join(", ", ausentes)));
+            }
+        }
+
+        @Override
+        RequestPrevisaoDTO interpretar(String linha) {
+            String[] campos = linha.split(separador, -1);
+            for (int posicao : posicoes) {
+                if (posicao >= campos.length) return null;
+            }
+            try {
+                String dataPartida = limpar(campos[posicoes[3]]);
+                return new RequestPrevisaoDTO(
+                        vazioComoNulo(limpar(campos[posicoes[0]])),
+                        vazioComoNulo(limpar(campos[posicoes[1]])),
+                        vazioComoNulo(limpar(campos[posicoes[2]])),
+                        dataPartida.isEmpty() ? null : HorarioPartida.de(dataPartida));
+            } catch (DateTimeParseException ex) {
+                return null;
+            }
+        }
+
+        private static String limpar(String campo) {
+            String limpo = campo.strip();
+            if (limpo.length() >= 2 && limpo.startsWith("\"") && limpo.endsWith("\"")) {
+                limpo = limpo.substring(1, limpo.length() - 1).strip();
+            }
+            return limpo;
+        }
+
+        private static String vazioComoNulo(String campo) {
+            return campo.isEmpty() ? null : campo;
+        }
+    }
+}
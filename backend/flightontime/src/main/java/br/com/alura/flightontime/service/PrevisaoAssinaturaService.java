@@ -0,0 +1,373 @@
+package br.com.alura.flightontime.service;
+
+import br.com.alura.flightontime.dto.request.RequestPrevisaoDTO;
+import br.com.alura.flightontime.dto.request.RequestPrevisaoDataScienceDTO;
+import br.com.alura.flightontime.dto.response.ResponsePrevisaoDTO;
+import br.com.alura.flightontime.dto.response.ResponsePrevisaoLoteItemDTO;
+import br.com.alura.flightontime.infra.client.VersaoModeloAlteradaEvent;
+import br.com.alura.flightontime.infra.exception.LimiteConcorrenciaExcedidoException;
+import br.com.alura.flightontime.infra.exception.ValidacaoDBException;
+import br.com.alura.flightontime.referencia.DadosReferenciaRecarregadosEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Assinaturas de previsões por Server-Sent Events. Cada voo assinado fica ligado ao seu vetor de features, e
+ * todos os voos com o mesmo vetor, de qualquer assinatura, compartilham uma única previsão: os recálculos
+ * percorrem só os vetores distintos, em lotes, e cada assinante recebe um evento apenas quando a previsão de
+ * algum voo seu muda.
+ *
+ * <p>Os vetores são recalculados quando a versão do modelo muda, quando os dados de referência são recarregados
+ * (o fuso da origem pode mudar e, com ele, a hora e o período do dia da partida) e periodicamente, para pegar
+ * as demais mudanças, como uma nova tabela pré-calculada. Os envios rodam em threads virtuais e um cliente
+ * lento só acumula quais voos mudaram: quando ele volta a ler, recebe a previsão mais recente de cada um.
+ */
+@Service
+public class PrevisaoAssinaturaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrevisaoAssinaturaService.class);
+
+    private static final String EVENTO = "previsoes";
+
+    @Autowired
+    private PrevisaoVooService previsaoVooService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${api.previsao.assinaturas.maximo:20000}")
+    private int maximoAssinaturas;
+
+    // Depois desse tempo o stream é encerrado e o cliente assina de novo
+    @Value("${api.previsao.assinaturas.duracao:PT30M}")
+    private Duration duracao;
+
+    @Value("${api.previsao.lote.tamanho-maximo:500}")
+    private int tamanhoMaximoLote;
+
+    @Value("${api.previsao.lote.tamanho-chamada:100}")
+    private int tamanhoChamadaModelo;
+
+    private final Map<RequestPrevisaoDataScienceDTO, Vetor> vetores = new ConcurrentHashMap<>();
+    private final Set<Assinatura> assinaturas = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean recalculoAgendado = new AtomicBoolean();
+    private final AtomicBoolean reindexacaoPendente = new AtomicBoolean();
+
+    private ExecutorService envios;
+    private ExecutorService recalculos;
+    private Counter eventos;
+
+    @PostConstruct
+    public void iniciar() {
+        envios = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("assinatura-", 0).factory());
+        recalculos = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("assinaturas-recalculo").factory());
+        Gauge.builder("previsao.assinaturas.abertas", assinaturas, Set::size)
+                .description("Streams de assinatura de previsões abertos")
+                .register(meterRegistry);
+        Gauge.builder("previsao.assinaturas.vetores", vetores, Map::size)
+                .description("Vetores de features distintos acompanhados pelas assinaturas")
+                .register(meterRegistry);
+        eventos = Counter.builder("previsao.assinaturas.eventos")
+                .description("Eventos enviados às assinaturas")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        recalculos.shutdownNow();
+        assinaturas.forEach(assinatura -> assinatura.emitter.complete());
+        envios.shutdown();
+    }
+
+    /**
+     * Abre a assinatura dos voos. O primeiro evento traz a previsão ou os erros de cada voo; os seguintes, só os
+     * voos cuja previsão mudou. Voos inválidos não são acompanhados.
+     */
+    public SseEmitter assinar(List<RequestPrevisaoDTO> voos) {
+        if (voos == null || voos.isEmpty()) {
+            throw new ValidacaoDBException(List.of("A assinatura deve conter ao menos um voo."));
+        }
+        if (voos.size() > tamanhoMaximoLote) {
+            throw new ValidacaoDBException(List.of("A assinatura deve conter no máximo " + tamanhoMaximoLote + " voos."));
+        }
+        if (assinaturas.size() >= maximoAssinaturas) {
+            throw new LimiteConcorrenciaExcedidoException("Limite de assinaturas abertas atingido");
+        }
+
+        var assinatura = new Assinatura(new SseEmitter(duracao.toMillis()), voos.size());
+        for (int i = 0; i < voos.size(); i++) {
+            List<String> erros = previsaoVooService.validarItem(voos.get(i));
+            if (erros.isEmpty()) {
+                assinatura.inscricoes[i] = new Inscricao(assinatura, i, voos.get(i), previsaoVooService.chave(voos.get(i)));
+            } else {
+                assinatura.iniciais.add(new ResponsePrevisaoLoteItemDTO(i, null, erros));
+            }
+        }
+        if (assinatura.iniciais.size() == voos.size()) {
+            // Nenhum voo válido: só os erros, sem nada a acompanhar
+            try {
+                assinatura.emitter.send(SseEmitter.event().name(EVENTO).data(assinatura.iniciais, MediaType.APPLICATION_JSON));
+                assinatura.emitter.complete();
+            } catch (IOException ex) {
+                assinatura.emitter.completeWithError(ex);
+            }
+            return assinatura.emitter;
+        }
+
+        assinatura.emitter.onTimeout(assinatura.emitter::complete);
+        assinatura.emitter.onCompletion(() -> this.remover(assinatura));
+        assinatura.emitter.onError(erro -> this.remover(assinatura));
+
+        assinaturas.add(assinatura);
+        Set<Vetor> semPrevisao = new LinkedHashSet<>();
+        for (Inscricao inscricao : assinatura.inscricoes) {
+            if (inscricao == null) continue;
+            this.inscrever(inscricao);
+            if (inscricao.vetor.estado == null) {
+                semPrevisao.add(inscricao.vetor);
+            } else {
+                assinatura.marcar(inscricao.indice);
+            }
+        }
+        // Os voos com previsão já calculada para outro assinante são enviados sem nova consulta ao modelo
+        this.atualizar(new ArrayList<>(semPrevisao));
+        assinatura.liberada = true;
+        assinatura.agendarEnvio();
+        return assinatura.emitter;
+    }
+
+    @EventListener(VersaoModeloAlteradaEvent.class)
+    public void aoAlterarVersaoModelo() {
+        this.agendarRecalculo(false);
+    }
+
+    @EventListener(DadosReferenciaRecarregadosEvent.class)
+    public void aoRecarregarDadosReferencia() {
+        this.agendarRecalculo(true);
+    }
+
+    @Scheduled(fixedDelayString = "${api.previsao.assinaturas.intervalo:PT1M}",
+            initialDelayString = "${api.previsao.assinaturas.intervalo:PT1M}")
+    public void recalcularPeriodicamente() {
+        this.agendarRecalculo(false);
+    }
+
+    // Comentário vazio para proxies e clientes não derrubarem streams sem mudanças
+    @Scheduled(fixedDelayString = "${api.previsao.assinaturas.heartbeat:PT30S}")
+    public void enviarHeartbeat() {
+        for (Assinatura assinatura : assinaturas) {
+            assinatura.heartbeat = true;
+            assinatura.agendarEnvio();
+        }
+    }
+
+    /** Junta pedidos de recálculo feitos enquanto outro ainda não começou em uma única execução. */
+    private void agendarRecalculo(boolean reindexar) {
+        if (reindexar) reindexacaoPendente.set(true);
+        if (recalculoAgendado.compareAndSet(false, true)) {
+            recalculos.execute(this::recalcular);
+        }
+    }
+
+    private void recalcular() {
+        recalculoAgendado.set(false);
+        try {
+            long inicio = System.nanoTime();
+            if (reindexacaoPendente.getAndSet(false)) {
+                this.reindexar();
+            }
+            this.atualizar(new ArrayList<>(vetores.values()));
+            logger.debug("{} vetores das assinaturas recalculados em {} ms", vetores.size(),
+                    (System.nanoTime() - inicio) / 1_000_000);
+        } catch (RuntimeException ex) {
+            logger.warn("Falha ao recalcular as previsões das assinaturas: {}", ex.getMessage());
+        }
+    }
+
+    /** Move para outro vetor os voos cujas features mudaram com os novos dados de referência. */
+    private void reindexar() {
+        for (Assinatura assinatura : assinaturas) {
+            for (Inscricao inscricao : assinatura.inscricoes) {
+                if (inscricao == null) continue;
+                var chave = previsaoVooService.chave(inscricao.voo);
+                if (chave.equals(inscricao.chave)) continue;
+
+                Estado anterior = inscricao.vetor.estado;
+                this.desinscrever(inscricao);
+                inscricao.chave = chave;
+                this.inscrever(inscricao);
+                Estado atual = inscricao.vetor.estado;
+                if (atual != null && !atual.equals(anterior)) assinatura.marcar(inscricao.indice);
+            }
+        }
+    }
+
+    /** Recalcula os vetores em lotes e avisa os assinantes dos que mudaram. */
+    private void atualizar(List<Vetor> lista) {
+        for (int inicio = 0; inicio < lista.size(); inicio += tamanhoMaximoLote) {
+            var janela = lista.subList(inicio, Math.min(inicio + tamanhoMaximoLote, lista.size()));
+            var respostas = previsaoVooService.consultaModeloEmLote(
+                    janela.stream().map(vetor -> vetor.chave).toList(), tamanhoChamadaModelo);
+            for (Vetor vetor : janela) {
+                Estado novo;
+                try {
+                    novo = new Estado(previsaoVooService.converteParaResponsePrevisaoDTO(respostas.get(vetor.chave).join()), List.of());
+                } catch (RuntimeException ex) {
+                    // Uma falha passageira não substitui uma previsão já enviada
+                    if (vetor.estado != null && vetor.estado.previsao() != null) continue;
+                    Throwable causa = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    novo = new Estado(null, List.of(previsaoVooService.mensagemErro(causa)));
+                }
+                if (novo.equals(vetor.estado)) continue;
+                vetor.estado = novo;
+                vetor.inscricoes.forEach(inscricao -> inscricao.assinatura.marcar(inscricao.indice));
+            }
+        }
+    }
+
+    private void inscrever(Inscricao inscricao) {
+        inscricao.vetor = vetores.compute(inscricao.chave, (chave, vetor) -> {
+            Vetor atual = vetor == null ? new Vetor(chave) : vetor;
+            atual.inscricoes.add(inscricao);
+            return atual;
+        });
+    }
+
+    private void desinscrever(Inscricao inscricao) {
+        vetores.computeIfPresent(inscricao.chave, (chave, vetor) -> {
+            vetor.inscricoes.remove(inscricao);
+            return vetor.inscricoes.isEmpty() ? null : vetor;
+        });
+    }
+
+    private void remover(Assinatura assinatura) {
+        if (!assinaturas.remove(assinatura)) return;
+        for (Inscricao inscricao : assinatura.inscricoes) {
+            if (inscricao != null) this.desinscrever(inscricao);
+        }
+    }
+
+    private record Estado(ResponsePrevisaoDTO previsao, List<String> erros) {
+    }
+
+    private static final class Vetor {
+        final RequestPrevisaoDataScienceDTO chave;
+        final Set<Inscricao> inscricoes = ConcurrentHashMap.newKeySet();
+        volatile Estado estado;
+
+        Vetor(RequestPrevisaoDataScienceDTO chave) {
+            this.chave = chave;
+        }
+    }
+
+    private static final class Inscricao {
+        final Assinatura assinatura;
+        final int indice;
+        final RequestPrevisaoDTO voo;
+        volatile RequestPrevisaoDataScienceDTO chave;
+        volatile Vetor vetor;
+
+        Inscricao(Assinatura assinatura, int indice, RequestPrevisaoDTO voo, RequestPrevisaoDataScienceDTO chave) {
+            this.assinatura = assinatura;
+            this.indice = indice;
+            this.voo = voo;
+            this.chave = chave;
+        }
+    }
+
+    private final class Assinatura {
+        final SseEmitter emitter;
+        final Inscricao[] inscricoes;
+        // Erros de validação, enviados só no primeiro evento
+        final List<ResponsePrevisaoLoteItemDTO> iniciais = new ArrayList<>();
+        // Voos com previsão a enviar; o valor é lido do vetor na hora do envio, então só vai o mais recente
+        final Set<Integer> pendentes = ConcurrentHashMap.newKeySet();
+        final AtomicBoolean enviando = new AtomicBoolean();
+        volatile boolean heartbeat;
+        // Até o primeiro evento estar completo, as mudanças só se acumulam
+        volatile boolean liberada;
+
+        Assinatura(SseEmitter emitter, int voos) {
+            this.emitter = emitter;
+            this.inscricoes = new Inscricao[voos];
+        }
+
+        void marcar(int indice) {
+            pendentes.add(indice);
+            this.agendarEnvio();
+        }
+
+        /** Só um envio por assinatura roda de cada vez; o que chegar enquanto isso vai no próximo. */
+        void agendarEnvio() {
+            if (liberada && enviando.compareAndSet(false, true)) {
+                envios.execute(this::enviar);
+            }
+        }
+
+        private void enviar() {
+            do {
+                try {
+                    this.enviarPendentes();
+                } catch (IOException | IllegalStateException ex) {
+                    // Cliente desconectado ou stream já encerrado
+                    emitter.completeWithError(ex);
+                    remover(this);
+                    return;
+                } finally {
+                    enviando.set(false);
+                }
+            } while ((!pendentes.isEmpty() || heartbeat) && enviando.compareAndSet(false, true));
+        }
+
+        private void enviarPendentes() throws IOException {
+            List<ResponsePrevisaoLoteItemDTO> itens = new ArrayList<>();
+            if (!iniciais.isEmpty()) {
+                itens.addAll(iniciais);
+                iniciais.clear();
+            }
+            for (Iterator<Integer> iterador = pendentes.iterator(); iterador.hasNext(); ) {
+                int indice = iterador.next();
+                iterador.remove();
+                Estado estado = inscricoes[indice].vetor.estado;
+                if (estado != null) itens.add(new ResponsePrevisaoLoteItemDTO(indice, estado.previsao(), estado.erros()));
+            }
+
+            if (!itens.isEmpty()) {
+                itens.sort(Comparator.comparingInt(ResponsePrevisaoLoteItemDTO::indice));
+                emitter.send(SseEmitter.event().name(EVENTO).data(itens, MediaType.APPLICATION_JSON));
+                eventos.increment();
+                heartbeat = false;
+            } else if (heartbeat) {
+                heartbeat = false;
+                emitter.send(SseEmitter.event().comment(""));
+            }
+        }
+    }
+}
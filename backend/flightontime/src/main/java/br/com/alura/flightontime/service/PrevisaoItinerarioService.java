@@ -0,0 +1,177 @@
+package br.com.alura.flightontime.service;
+
+import br.com.alura.flightontime.busca.IndiceAeroportos;
+import br.com.alura.flightontime.dto.request.RequestItinerarioDTO;
+import br.com.alura.flightontime.dto.request.RequestPrevisaoDTO;
+import br.com.alura.flightontime.dto.request.RequestPrevisaoDataScienceDTO;
+import br.com.alura.flightontime.dto.response.ResponseConexaoDTO;
+import br.com.alura.flightontime.dto.response.ResponsePrevisaoDTO;
+import br.com.alura.flightontime.dto.response.ResponsePrevisaoItinerarioDTO;
+import br.com.alura.flightontime.infra.exception.ServicoExternoIndisponivelException;
+import br.com.alura.flightontime.infra.exception.ValidacaoDBException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Previsão de itinerários com conexões. Todos os trechos são validados antes de qualquer previsão e previstos
+ * em paralelo no executor das chamadas ao modelo, com um prazo único para o itinerário, então a latência fica
+ * perto da do trecho mais lento.
+ *
+ * <p>O risco de cada conexão combina a probabilidade de atraso do trecho que chega com a folga até a partida
+ * do seguinte: supõe-se que, atrasado, o voo passa do limite de 15 minutos por um tempo com distribuição
+ * exponencial de média {@code api.previsao.itinerario.atraso-medio}. A chegada é estimada pela distância da
+ * rota. O itinerário atrasa se o último trecho atrasar ou se alguma conexão for perdida, tratando os eventos
+ * como independentes.
+ *
+ * <p>Esgotado o prazo, os trechos que ainda esperavam na fila do executor são cancelados e nem chegam a chamar o
+ * modelo. Os que já estavam em andamento não são interrompidos, já que a resposta pode servir a outras requisições
+ * pelo cache de previsões: continuam ocupando a thread e a vaga de chamada ao modelo até terminar, no máximo pelo
+ * timeout de leitura do serviço de previsão, mesmo depois de o cliente ter recebido o {@code 503}.
+ */
+@Service
+public class PrevisaoItinerarioService {
+
+    private static final double MINUTOS_LIMITE_ATRASO = 15;
+    // Taxiamento, subida e descida somados ao tempo de cruzeiro na estimativa da chegada
+    private static final double MINUTOS_SOLO = 30;
+    private static final double VELOCIDADE_CRUZEIRO_KMH = 800;
+    private static final double MINUTOS_VOO_SEM_DISTANCIA = 120;
+
+    @Autowired
+    private PrevisaoVooService previsaoVooService;
+
+    @Autowired
+    private IndiceAeroportos indiceAeroportos;
+
+    @Autowired
+    @Qualifier("executorChamadasModelo")
+    private Executor executorChamadasModelo;
+
+    @Value("${api.previsao.itinerario.trechos-maximo:6}")
+    private int trechosMaximo;
+
+    @Value("${api.previsao.itinerario.prazo:PT5S}")
+    private Duration prazo;
+
+    @Value("${api.previsao.itinerario.conexao-minima:PT45M}")
+    private Duration conexaoMinima;
+
+    @Value("${api.previsao.itinerario.atraso-medio:PT45M}")
+    private Duration atrasoMedio;
+
+    public ResponsePrevisaoItinerarioDTO previsao(RequestItinerarioDTO requisicao) {
+        long limite = System.nanoTime() + prazo.toNanos();
+        List<RequestPrevisaoDTO> trechos = requisicao == null ? null : requisicao.trechos();
+        this.validar(trechos);
+
+        List<RequestPrevisaoDataScienceDTO> chaves = trechos.stream().map(previsaoVooService::chave).toList();
+        List<CompletableFuture<ResponsePrevisaoDTO>> previsoes = chaves.stream()
+                .map(chave -> CompletableFuture.supplyAsync(() -> previsaoVooService.previsaoValidada(chave), executorChamadasModelo))
+                .toList();
+        List<ResponsePrevisaoDTO> resultados = this.aguardar(previsoes, limite);
+
+        List<ResponseConexaoDTO> conexoes = new ArrayList<>(trechos.size() - 1);
+        double semProblema = 1 - resultados.getLast().probabilidadeAtrasoPercentual();
+        for (int i = 0; i < trechos.size() - 1; i++) {
+            var conexao = this.conexao(trechos.get(i), chaves.get(i), trechos.get(i + 1),
+                    resultados.get(i).probabilidadeAtrasoPercentual());
+            conexoes.add(conexao);
+            semProblema *= 1 - conexao.probabilidadePerderConexao();
+        }
+
+        double probabilidade = Math.clamp(1 - semProblema, 0, 1);
+        return new ResponsePrevisaoItinerarioDTO(previsaoVooService.nomePrevisaoAtraso(probabilidade), probabilidade,
+                resultados, conexoes);
+    }
+
+    /** Valida todos os trechos e a sequência entre eles, juntando os erros de todos em uma só resposta. */
+    private void validar(List<RequestPrevisaoDTO> trechos) {
+        if (trechos == null || trechos.isEmpty()) {
+            throw new ValidacaoDBException(List.of("O itinerário deve conter ao menos um trecho."));
+        }
+        if (trechos.size() > trechosMaximo) {
+            throw new ValidacaoDBException(List.of("O itinerário deve conter no máximo " + trechosMaximo + " trechos."));
+        }
+
+        List<String> erros = new ArrayList<>();
+        boolean trechosValidos = true;
+        for (int i = 0; i < trechos.size(); i++) {
+            List<String> errosTrecho = previsaoVooService.validarItem(trechos.get(i));
+            trechosValidos &= errosTrecho.isEmpty();
+            for (String erro : errosTrecho) {
+                erros.add("Trecho " + (i + 1) + ": " + erro);
+            }
+        }
+        // A sequência só é conferida com todos os trechos completos e existentes
+        if (trechosValidos) {
+            for (int i = 1; i < trechos.size(); i++) {
+                var anterior = trechos.get(i - 1);
+                var trecho = trechos.get(i);
+                if (!trecho.codigoIcaoVooOrigem().equals(anterior.codigoIcaoVooDestino())) {
+                    erros.add("Trecho " + (i + 1) + ": a origem deve ser o destino do trecho anterior.");
+                }
+                if (!this.partida(trecho).isAfter(this.partida(anterior))) {
+                    erros.add("Trecho " + (i + 1) + ": a partida deve ser posterior à do trecho anterior.");
+                }
+            }
+        }
+
+        if (!erros.isEmpty()) {
+            throw new ValidacaoDBException(erros);
+        }
+    }
+
+    private List<ResponsePrevisaoDTO> aguardar(List<CompletableFuture<ResponsePrevisaoDTO>> previsoes, long limite) {
+        try {
+            CompletableFuture.allOf(previsoes.toArray(CompletableFuture[]::new))
+                    .get(limite - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            // Só evita as chamadas que ainda não começaram; as em andamento terminam em segundo plano
+            previsoes.forEach(previsao -> previsao.cancel(false));
+            throw new ServicoExternoIndisponivelException("Tempo esgotado ao calcular a previsão do itinerário", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServicoExternoIndisponivelException("Previsão do itinerário interrompida", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException causa) throw causa;
+            throw new IllegalStateException(ex.getCause());
+        }
+        return previsoes.stream().map(CompletableFuture::join).toList();
+    }
+
+    private ResponseConexaoDTO conexao(RequestPrevisaoDTO chegada, RequestPrevisaoDataScienceDTO chaveChegada,
+                                       RequestPrevisaoDTO partida, double probabilidadeAtrasoChegada) {
+        double minutosVoo = chaveChegada.distanciaKm() == null
+                ? MINUTOS_VOO_SEM_DISTANCIA
+                : MINUTOS_SOLO + chaveChegada.distanciaKm() / VELOCIDADE_CRUZEIRO_KMH * 60;
+        double intervalo = Duration.between(this.partida(chegada), this.partida(partida)).toSeconds() / 60.0;
+        double folga = intervalo - minutosVoo - conexaoMinima.toMinutes();
+
+        double probabilidadePerder;
+        if (folga < 0) {
+            // Nem com o voo no horário dá tempo
+            probabilidadePerder = 1;
+        } else {
+            // P(atraso > folga | atrasado), com o excesso sobre o limite de 15 minutos exponencial
+            double excesso = Math.max(0, folga - MINUTOS_LIMITE_ATRASO);
+            probabilidadePerder = probabilidadeAtrasoChegada * Math.exp(-excesso / Math.max(1, atrasoMedio.toMinutes()));
+        }
+        return new ResponseConexaoDTO(partida.codigoIcaoVooOrigem(), (long) Math.floor(folga), probabilidadePerder);
+    }
+
+    private Instant partida(RequestPrevisaoDTO trecho) {
+        return trecho.dataPartida().instante(indiceAeroportos.fusoHorario(trecho.codigoIcaoVooOrigem()));
+    }
+}
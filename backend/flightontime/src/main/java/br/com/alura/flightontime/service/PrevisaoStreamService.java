@@ -0,0 +1,89 @@
+package br.com.alura.flightontime.service;
+
+import br.com.alura.flightontime.dto.request.RequestPrevisaoDTO;
+import br.com.alura.flightontime.dto.response.ResponsePrevisaoLoteItemDTO;
+import br.com.alura.flightontime.infra.admissao.ControleAdmissao;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Previsão de arquivos de voos de qualquer tamanho. O corpo é lido em janelas de
+ * {@code api.previsao.stream.janela} voos; cada janela passa pela previsão em lote e seus resultados são
+ * gravados como NDJSON e enviados antes de a próxima janela ser lida. Só uma janela fica em memória, e um
+ * cliente que lê devagar segura a leitura do corpo pelo próprio TCP. Cada janela é cobrada do limite de
+ * previsões do cliente, esperando o saldo quando preciso, então um arquivo grande anda na taxa do cliente.
+ */
+@Service
+public class PrevisaoStreamService {
+
+    private static final byte NOVA_LINHA = '\n';
+
+    @Autowired
+    private PrevisaoVooService previsaoVooService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ControleAdmissao controleAdmissao;
+
+    @Value("${api.previsao.stream.janela:200}")
+    private int tamanhoJanela;
+
+    @Value("${api.previsao.lote.tamanho-maximo:500}")
+    private int tamanhoMaximoLote;
+
+    private ObjectReader leitorRequisicao;
+    private ObjectWriter escritorItem;
+
+    @PostConstruct
+    public void iniciar() {
+        // A janela vira um lote, então não pode passar do tamanho máximo
+        tamanhoJanela = Math.max(1, Math.min(tamanhoJanela, tamanhoMaximoLote));
+        leitorRequisicao = objectMapper.readerFor(RequestPrevisaoDTO.class);
+        escritorItem = objectMapper.writerFor(ResponsePrevisaoLoteItemDTO.class);
+    }
+
+    /**
+     * Lê os voos de {@code entrada} (NDJSON ou CSV com cabeçalho) e grava em {@code saida} uma linha por voo,
+     * com o {@code indice} contado desde o início do arquivo. Problemas no cabeçalho do CSV são lançados antes
+     * de qualquer escrita.
+     */
+    public void previsaoStream(InputStream entrada, boolean csv, OutputStream saida) throws IOException {
+        LeitorVoos leitor = csv ? LeitorVoos.csv(entrada) : LeitorVoos.ndjson(entrada, leitorRequisicao);
+
+        int total = 0;
+        List<RequestPrevisaoDTO> janela;
+        while (!(janela = leitor.proximaJanela(tamanhoJanela)).isEmpty()) {
+            aguardarSaldo(janela.size());
+            for (ResponsePrevisaoLoteItemDTO item : previsaoVooService.previsaoLote(janela)) {
+                var itemArquivo = new ResponsePrevisaoLoteItemDTO(total + item.indice(), item.previsao(), item.erros());
+                saida.write(escritorItem.writeValueAsBytes(itemArquivo));
+                saida.write(NOVA_LINHA);
+            }
+            total += janela.size();
+            saida.flush();
+        }
+    }
+
+    // Cada janela espera pelos tokens do cliente: a resposta já começou, então recusar não é mais possível
+    private void aguardarSaldo(int previsoes) throws InterruptedIOException {
+        try {
+            controleAdmissao.aguardarPrevisoes(previsoes);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Previsão do arquivo interrompida");
+        }
+    }
+}
@@ -1,105 +1,372 @@
 package br.com.alura.flightontime.service;
 
+import br.com.alura.flightontime.busca.IndiceAeroportos;
+import br.com.alura.flightontime.dto.request.RequestPerfilPrevisaoDTO;
 import br.com.alura.flightontime.dto.request.RequestPrevisaoDTO;
 import br.com.alura.flightontime.dto.request.RequestPrevisaoDataScienceDTO;
+import br.com.alura.flightontime.dto.response.ResponsePerfilPrevisaoDTO;
 import br.com.alura.flightontime.dto.response.ResponsePrevisaoDTO;
 import br.com.alura.flightontime.dto.response.ResponsePrevisaoDataScienceDTO;
+import br.com.alura.flightontime.dto.response.ResponsePrevisaoLoteItemDTO;
+import br.com.alura.flightontime.historico.HistoricoPrevisoes;
+import br.com.alura.flightontime.inferencia.ModeloEmbarcado;
+import br.com.alura.flightontime.inferencia.PrevisoesPreCalculadas;
+import br.com.alura.flightontime.infra.cache.CachePrevisoes;
+import br.com.alura.flightontime.infra.client.ApiPrevisaoClient;
+import br.com.alura.flightontime.infra.client.MonitorVersaoModelo;
 import br.com.alura.flightontime.infra.exception.ErroConfiguracaoApiException;
 import br.com.alura.flightontime.infra.exception.RespostaInvalidaServicoExternoException;
 import br.com.alura.flightontime.infra.exception.ServicoExternoIndisponivelException;
 import br.com.alura.flightontime.infra.exception.ValidacaoDBException;
+import br.com.alura.flightontime.infra.metricas.MetricasPrevisao;
+import br.com.alura.flightontime.infra.metricas.MetricasPrevisao.Etapa;
 import br.com.alura.flightontime.model.PeriodoDia;
 import br.com.alura.flightontime.model.ProbabilidadeAtraso;
 import br.com.alura.flightontime.validation.VooValidation;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpStatusCodeException;
-import org.springframework.web.client.ResourceAccessException;
-import org.springframework.web.client.RestClient;
 
-import java.net.URI;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 @Service
 public class PrevisaoVooService {
     @Autowired
-    private RestClient restClient;
+    private ApiPrevisaoClient apiPrevisaoClient;
 
     @Autowired
     private List<VooValidation> validadores = new ArrayList<>();
 
-    @Value("${api.previsao.uri}")
-    private URI apiUri;
+    @Autowired
+    private CachePrevisoes cachePrevisoes;
+
+    @Autowired
+    private ModeloEmbarcado modeloEmbarcado;
+
+    @Autowired
+    private PrevisoesPreCalculadas previsoesPreCalculadas;
+
+    @Autowired
+    private MetricasPrevisao metricasPrevisao;
+
+    @Autowired
+    private HistoricoPrevisoes historicoPrevisoes;
+
+    @Autowired
+    private MonitorVersaoModelo monitorVersaoModelo;
+
+    @Autowired
+    private IndiceAeroportos indiceAeroportos;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    @Qualifier("executorChamadasModelo")
+    private Executor executorChamadasModelo;
+
+    private static final int DIAS_SEMANA = 7;
+    private static final int HORAS_DIA = 24;
+    /** Previsões avaliadas por um perfil de rota, uma por hora de cada dia da semana. */
+    public static final int PREVISOES_PERFIL = DIAS_SEMANA * HORAS_DIA;
+
+    @Value("${api.previsao.lote.tamanho-maximo:500}")
+    private int tamanhoMaximoLote;
+
+    @Value("${api.previsao.lote.tamanho-chamada:100}")
+    private int tamanhoChamadaModelo;
 
     public ResponsePrevisaoDTO previsao(RequestPrevisaoDTO requestPrevisaoDTO)
             throws RespostaInvalidaServicoExternoException {
+        String companhia = requestPrevisaoDTO.codigoIcaoCompanhiaAerea();
+        String origem = requestPrevisaoDTO.codigoIcaoVooOrigem();
+        String destino = requestPrevisaoDTO.codigoIcaoVooDestino();
+        long inicioPrevisao = System.nanoTime();
+        long inicio = inicioPrevisao;
+
         List<String> listaErros = new ArrayList<>();
 
         validadores.forEach(validacao -> {
             listaErros.addAll(validacao.validar(requestPrevisaoDTO));
         });
+        inicio = metricasPrevisao.registrar(Etapa.VALIDACAO, companhia, origem, destino, inicio);
+
+        if (!listaErros.isEmpty()) {
+            throw new ValidacaoDBException(listaErros);
+        }
+
+        var chave = this.chave(requestPrevisaoDTO);
+        var resposta = previsoesPreCalculadas.consultar(chave);
+        inicio = metricasPrevisao.registrar(Etapa.TABELA, companhia, origem, destino, inicio);
+        if (resposta == null) {
+            // Registrada também quando a chamada falha, para que timeouts apareçam na latência do modelo
+            try {
+                // O modelo embarcado responde em microssegundos, então não passa pelo cache
+                resposta = modeloEmbarcado.ativo()
+                        ? modeloEmbarcado.prever(chave)
+                        : cachePrevisoes.obter(chave, apiPrevisaoClient::prever);
+            } finally {
+                inicio = metricasPrevisao.registrar(Etapa.MODELO, companhia, origem, destino, inicio);
+            }
+        }
+        var previsao = this.converteParaResponsePrevisaoDTO(resposta);
+        long fim = metricasPrevisao.registrar(Etapa.CLASSIFICACAO, companhia, origem, destino, inicio);
+        historicoPrevisoes.registrar(chave, previsao.probabilidadeAtrasoPercentual(), previsao.probabilidadeAtraso(),
+                this.versaoModelo(), fim - inicioPrevisao);
+        return previsao;
+    }
+
+    /**
+     * Valida todos os voos, envia ao modelo apenas os vetores de features distintos, em chamadas de lote
+     * executadas em paralelo, e devolve um resultado por voo na ordem recebida. Erros de um voo não
+     * interrompem os demais.
+     */
+    public List<ResponsePrevisaoLoteItemDTO> previsaoLote(List<RequestPrevisaoDTO> requisicoes) {
+        if (requisicoes.size() > tamanhoMaximoLote) {
+            throw new ValidacaoDBException(List.of("O lote deve conter no máximo " + tamanhoMaximoLote + " voos."));
+        }
+
+        long inicioLote = System.nanoTime();
+        long inicio = inicioLote;
+        List<List<String>> errosPorItem = new ArrayList<>(requisicoes.size());
+        List<RequestPrevisaoDataScienceDTO> chavesPorItem = new ArrayList<>(requisicoes.size());
+        LinkedHashSet<RequestPrevisaoDataScienceDTO> distintas = new LinkedHashSet<>();
+
+        for (RequestPrevisaoDTO requisicao : requisicoes) {
+            List<String> erros = this.validarItem(requisicao);
+            errosPorItem.add(erros);
+            if (erros.isEmpty()) {
+                var chave = this.chave(requisicao);
+                chavesPorItem.add(chave);
+                distintas.add(chave);
+            } else {
+                chavesPorItem.add(null);
+            }
+        }
+
+        inicio = metricasPrevisao.registrarLote(Etapa.VALIDACAO, inicio);
+
+        var respostas = this.consultaModeloEmLote(new ArrayList<>(distintas), tamanhoChamadaModelo);
+        // Espera todas as chamadas, com ou sem erro, para que a etapa do modelo inclua o tempo de resposta
+        CompletableFuture.allOf(respostas.values().toArray(CompletableFuture[]::new)).exceptionally(ex -> null).join();
+        inicio = metricasPrevisao.registrarLote(Etapa.MODELO, inicio);
+        // No histórico, cada voo do lote fica com a latência do lote inteiro
+        long latenciaLote = inicio - inicioLote;
+
+        List<ResponsePrevisaoLoteItemDTO> resultado = new ArrayList<>(requisicoes.size());
+        String versaoModelo = this.versaoModelo();
+        for (int i = 0; i < requisicoes.size(); i++) {
+            if (!errosPorItem.get(i).isEmpty()) {
+                resultado.add(new ResponsePrevisaoLoteItemDTO(i, null, errosPorItem.get(i)));
+                continue;
+            }
+            try {
+                var resposta = respostas.get(chavesPorItem.get(i)).join();
+                var previsao = this.converteParaResponsePrevisaoDTO(resposta);
+                resultado.add(new ResponsePrevisaoLoteItemDTO(i, previsao, List.of()));
+                historicoPrevisoes.registrar(chavesPorItem.get(i), previsao.probabilidadeAtrasoPercentual(),
+                        previsao.probabilidadeAtraso(), versaoModelo, latenciaLote);
+            } catch (CompletionException ex) {
+                resultado.add(new ResponsePrevisaoLoteItemDTO(i, null, List.of(this.mensagemErro(ex.getCause()))));
+            }
+        }
+        metricasPrevisao.registrarLote(Etapa.CLASSIFICACAO, inicio);
+        return resultado;
+    }
+
+    /**
+     * Probabilidade de atraso da rota em cada hora de cada dia da semana do mês informado. A rota é validada
+     * uma vez e as 168 combinações vão ao modelo juntas, em uma única avaliação em lote. Não entram no
+     * histórico, que guarda só os voos que foram pedidos.
+     */
+    public ResponsePerfilPrevisaoDTO previsaoPerfil(RequestPerfilPrevisaoDTO requisicao) {
+        String companhia = requisicao.codigoIcaoCompanhiaAerea();
+        String origem = requisicao.codigoIcaoVooOrigem();
+        String destino = requisicao.codigoIcaoVooDestino();
+        long inicio = System.nanoTime();
+
+        // Sem data de partida, só as validações de aeroportos e companhia se aplicam
+        var voo = new RequestPrevisaoDTO(companhia, origem, destino, null);
+        List<String> listaErros = new ArrayList<>();
+        validadores.forEach(validacao -> listaErros.addAll(validacao.validar(voo)));
+        inicio = metricasPrevisao.registrarLote(Etapa.VALIDACAO, inicio);
 
         if (!listaErros.isEmpty()) {
             throw new ValidacaoDBException(listaErros);
         }
 
+        Double distanciaKm = indiceAeroportos.distanciaKm(origem, destino);
+        List<RequestPrevisaoDataScienceDTO> grade = new ArrayList<>(DIAS_SEMANA * HORAS_DIA);
+        for (int dia = 0; dia < DIAS_SEMANA; dia++) {
+            for (int hora = 0; hora < HORAS_DIA; hora++) {
+                grade.add(new RequestPrevisaoDataScienceDTO(origem, destino, companhia, PeriodoDia.retornaPeriodo(hora),
+                        hora, dia, requisicao.mes(), distanciaKm));
+            }
+        }
+
+        var respostas = this.consultaModeloEmLote(grade, grade.size());
+        double[][] probabilidades = new double[DIAS_SEMANA][HORAS_DIA];
         try {
-            var resposta = restClient.post()
-                    .uri(apiUri)
-                    .body(this.converteParaRequestPrevisaoDataScienceDTO(requestPrevisaoDTO))
-                    .retrieve()
-                    .body(ResponsePrevisaoDataScienceDTO.class);
-            this.validacao(resposta);
-            return this.converteParaResponsePrevisaoDTO(resposta);
-        } catch (IllegalArgumentException ex) {
-            throw new ErroConfiguracaoApiException("Erro interno do servidor");
-        } catch (ResourceAccessException ex) {
-            throw new ServicoExternoIndisponivelException("Serviço de previsão indisponível no momento", ex);
-        } catch (HttpStatusCodeException ex) {
-            throw new RespostaInvalidaServicoExternoException("Erro ao requisitar serviço de previsão");
+            for (int i = 0; i < grade.size(); i++) {
+                probabilidades[i / HORAS_DIA][i % HORAS_DIA] = respostas.get(grade.get(i)).join().probabilidadeAtraso();
+            }
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException causa) throw causa;
+            throw ex;
+        } finally {
+            metricasPrevisao.registrarLote(Etapa.MODELO, inicio);
+        }
+        return new ResponsePerfilPrevisaoDTO(companhia, origem, destino, requisicao.mes(), probabilidades);
+    }
+
+    /**
+     * Previsão de um voo já validado, sem as métricas por etapa de {@link #previsao}: tabela pré-calculada,
+     * modelo embarcado ou serviço de previsão, nessa ordem. Fica registrada no histórico.
+     */
+    ResponsePrevisaoDTO previsaoValidada(RequestPrevisaoDataScienceDTO chave) {
+        long inicio = System.nanoTime();
+        var resposta = previsoesPreCalculadas.consultar(chave);
+        if (resposta == null) {
+            resposta = modeloEmbarcado.ativo()
+                    ? modeloEmbarcado.prever(chave)
+                    : cachePrevisoes.obter(chave, apiPrevisaoClient::prever);
+        }
+        var previsao = this.converteParaResponsePrevisaoDTO(resposta);
+        historicoPrevisoes.registrar(chave, previsao.probabilidadeAtrasoPercentual(), previsao.probabilidadeAtraso(),
+                this.versaoModelo(), System.nanoTime() - inicio);
+        return previsao;
+    }
+
+    /** As features do voo, com a data no fuso da origem e a distância da rota. */
+    RequestPrevisaoDataScienceDTO chave(RequestPrevisaoDTO requisicao) {
+        String origem = requisicao.codigoIcaoVooOrigem();
+        return this.converteParaRequestPrevisaoDataScienceDTO(requisicao, indiceAeroportos.fusoHorario(origem),
+                indiceAeroportos.distanciaKm(origem, requisicao.codigoIcaoVooDestino()));
+    }
+
+    private String versaoModelo() {
+        return modeloEmbarcado.ativo() ? modeloEmbarcado.versao() : monitorVersaoModelo.versaoAtual();
+    }
+
+    List<String> validarItem(RequestPrevisaoDTO requisicao) {
+        if (requisicao == null) {
+            return List.of("Formato inválido ou campos com valores incorretos.");
+        }
+
+        List<String> listaErros = new ArrayList<>();
+        validator.validate(requisicao).stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .forEach(listaErros::add);
+
+        if (listaErros.isEmpty()) {
+            validadores.forEach(validacao -> listaErros.addAll(validacao.validar(requisicao)));
         }
+        return listaErros;
     }
 
-    private RequestPrevisaoDataScienceDTO converteParaRequestPrevisaoDataScienceDTO(RequestPrevisaoDTO dto) {
+    Map<RequestPrevisaoDataScienceDTO, CompletableFuture<ResponsePrevisaoDataScienceDTO>> consultaModeloEmLote(
+            List<RequestPrevisaoDataScienceDTO> chaves, int tamanhoChamada) {
+        Map<RequestPrevisaoDataScienceDTO, CompletableFuture<ResponsePrevisaoDataScienceDTO>> preCalculadas = new HashMap<>();
+        List<RequestPrevisaoDataScienceDTO> restantes = new ArrayList<>();
+        for (RequestPrevisaoDataScienceDTO chave : chaves) {
+            var resposta = previsoesPreCalculadas.consultar(chave);
+            if (resposta != null) {
+                preCalculadas.put(chave, CompletableFuture.completedFuture(resposta));
+            } else {
+                restantes.add(chave);
+            }
+        }
+        if (restantes.isEmpty()) return preCalculadas;
+
+        var respostas = this.consultaModelo(restantes, tamanhoChamada);
+        respostas.putAll(preCalculadas);
+        return respostas;
+    }
+
+    private Map<RequestPrevisaoDataScienceDTO, CompletableFuture<ResponsePrevisaoDataScienceDTO>> consultaModelo(
+            List<RequestPrevisaoDataScienceDTO> chaves, int tamanhoChamada) {
+        if (modeloEmbarcado.ativo()) {
+            var respostas = modeloEmbarcado.preverLote(chaves);
+            Map<RequestPrevisaoDataScienceDTO, CompletableFuture<ResponsePrevisaoDataScienceDTO>> resultado = new HashMap<>();
+            for (int i = 0; i < chaves.size(); i++) {
+                resultado.put(chaves.get(i), CompletableFuture.completedFuture(respostas.get(i)));
+            }
+            return resultado;
+        }
+        if (chaves.size() <= tamanhoChamada) {
+            return cachePrevisoes.obterTodos(chaves, apiPrevisaoClient::preverLote);
+        }
+
+        List<CompletableFuture<Map<RequestPrevisaoDataScienceDTO, CompletableFuture<ResponsePrevisaoDataScienceDTO>>>> partes = new ArrayList<>();
+        for (int inicio = 0; inicio < chaves.size(); inicio += tamanhoChamada) {
+            var parte = chaves.subList(inicio, Math.min(inicio + tamanhoChamada, chaves.size()));
+            partes.add(CompletableFuture.supplyAsync(
+                    () -> cachePrevisoes.obterTodos(parte, apiPrevisaoClient::preverLote), executorChamadasModelo));
+        }
+
+        Map<RequestPrevisaoDataScienceDTO, CompletableFuture<ResponsePrevisaoDataScienceDTO>> respostas = new HashMap<>();
+        partes.forEach(parte -> respostas.putAll(parte.join()));
+        return respostas;
+    }
+
+    String mensagemErro(Throwable erro) {
+        if (erro instanceof ServicoExternoIndisponivelException
+                || erro instanceof RespostaInvalidaServicoExternoException
+                || erro instanceof ErroConfiguracaoApiException) {
+            return erro.getMessage();
+        }
+        return "Erro interno do servidor";
+    }
+
+    /** As features de data e hora são derivadas do horário local no aeroporto de origem. */
+    RequestPrevisaoDataScienceDTO converteParaRequestPrevisaoDataScienceDTO(RequestPrevisaoDTO dto, ZoneId fusoOrigem,
+                                                                            Double distanciaKm) {
+        LocalDateTime partida = dto.dataPartida().horaLocal(fusoOrigem);
         return new RequestPrevisaoDataScienceDTO(
                 dto.codigoIcaoVooOrigem(),
                 dto.codigoIcaoVooDestino(),
                 dto.codigoIcaoCompanhiaAerea(),
-                PeriodoDia.retornaPeriodo(dto.dataPartida().getHour()),
-                dto.dataPartida().getHour(),
-                dto.dataPartida().getDayOfWeek().getValue() - 1,
-                dto.dataPartida().getMonthValue());
+                PeriodoDia.retornaPeriodo(partida.getHour()),
+                partida.getHour(),
+                partida.getDayOfWeek().getValue() - 1,
+                partida.getMonthValue(),
+                distanciaKm);
     }
 
-    private ResponsePrevisaoDTO converteParaResponsePrevisaoDTO(ResponsePrevisaoDataScienceDTO dto) {
+    ResponsePrevisaoDTO converteParaResponsePrevisaoDTO(ResponsePrevisaoDataScienceDTO dto) {
         return new ResponsePrevisaoDTO(this.nomePrevisaoAtraso(dto), dto.probabilidadeAtraso());
     }
 
-    private ProbabilidadeAtraso nomePrevisaoAtraso(ResponsePrevisaoDataScienceDTO dto) {
-        if (dto.probabilidadeAtraso() >= 0 && dto.probabilidadeAtraso() < 0.20) {
+    ProbabilidadeAtraso nomePrevisaoAtraso(ResponsePrevisaoDataScienceDTO dto) {
+        return this.nomePrevisaoAtraso(dto.probabilidadeAtraso());
+    }
+
+    ProbabilidadeAtraso nomePrevisaoAtraso(double probabilidadeAtraso) {
+        if (probabilidadeAtraso >= 0 && probabilidadeAtraso < 0.20) {
             return ProbabilidadeAtraso.MUITO_BAIXA;
-        } else if (dto.probabilidadeAtraso() >= 0.20 && dto.probabilidadeAtraso() < 0.40) {
+        } else if (probabilidadeAtraso >= 0.20 && probabilidadeAtraso < 0.40) {
             return ProbabilidadeAtraso.BAIXA;
-        } else if (dto.probabilidadeAtraso() >= 0.40 && dto.probabilidadeAtraso() < 0.60) {
+        } else if (probabilidadeAtraso >= 0.40 && probabilidadeAtraso < 0.60) {
             return ProbabilidadeAtraso.MEDIA;
-        } else if (dto.probabilidadeAtraso() >= 0.60 && dto.probabilidadeAtraso() < 0.80) {
+        } else if (probabilidadeAtraso >= 0.60 && probabilidadeAtraso < 0.80) {
             return ProbabilidadeAtraso.ALTA;
-        } else if (dto.probabilidadeAtraso() >= 0.80 && dto.probabilidadeAtraso() <= 1) {
+        } else if (probabilidadeAtraso >= 0.80 && probabilidadeAtraso <= 1) {
             return ProbabilidadeAtraso.MUITO_ALTA;
         } else {
             throw new RespostaInvalidaServicoExternoException("Probabilidade de atraso inválida");
         }
     }
-
-    private void validacao(ResponsePrevisaoDataScienceDTO dto) throws RespostaInvalidaServicoExternoException {
-        if (dto == null || dto.probabilidadeAtraso() == null || 
-            dto.probabilidadeAtraso() < 0 || dto.probabilidadeAtraso() > 1) {
-            
-            throw new RespostaInvalidaServicoExternoException("Resposta inválida do serviço de previsão");
-        }
-    }
-
-
 }
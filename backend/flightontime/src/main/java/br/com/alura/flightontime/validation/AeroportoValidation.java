@@ -1,7 +1,7 @@
 package br.com.alura.flightontime.validation;
 
 import br.com.alura.flightontime.dto.request.RequestPrevisaoDTO;
-import br.com.alura.flightontime.repository.AeroportoRepository;
+import br.com.alura.flightontime.referencia.DadosReferenciaCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import java.util.ArrayList;
@@ -10,19 +10,17 @@ import java.util.List;
 @Component
 public class AeroportoValidation implements VooValidation {
     @Autowired
-    private AeroportoRepository aeroportoRepository;
+    private DadosReferenciaCache dadosReferenciaCache;
 
     @Override
     public List<String> validar(RequestPrevisaoDTO dto) {
         List<String> listaErros = new ArrayList<>();
-        var aeroportoOrigemEncontrado = aeroportoRepository.findByCodigoIcao(dto.codigoIcaoVooOrigem());
-        var aeroportoDestinoEncontrado = aeroportoRepository.findByCodigoIcao(dto.codigoIcaoVooDestino());
 
-        if (aeroportoOrigemEncontrado == null || dto.codigoIcaoVooOrigem() == null) {
+        if (!dadosReferenciaCache.aeroportoExiste(dto.codigoIcaoVooOrigem())) {
             listaErros.add("O aeroporto de origem não existe na base de dados.");
         }
 
-        if (aeroportoDestinoEncontrado == null || dto.codigoIcaoVooDestino() == null) {
+        if (!dadosReferenciaCache.aeroportoExiste(dto.codigoIcaoVooDestino())) {
             listaErros.add("O aeroporto de destino não existe na base de dados.");
         }
 
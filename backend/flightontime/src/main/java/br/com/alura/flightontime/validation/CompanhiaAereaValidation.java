@@ -1,7 +1,7 @@
 package br.com.alura.flightontime.validation;
 
 import br.com.alura.flightontime.dto.request.RequestPrevisaoDTO;
-import br.com.alura.flightontime.repository.CompanhiaAereaRepository;
+import br.com.alura.flightontime.referencia.DadosReferenciaCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import java.util.ArrayList;
@@ -10,15 +10,13 @@ import java.util.List;
 @Component
 public class CompanhiaAereaValidation implements VooValidation {
     @Autowired
-    private CompanhiaAereaRepository companhiaAereaRepository;
+    private DadosReferenciaCache dadosReferenciaCache;
 
     @Override
     public List<String> validar(RequestPrevisaoDTO dto) {
         List<String> listaErros = new ArrayList<>();
-        var companhiaAereaEncontrada = companhiaAereaRepository
-                .findByCodigoIcaoAndAtivo(dto.codigoIcaoCompanhiaAerea(), "Y");
 
-        if (companhiaAereaEncontrada == null || dto.codigoIcaoCompanhiaAerea() == null) {
+        if (!dadosReferenciaCache.companhiaAereaAtiva(dto.codigoIcaoCompanhiaAerea())) {
             listaErros.add("A companhia aérea não existe na base de dados.");
         }
 
@@ -0,0 +1,32 @@
+package br.com.alura.flightontime.validation;
+
+import br.com.alura.flightontime.busca.IndiceAeroportos;
+import br.com.alura.flightontime.dto.request.RequestPrevisaoDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Substitui o {@code @Future}, que compararia a data informada com o relógio no fuso do servidor: a partida
+ * precisa ser futura no fuso do aeroporto de origem.
+ */
+@Component
+public class DataPartidaValidation implements VooValidation {
+    @Autowired
+    private IndiceAeroportos indiceAeroportos;
+
+    @Override
+    public List<String> validar(RequestPrevisaoDTO dto) {
+        List<String> listaErros = new ArrayList<>();
+
+        if (dto.dataPartida() != null
+                && !dto.dataPartida().instante(indiceAeroportos.fusoHorario(dto.codigoIcaoVooOrigem())).isAfter(Instant.now())) {
+            listaErros.add("A data de partida deve ser uma data futura.");
+        }
+
+        return listaErros;
+    }
+}
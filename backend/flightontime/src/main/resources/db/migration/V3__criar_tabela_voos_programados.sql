@@ -0,0 +1,11 @@
+CREATE TABLE IF NOT EXISTS voos_programados (
+    airline_icao VARCHAR(10) NOT NULL,
+    flight_number VARCHAR(10) NOT NULL,
+    origin_icao VARCHAR(10) NOT NULL,
+    destination_icao VARCHAR(10) NOT NULL,
+    departure TIMESTAMP NOT NULL,
+    arrival TIMESTAMP,
+    CONSTRAINT voos_programados_pkey PRIMARY KEY (airline_icao, flight_number, departure)
+);
+
+CREATE INDEX IF NOT EXISTS idx_voos_programados_rota ON voos_programados (origin_icao, destination_icao, departure);
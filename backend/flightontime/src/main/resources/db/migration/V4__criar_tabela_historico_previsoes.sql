@@ -0,0 +1,17 @@
+CREATE TABLE IF NOT EXISTS historico_previsoes (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    origin_icao VARCHAR(10) NOT NULL,
+    destination_icao VARCHAR(10) NOT NULL,
+    airline_icao VARCHAR(10) NOT NULL,
+    day_period VARCHAR(20) NOT NULL,
+    departure_hour INTEGER NOT NULL,
+    departure_weekday INTEGER NOT NULL,
+    departure_month INTEGER NOT NULL,
+    probability DOUBLE PRECISION NOT NULL,
+    delay_class VARCHAR(20) NOT NULL,
+    model_version VARCHAR(50),
+    latency_us BIGINT NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_historico_previsoes_created_at ON historico_previsoes (created_at);
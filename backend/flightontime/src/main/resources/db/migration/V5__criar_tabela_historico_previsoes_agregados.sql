@@ -0,0 +1,29 @@
+CREATE TABLE IF NOT EXISTS historico_previsoes_agregados (
+    month DATE NOT NULL,
+    origin_icao VARCHAR(10) NOT NULL,
+    destination_icao VARCHAR(10) NOT NULL,
+    airline_icao VARCHAR(10) NOT NULL,
+    departure_hour INTEGER NOT NULL,
+    day_period VARCHAR(20) NOT NULL,
+    predictions BIGINT NOT NULL,
+    probability_sum DOUBLE PRECISION NOT NULL,
+    high_delay_count BIGINT NOT NULL,
+    CONSTRAINT historico_previsoes_agregados_pkey
+        PRIMARY KEY (month, origin_icao, destination_icao, airline_icao, departure_hour)
+);
+
+-- Índices de cobertura: as consultas de análise são respondidas só pelo índice, sem visitar a tabela
+CREATE INDEX IF NOT EXISTS idx_historico_previsoes_agregados_origem ON historico_previsoes_agregados (origin_icao, month)
+    INCLUDE (destination_icao, airline_icao, departure_hour, day_period, predictions, probability_sum, high_delay_count);
+CREATE INDEX IF NOT EXISTS idx_historico_previsoes_agregados_destino ON historico_previsoes_agregados (destination_icao, month)
+    INCLUDE (origin_icao, airline_icao, departure_hour, day_period, predictions, probability_sum, high_delay_count);
+CREATE INDEX IF NOT EXISTS idx_historico_previsoes_agregados_companhia ON historico_previsoes_agregados (airline_icao, month)
+    INCLUDE (origin_icao, destination_icao, departure_hour, day_period, predictions, probability_sum, high_delay_count);
+
+-- Agrega o histórico gravado antes desta migração; daqui em diante os agregados são atualizados junto com cada lote
+INSERT INTO historico_previsoes_agregados (month, origin_icao, destination_icao, airline_icao, departure_hour, day_period,
+                                           predictions, probability_sum, high_delay_count)
+SELECT date_trunc('month', created_at)::date, origin_icao, destination_icao, airline_icao, departure_hour, min(day_period),
+       count(*), sum(probability), count(*) FILTER (WHERE delay_class IN ('ALTA', 'MUITO_ALTA'))
+FROM historico_previsoes
+GROUP BY 1, 2, 3, 4, 5;
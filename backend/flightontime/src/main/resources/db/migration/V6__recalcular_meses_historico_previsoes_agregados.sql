@@ -0,0 +1,11 @@
+-- A V5 agregou o histórico com o mês no fuso da sessão do banco, enquanto cada lote usa o fuso de
+-- historico.previsoes.fuso. Refaz os agregados a partir do histórico, que é completo, com o mesmo fuso dos lotes.
+TRUNCATE historico_previsoes_agregados;
+
+INSERT INTO historico_previsoes_agregados (month, origin_icao, destination_icao, airline_icao, departure_hour, day_period,
+                                           predictions, probability_sum, high_delay_count)
+SELECT date_trunc('month', created_at AT TIME ZONE '${fuso_historico}')::date, origin_icao, destination_icao, airline_icao,
+       departure_hour, min(day_period), count(*), sum(probability),
+       count(*) FILTER (WHERE delay_class IN ('ALTA', 'MUITO_ALTA'))
+FROM historico_previsoes
+GROUP BY 1, 2, 3, 4, 5;
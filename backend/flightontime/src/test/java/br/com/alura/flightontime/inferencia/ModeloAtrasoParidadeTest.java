@@ -0,0 +1,100 @@
+package br.com.alura.flightontime.inferencia;
+
+import br.com.alura.flightontime.dto.request.RequestPrevisaoDataScienceDTO;
+import br.com.alura.flightontime.dto.response.ResponsePrevisaoDataScienceDTO;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Compara o modelo embarcado com as probabilidades do ml-api para a fixture de
+ * {@code ml-api/gerar_fixture_paridade.py}: modelo exportado no formato de {@code exportar_modelo.py} e, para
+ * cada voo, o {@code predict_proba} e o {@code round(prob, 4)} do Python.
+ */
+class ModeloAtrasoParidadeTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static ModeloExportado exportado;
+    private static List<RequestPrevisaoDataScienceDTO> voos;
+    private static List<JsonNode> esperados;
+
+    @BeforeAll
+    static void carregarFixture() throws IOException {
+        JsonNode fixture;
+        try (InputStream entrada = ModeloAtrasoParidadeTest.class.getResourceAsStream("/inferencia/modelo_paridade.json")) {
+            fixture = MAPPER.readTree(entrada);
+        }
+        exportado = MAPPER.treeToValue(fixture.get("modelo"), ModeloExportado.class);
+        voos = new ArrayList<>();
+        esperados = new ArrayList<>();
+        for (JsonNode caso : fixture.get("casos")) {
+            voos.add(MAPPER.treeToValue(caso.get("voo"), RequestPrevisaoDataScienceDTO.class));
+            esperados.add(caso);
+        }
+    }
+
+    @Test
+    void probabilidadesIguaisAsDoPython() {
+        var modelo = ModeloAtraso.de(exportado);
+
+        for (int i = 0; i < voos.size(); i++) {
+            assertThat(modelo.probabilidadeAtraso(voos.get(i)))
+                    .as("voo %d", i)
+                    .isCloseTo(esperados.get(i).get("probabilidade").asDouble(), within(1e-12));
+        }
+    }
+
+    @Test
+    void loteDevolveAsMesmasProbabilidadesNaMesmaOrdem() {
+        var modelo = ModeloAtraso.de(exportado);
+
+        double[] probabilidades = modelo.probabilidadesAtraso(voos);
+
+        for (int i = 0; i < voos.size(); i++) {
+            assertThat(probabilidades[i]).as("voo %d", i).isEqualTo(modelo.probabilidadeAtraso(voos.get(i)));
+        }
+    }
+
+    @Test
+    void respostaIgualADoServicoRemoto() {
+        var embarcado = new ModeloEmbarcado();
+        ReflectionTestUtils.setField(embarcado, "modelo", ModeloAtraso.de(exportado));
+
+        for (int i = 0; i < voos.size(); i++) {
+            // O serviço remoto devolve round(prob, 4), que passa pelo mesmo DTO
+            var remota = new ResponsePrevisaoDataScienceDTO(esperados.get(i).get("probabilidade_arredondada").asDouble());
+            assertThat(embarcado.prever(voos.get(i))).as("voo %d", i).isEqualTo(remota);
+        }
+    }
+
+    @Test
+    void arvoreForaDaPreOrdemEhRecusada() {
+        var arvores = new ArrayList<>(exportado.arvores());
+        var original = arvores.getFirst();
+        int[] esquerda = original.esquerda().clone();
+        int[] direita = original.direita().clone();
+        // Troca os filhos da raiz: o da esquerda deixa de ser o nó seguinte
+        esquerda[0] = original.direita()[0];
+        direita[0] = original.esquerda()[0];
+        arvores.set(0, new ModeloExportado.Arvore(original.feature(), original.limiar(), esquerda, direita, original.valor()));
+
+        var invalido = new ModeloExportado(exportado.formato(), exportado.dataTreinamento(), exportado.features(),
+                exportado.taxaBaseAtraso(), exportado.mapasDeRisco(), arvores);
+
+        assertThatThrownBy(() -> ModeloAtraso.de(invalido))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("pré-ordem");
+    }
+}
@@ -0,0 +1,59 @@
+package br.com.alura.flightontime.inferencia;
+
+import br.com.alura.flightontime.dto.request.RequestPrevisaoDataScienceDTO;
+import br.com.alura.flightontime.infra.client.MonitorVersaoModelo;
+import br.com.alura.flightontime.model.PeriodoDia;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PrevisoesPreCalculadasTest {
+
+    // Rota 1 da fixture de TabelaPrevisoesTest: (17 * 1 + 5 * 10 + 3 * 2 + 5) % 101 = 78
+    private static final RequestPrevisaoDataScienceDTO VOO = new RequestPrevisaoDataScienceDTO(
+            "SBGR", "SBGL", "GLO", PeriodoDia.MANHA, 10, 2, 5, 339.4);
+
+    private final ModeloEmbarcado modeloEmbarcado = mock(ModeloEmbarcado.class);
+    private final MonitorVersaoModelo monitorVersaoModelo = mock(MonitorVersaoModelo.class);
+    private final PrevisoesPreCalculadas previsoes = new PrevisoesPreCalculadas();
+
+    @BeforeEach
+    void configurar() throws Exception {
+        String arquivo = Path.of(getClass().getResource("/inferencia/tabela_previsoes.bin").toURI()).toString();
+        ReflectionTestUtils.setField(previsoes, "modeloEmbarcado", modeloEmbarcado);
+        ReflectionTestUtils.setField(previsoes, "monitorVersaoModelo", monitorVersaoModelo);
+        ReflectionTestUtils.setField(previsoes, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(previsoes, "arquivo", arquivo);
+        previsoes.iniciar();
+    }
+
+    @Test
+    void versaoDoModeloRemotoIgualADaTabelaUsaATabela() {
+        when(monitorVersaoModelo.versaoAtual()).thenReturn("fixture-tabela");
+
+        assertThat(previsoes.consultar(VOO).probabilidadeAtraso()).isEqualTo(0.78);
+    }
+
+    @Test
+    void versaoDoModeloRemotoDesconhecidaNaoUsaATabela() {
+        when(monitorVersaoModelo.versaoAtual()).thenReturn(null);
+
+        assertThat(previsoes.consultar(VOO)).isNull();
+    }
+
+    @Test
+    void versaoDiferenteNaoUsaATabela() {
+        when(monitorVersaoModelo.versaoAtual()).thenReturn("fixture-tabela");
+        when(modeloEmbarcado.ativo()).thenReturn(true);
+        when(modeloEmbarcado.versao()).thenReturn("outra-versao");
+
+        assertThat(previsoes.consultar(VOO)).isNull();
+    }
+}
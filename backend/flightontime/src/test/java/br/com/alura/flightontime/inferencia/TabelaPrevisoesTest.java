@@ -0,0 +1,90 @@
+package br.com.alura.flightontime.inferencia;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Lê a tabela gravada por {@code ml-api/gerar_fixture_tabela.py}, que usa o mesmo {@code escrever_tabela}
+ * de {@code gerar_tabela_previsoes.py}. Os valores esperados seguem a conta do script.
+ */
+class TabelaPrevisoesTest {
+
+    // Mesma ordem de ROTAS no script
+    private static final String[][] ROTAS = {
+            {"SBSP", "SBGR", "GLO"},
+            {"SBGR", "SBGL", "GLO"},
+            {"SBGL", "SBGR", "AZU"},
+    };
+
+    @TempDir
+    Path temporario;
+
+    @Test
+    void todasAsCelulasBatemComOScript() throws Exception {
+        var tabela = TabelaPrevisoes.abrir(fixture());
+
+        assertThat(tabela.versaoModelo()).isEqualTo("fixture-tabela");
+        assertThat(tabela.quantidadeRotas()).isEqualTo(ROTAS.length);
+        for (int rota = 0; rota < ROTAS.length; rota++) {
+            for (int hora = 0; hora < 24; hora++) {
+                for (int dia = 0; dia < 7; dia++) {
+                    for (int mes = 1; mes <= 12; mes++) {
+                        assertThat(tabela.centesimos(ROTAS[rota][0], ROTAS[rota][1], ROTAS[rota][2], hora, dia, mes))
+                                .as("rota %d, hora %d, dia %d, mês %d", rota, hora, dia, mes)
+                                .isEqualTo((17 * rota + 5 * hora + 3 * dia + mes) % 101);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void rotaOuHorarioForaDaTabelaFicaAusente() throws Exception {
+        var tabela = TabelaPrevisoes.abrir(fixture());
+
+        // Aeroportos e companhia conhecidos, mas a combinação não foi pontuada
+        assertThat(tabela.centesimos("SBGR", "SBSP", "GLO", 10, 2, 5)).isEqualTo(TabelaPrevisoes.AUSENTE);
+        assertThat(tabela.centesimos("SBGR", "SBGL", "TAM", 10, 2, 5)).isEqualTo(TabelaPrevisoes.AUSENTE);
+        assertThat(tabela.centesimos("SBKP", "SBGL", "GLO", 10, 2, 5)).isEqualTo(TabelaPrevisoes.AUSENTE);
+        assertThat(tabela.centesimos("SBGR", "SBGL", "GLO", 24, 2, 5)).isEqualTo(TabelaPrevisoes.AUSENTE);
+        assertThat(tabela.centesimos("SBGR", "SBGL", "GLO", 10, 7, 5)).isEqualTo(TabelaPrevisoes.AUSENTE);
+        assertThat(tabela.centesimos("SBGR", "SBGL", "GLO", 10, 2, 0)).isEqualTo(TabelaPrevisoes.AUSENTE);
+        assertThat(tabela.centesimos("SBGR", "SBGL", "GLO", 10, 2, 13)).isEqualTo(TabelaPrevisoes.AUSENTE);
+    }
+
+    @Test
+    void arquivoQueNaoEhTabelaEhRecusado() throws Exception {
+        byte[] bytes = Files.readAllBytes(fixture());
+        bytes[0] = 'X';
+
+        assertThatThrownBy(() -> TabelaPrevisoes.abrir(gravar(bytes)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("não é uma tabela");
+    }
+
+    @Test
+    void arquivoTruncadoEhRecusado() throws Exception {
+        byte[] bytes = Files.readAllBytes(fixture());
+
+        assertThatThrownBy(() -> TabelaPrevisoes.abrir(gravar(Arrays.copyOf(bytes, bytes.length - 1))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("não confere com o cabeçalho");
+    }
+
+    private static Path fixture() throws URISyntaxException {
+        return Path.of(TabelaPrevisoesTest.class.getResource("/inferencia/tabela_previsoes.bin").toURI());
+    }
+
+    private Path gravar(byte[] bytes) throws IOException {
+        return Files.write(temporario.resolve("tabela.bin"), bytes);
+    }
+}
@@ -0,0 +1,43 @@
+package br.com.alura.flightontime.infra.resiliencia;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeoutAdaptativoTest {
+
+    private static final long MILIS = 1_000_000L;
+
+    @Test
+    void timeoutAcompanhaPercentilDasLatencias() {
+        var timeout = new TimeoutAdaptativo(512, 0.99, 3, Duration.ofMillis(300), Duration.ofSeconds(3));
+        for (int i = 0; i < 64; i++) timeout.registrar(150 * MILIS);
+
+        assertThat(timeout.atual()).isEqualTo(Duration.ofMillis(450));
+    }
+
+    @Test
+    void timeoutsSeguidosLevamAoTimeoutConfigurado() {
+        var timeout = new TimeoutAdaptativo(512, 0.99, 3, Duration.ofMillis(300), Duration.ofSeconds(3));
+        for (int i = 0; i < 512; i++) timeout.registrar(10 * MILIS);
+        assertThat(timeout.atual()).isEqualTo(Duration.ofMillis(300));
+
+        // O serviço passou a responder em 1s: todas as chamadas estouram o timeout atual
+        for (int i = 0; i < 4; i++) timeout.registrarTimeout(timeout.atual().toNanos());
+
+        assertThat(timeout.atual()).isEqualTo(Duration.ofSeconds(3));
+    }
+
+    @Test
+    void recalculoNaoDesfazOAumentoPorTimeout() {
+        var timeout = new TimeoutAdaptativo(512, 0.99, 3, Duration.ofMillis(300), Duration.ofSeconds(3));
+        for (int i = 0; i < 511; i++) timeout.registrar(10 * MILIS);
+
+        // 512ª amostra: dispara o recálculo, que ainda veria só latências baixas
+        timeout.registrarTimeout(300 * MILIS);
+
+        assertThat(timeout.atual()).isEqualTo(Duration.ofMillis(600));
+    }
+}
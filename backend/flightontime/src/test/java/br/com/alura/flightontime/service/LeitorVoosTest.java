@@ -0,0 +1,53 @@
+package br.com.alura.flightontime.service;
+
+import br.com.alura.flightontime.dto.request.RequestPrevisaoDTO;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LeitorVoosTest {
+
+    private static final String CABECALHO = "codigoIcaoCompanhiaAerea,codigoIcaoVooOrigem,codigoIcaoVooDestino,dataPartida\r\n";
+
+    @Test
+    void linhaLongaDemaisViraItemComErroEALeituraContinua() throws IOException {
+        String longa = "GLO,SBGR,SBGL," + "x".repeat(LeitorVoos.TAMANHO_MAXIMO_LINHA * 10);
+        var leitor = LeitorVoos.csv(corpo(CABECALHO + "GLO,SBGR,SBGL,2030-01-10T08:00:00\r\n" + longa + "\n\nTAM,SBGL,SBSV,2030-01-10T14:00:00"));
+
+        var janela = leitor.proximaJanela(10);
+
+        assertThat(janela).hasSize(3);
+        assertThat(janela.get(0).codigoIcaoCompanhiaAerea()).isEqualTo("GLO");
+        assertThat(janela.get(1)).isNull();
+        assertThat(janela.get(2).codigoIcaoCompanhiaAerea()).isEqualTo("TAM");
+        assertThat(leitor.proximaJanela(10)).isEmpty();
+    }
+
+    @Test
+    void corpoSemQuebraDeLinhaNaoEGuardadoInteiro() throws IOException {
+        // 64 MB sem '\n', gerados sob demanda: se a linha fosse guardada inteira, o teste precisaria de 128 MB de chars
+        long tamanho = 64L * 1024 * 1024;
+        InputStream semQuebras = new InputStream() {
+            private long lidos;
+
+            @Override
+            public int read() {
+                return lidos++ < tamanho ? '{' : -1;
+            }
+        };
+        var leitor = LeitorVoos.ndjson(semQuebras, null);
+
+        var janela = leitor.proximaJanela(10);
+
+        assertThat(janela).containsExactly((RequestPrevisaoDTO) null);
+    }
+
+    private static InputStream corpo(String texto) {
+        return new ByteArrayInputStream(texto.getBytes(StandardCharsets.UTF_8));
+    }
+}
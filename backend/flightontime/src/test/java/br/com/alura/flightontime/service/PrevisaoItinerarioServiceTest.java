@@ -0,0 +1,90 @@
+package br.com.alura.flightontime.service;
+
+import br.com.alura.flightontime.busca.IndiceAeroportos;
+import br.com.alura.flightontime.dto.request.HorarioPartida;
+import br.com.alura.flightontime.dto.request.RequestItinerarioDTO;
+import br.com.alura.flightontime.dto.request.RequestPrevisaoDTO;
+import br.com.alura.flightontime.infra.exception.ServicoExternoIndisponivelException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PrevisaoItinerarioServiceTest {
+
+    private final PrevisaoVooService previsaoVooService = mock(PrevisaoVooService.class);
+    private final CountDownLatch liberarModelo = new CountDownLatch(1);
+    private ExecutorService executor;
+    private PrevisaoItinerarioService service;
+
+    @BeforeEach
+    void configurar() {
+        // Uma thread só: o primeiro trecho ocupa o executor e o segundo fica na fila
+        executor = Executors.newSingleThreadExecutor();
+        service = new PrevisaoItinerarioService();
+        ReflectionTestUtils.setField(service, "previsaoVooService", previsaoVooService);
+        ReflectionTestUtils.setField(service, "indiceAeroportos", mock(IndiceAeroportos.class));
+        ReflectionTestUtils.setField(service, "executorChamadasModelo", executor);
+        ReflectionTestUtils.setField(service, "trechosMaximo", 6);
+        ReflectionTestUtils.setField(service, "prazo", Duration.ofMillis(200));
+        ReflectionTestUtils.setField(service, "conexaoMinima", Duration.ofMinutes(45));
+        ReflectionTestUtils.setField(service, "atrasoMedio", Duration.ofMinutes(45));
+
+        when(previsaoVooService.previsaoValidada(any())).thenAnswer(invocacao -> {
+            liberarModelo.await();
+            return null;
+        });
+    }
+
+    @AfterEach
+    void encerrar() {
+        liberarModelo.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void prazoEsgotadoRespondeIndisponivelSemEsperarOsTrechos() {
+        var itinerario = new RequestItinerarioDTO(List.of(
+                trecho("SBGR", "SBGL", "2030-01-10T08:00:00"),
+                trecho("SBGL", "SBSV", "2030-01-10T14:00:00")));
+
+        long inicio = System.nanoTime();
+        assertThatThrownBy(() -> service.previsao(itinerario))
+                .isInstanceOf(ServicoExternoIndisponivelException.class)
+                .hasMessageContaining("Tempo esgotado");
+        assertThat(Duration.ofNanos(System.nanoTime() - inicio)).isLessThan(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void prazoEsgotadoCancelaOsTrechosQueAindaNaoChamaramOModelo() throws InterruptedException {
+        var itinerario = new RequestItinerarioDTO(List.of(
+                trecho("SBGR", "SBGL", "2030-01-10T08:00:00"),
+                trecho("SBGL", "SBSV", "2030-01-10T14:00:00")));
+        assertThatThrownBy(() -> service.previsao(itinerario)).isInstanceOf(ServicoExternoIndisponivelException.class);
+
+        // O trecho em andamento não é interrompido e termina depois da resposta; o da fila nunca roda
+        liberarModelo.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(2, TimeUnit.SECONDS)).isTrue();
+        verify(previsaoVooService, times(1)).previsaoValidada(any());
+    }
+
+    private static RequestPrevisaoDTO trecho(String origem, String destino, String partida) {
+        return new RequestPrevisaoDTO("GLO", origem, destino, HorarioPartida.de(partida));
+    }
+}
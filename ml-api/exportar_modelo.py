@@ -0,0 +1,68 @@
+"""
+Exporta o modelo treinado (modelo_flight_delay.pkl) para um JSON que o backend consegue avaliar sem o Python.
+
+Uso:
+    python exportar_modelo.py [modelo_flight_delay.pkl] [modelo_flight_delay.json]
+
+Cada árvore da floresta vira um conjunto de vetores paralelos, na mesma ordem de nós do scikit-learn:
+- feature: índice em `features` usado no nó (-2 nas folhas)
+- limiar: o nó vai para a esquerda quando valor <= limiar
+- esquerda / direita: índice do filho (-1 nas folhas)
+- valor: probabilidade de atraso da folha (0 nos nós internos)
+"""
+import json
+import math
+import sys
+
+import joblib
+import numpy as np
+
+FORMATO = 1
+
+
+def exportar_arvore(arvore, indice_classe_atraso: int) -> dict:
+    estrutura = arvore.tree_
+    contagens = estrutura.value[:, 0, :]
+    totais = contagens.sum(axis=1)
+    folha = estrutura.children_left == -1
+
+    probabilidades = np.where(folha, contagens[:, indice_classe_atraso] / np.where(totais > 0, totais, 1), 0.0)
+    return {
+        "feature": [int(f) for f in estrutura.feature],
+        "limiar": [float(t) for t in estrutura.threshold],
+        "esquerda": [int(n) for n in estrutura.children_left],
+        "direita": [int(n) for n in estrutura.children_right],
+        "valor": [float(p) for p in probabilidades],
+    }
+
+
+def exportar_mapa(mapa) -> dict:
+    return {str(chave): float(valor) for chave, valor in dict(mapa).items() if not math.isnan(valor)}
+
+
+def main():
+    origem = sys.argv[1] if len(sys.argv) > 1 else "modelo_flight_delay.pkl"
+    destino = sys.argv[2] if len(sys.argv) > 2 else "modelo_flight_delay.json"
+
+    modelo_completo = joblib.load(origem)
+    floresta = modelo_completo["modelo"]
+    indice_classe_atraso = list(floresta.classes_).index(1)
+
+    exportado = {
+        "formato": FORMATO,
+        "data_treinamento": modelo_completo["data_treinamento"],
+        "features": list(modelo_completo["features_finais"]),
+        "taxa_base_atraso": float(modelo_completo["taxa_base_atraso"]),
+        "mapas_de_risco": {col: exportar_mapa(mapa) for col, mapa in modelo_completo["mapas_de_risco"].items()},
+        "arvores": [exportar_arvore(arvore, indice_classe_atraso) for arvore in floresta.estimators_],
+    }
+
+    with open(destino, "w", encoding="utf-8") as arquivo:
+        json.dump(exportado, arquivo, ensure_ascii=False, separators=(",", ":"))
+
+    nos = sum(len(a["valor"]) for a in exportado["arvores"])
+    print(f"✓ Modelo exportado para {destino}: {len(exportado['arvores'])} árvores, {nos} nós")
+
+
+if __name__ == "__main__":
+    main()
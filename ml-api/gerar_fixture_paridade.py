@@ -0,0 +1,127 @@
+"""
+Gera a fixture usada pelo ModeloAtrasoParidadeTest do backend: um modelo pequeno exportado no formato de
+exportar_modelo.py e as probabilidades que o predict_proba do scikit-learn devolve para alguns voos.
+
+Uso:
+    python gerar_fixture_paridade.py [destino.json]
+
+A floresta é treinada com dados sintéticos, então os valores não têm significado; o que importa é que o
+backend chegue às mesmas probabilidades passando pelo mesmo preparar_features do main.py. Os voos incluem
+categorias desconhecidas, distância ausente e uma distância igual a um limiar da floresta.
+"""
+import json
+import sys
+
+import numpy as np
+import pandas as pd
+from sklearn.ensemble import RandomForestClassifier
+
+import main
+from exportar_modelo import FORMATO, exportar_arvore, exportar_mapa
+
+DESTINO = "../backend/flightontime/src/test/resources/inferencia/modelo_paridade.json"
+
+FEATURES = [
+    "risco_aerodromo_origem", "risco_aerodromo_destino", "risco_empresa", "risco_periodo_dia",
+    "is_weekend", "alta_temporada", "partida_hora", "partida_dia_semana", "partida_mes", "distancia_km",
+]
+
+TAXA_BASE_ATRASO = 0.27
+
+MAPAS_DE_RISCO = {
+    "aerodromo_origem": {"SBGR": 0.2, "SBSP": 0.3},
+    "aerodromo_destino": {"SBGL": 0.22, "SBRF": 0.31},
+    "empresa": {"GLO": 0.28, "AZU": 0.35},
+    "periodo_dia": {"Manhã": 0.18, "Tarde": 0.26, "Noite": 0.33, "Madrugada": 0.1},
+}
+
+VOOS = [
+    {"aerodromo_origem": "SBGR", "aerodromo_destino": "SBGL", "empresa": "GLO", "periodo_dia": "Manhã",
+     "partida_hora": 8, "partida_dia_semana": 2, "partida_mes": 3, "distancia_km": 339.4},
+    # Categorias que não existiam no treino ficam com a taxa base
+    {"aerodromo_origem": "SBKP", "aerodromo_destino": "SBPA", "empresa": "TAM", "periodo_dia": "Tarde",
+     "partida_hora": 17, "partida_dia_semana": 5, "partida_mes": 7, "distancia_km": 850.0},
+    # Distância desconhecida vira 0
+    {"aerodromo_origem": "SBGR", "aerodromo_destino": "SBRF", "empresa": "AZU", "periodo_dia": "Noite",
+     "partida_hora": 21, "partida_dia_semana": 6, "partida_mes": 12, "distancia_km": None},
+    {"aerodromo_origem": "SBSP", "aerodromo_destino": "SBGL", "empresa": "GLO", "periodo_dia": "Madrugada",
+     "partida_hora": 3, "partida_dia_semana": 0, "partida_mes": 1, "distancia_km": 1200.0},
+]
+
+
+def treinar() -> RandomForestClassifier:
+    rng = np.random.default_rng(42)
+    n = 500
+
+    def amostra(mapa):
+        return rng.choice(list(mapa.values()) + [TAXA_BASE_ATRASO], n)
+
+    x = pd.DataFrame({
+        "risco_aerodromo_origem": amostra(MAPAS_DE_RISCO["aerodromo_origem"]),
+        "risco_aerodromo_destino": amostra(MAPAS_DE_RISCO["aerodromo_destino"]),
+        "risco_empresa": amostra(MAPAS_DE_RISCO["empresa"]),
+        "risco_periodo_dia": amostra(MAPAS_DE_RISCO["periodo_dia"]),
+        "partida_hora": rng.integers(0, 24, n),
+        "partida_dia_semana": rng.integers(0, 7, n),
+        "partida_mes": rng.integers(1, 13, n),
+        "distancia_km": rng.uniform(0, 3000, n).round(1),
+    })
+    x["is_weekend"] = x["partida_dia_semana"].isin([5, 6]).astype(int)
+    x["alta_temporada"] = x["partida_mes"].isin([12, 1, 7]).astype(int)
+    pontuacao = (x["risco_aerodromo_origem"] + x["risco_periodo_dia"] + 0.2 * x["alta_temporada"]
+                 + x["distancia_km"] / 6000 + rng.normal(0, 0.1, n))
+    y = (pontuacao > 0.75).astype(int)
+    return RandomForestClassifier(n_estimators=3, max_depth=3, random_state=42).fit(x[FEATURES], y)
+
+
+def voo_no_limiar(floresta: RandomForestClassifier):
+    """Um voo com a distância igual ao primeiro limiar de distância: em float32 ele pode cair à direita."""
+    indice = FEATURES.index("distancia_km")
+    for arvore in floresta.estimators_:
+        for feature, limiar in zip(arvore.tree_.feature, arvore.tree_.threshold):
+            if feature == indice:
+                return dict(VOOS[0], distancia_km=float(limiar))
+    return None
+
+
+def gerar():
+    destino = sys.argv[1] if len(sys.argv) > 1 else DESTINO
+
+    floresta = treinar()
+    main.modelo_completo = {
+        "modelo": floresta,
+        "features_finais": FEATURES,
+        "taxa_base_atraso": TAXA_BASE_ATRASO,
+        "mapas_de_risco": {coluna: pd.Series(mapa) for coluna, mapa in MAPAS_DE_RISCO.items()},
+    }
+
+    voos = list(VOOS)
+    limiar = voo_no_limiar(floresta)
+    if limiar is not None:
+        voos.append(limiar)
+
+    probabilidades = floresta.predict_proba(main.preparar_features(pd.DataFrame(voos)))[:, 1]
+    indice_classe_atraso = list(floresta.classes_).index(1)
+
+    fixture = {
+        "modelo": {
+            "formato": FORMATO,
+            "data_treinamento": "fixture-paridade",
+            "features": FEATURES,
+            "taxa_base_atraso": TAXA_BASE_ATRASO,
+            "mapas_de_risco": {coluna: exportar_mapa(mapa) for coluna, mapa in MAPAS_DE_RISCO.items()},
+            "arvores": [exportar_arvore(arvore, indice_classe_atraso) for arvore in floresta.estimators_],
+        },
+        "casos": [
+            {"voo": voo, "probabilidade": float(p), "probabilidade_arredondada": round(float(p), 4)}
+            for voo, p in zip(voos, probabilidades)
+        ],
+    }
+
+    with open(destino, "w", encoding="utf-8") as arquivo:
+        json.dump(fixture, arquivo, ensure_ascii=False, indent=2)
+    print(f"✓ Fixture gravada em {destino} com {len(fixture['casos'])} casos")
+
+
+if __name__ == "__main__":
+    gerar()
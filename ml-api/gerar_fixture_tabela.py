@@ -0,0 +1,44 @@
+"""
+Gera a fixture usada pelo TabelaPrevisoesTest do backend com o mesmo escrever_tabela de
+gerar_tabela_previsoes.py, para que os dois lados do formato binário sejam testados juntos.
+
+Uso:
+    python gerar_fixture_tabela.py [destino.bin]
+
+Não precisa do modelo: cada célula recebe (17 * rota + 5 * hora + 3 * dia + mês) % 101, onde rota é a
+posição em ROTAS, e o teste recalcula o valor esperado com a mesma conta.
+"""
+import itertools
+import sys
+
+from gerar_tabela_previsoes import DIAS, HORAS, MESES, escrever_tabela
+
+DESTINO = "../backend/flightontime/src/test/resources/inferencia/tabela_previsoes.bin"
+
+VERSAO = "fixture-tabela"
+
+# Fora de ordem de propósito: a tabela ordena aeroportos, companhias e chaves
+ROTAS = [
+    ("SBSP", "SBGR", "GLO"),
+    ("SBGR", "SBGL", "GLO"),
+    ("SBGL", "SBGR", "AZU"),
+]
+
+
+def centesimos(rota: int, hora: int, dia: int, mes: int) -> int:
+    return (17 * rota + 5 * hora + 3 * dia + mes) % 101
+
+
+def main():
+    destino = sys.argv[1] if len(sys.argv) > 1 else DESTINO
+    dados_por_rota = {
+        rota: bytes(centesimos(i, h, d, m)
+                    for h, d, m in itertools.product(range(HORAS), range(DIAS), range(1, MESES + 1)))
+        for i, rota in enumerate(ROTAS)
+    }
+    escrever_tabela(destino, VERSAO, ROTAS, dados_por_rota)
+    print(f"✓ Fixture gravada em {destino} com {len(ROTAS)} rotas")
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,143 @@
+"""
+Pontua offline todas as combinações de rota, companhia e horário de partida e grava uma tabela binária
+que o backend consulta via arquivo mapeado em memória (api.previsao.tabela.arquivo).
+
+Uso:
+    python gerar_tabela_previsoes.py rotas.csv [modelo_flight_delay.pkl] [tabela_previsoes.bin]
+
+rotas.csv tem cabeçalho e as colunas aerodromo_origem,aerodromo_destino,empresa, com os códigos no mesmo
+formato enviado pelo backend (ICAO). Para cada linha são pontuadas 24 horas x 7 dias da semana x 12 meses.
+
+Se o modelo usa distancia_km, o CSV também precisa da coluna distancia_km: o backend não consulta a tabela
+pela distância, então cada rota é pontuada com a distância informada. Ela deve ser a mesma que o backend
+calcula (ortodrômica entre as coordenadas da tabela de aeroportos, raio de 6371.0088 km); vazia vira 0,
+como no backend quando um dos aeroportos não tem coordenadas.
+
+Formato (big-endian):
+    "FOTP", formato (int32), data_treinamento (uint16 + UTF-8)
+    horas, dias, meses (int32 cada)
+    aeroportos: quantidade (int32) + códigos (uint16 + UTF-8)
+    companhias: quantidade (int32) + códigos (uint16 + UTF-8)
+    combinações: quantidade (int32) + chaves (int64, ordenadas) = origem << 40 | destino << 20 | companhia
+    dados: para cada combinação, na ordem das chaves, um byte por (hora, dia, mês), com a probabilidade em
+           centésimos (0 a 100), que é a precisão devolvida pelo backend
+
+O arquivo é gravado em um temporário e renomeado no fim, para que um backend com a versão anterior
+mapeada não leia um arquivo pela metade.
+"""
+import csv
+import os
+import struct
+import sys
+
+MAGICO = b"FOTP"
+FORMATO = 1
+HORAS, DIAS, MESES = 24, 7, 12
+COMBINACOES_POR_LOTE = 500
+
+
+def periodo_dia(hora: int) -> str:
+    # Mesma regra de PeriodoDia.retornaPeriodo no backend
+    if hora < 6:
+        return "Madrugada"
+    if hora < 12:
+        return "Manhã"
+    if hora < 18:
+        return "Tarde"
+    return "Noite"
+
+
+def ler_rotas(caminho: str) -> tuple:
+    """Rotas ordenadas e a distância de cada uma, ou None se o CSV não tiver a coluna distancia_km."""
+    distancias = {}
+    with open(caminho, newline="", encoding="utf-8") as arquivo:
+        leitor = csv.DictReader(arquivo)
+        com_distancia = "distancia_km" in (leitor.fieldnames or [])
+        for l in leitor:
+            rota = (l["aerodromo_origem"].strip().upper(), l["aerodromo_destino"].strip().upper(), l["empresa"].strip().upper())
+            distancia = float(l["distancia_km"]) if com_distancia and l["distancia_km"].strip() else None
+            if rota in distancias and distancias[rota] != distancia:
+                raise ValueError(f"Rota {rota} com distâncias diferentes no CSV")
+            distancias[rota] = distancia
+    return sorted(distancias), distancias if com_distancia else None
+
+
+def _texto(valor: str) -> bytes:
+    codificado = valor.encode("utf-8")
+    return struct.pack(">H", len(codificado)) + codificado
+
+
+def escrever_tabela(destino: str, versao: str, rotas: list, dados_por_rota: dict):
+    """dados_por_rota: (origem, destino, empresa) -> bytes com HORAS * DIAS * MESES centésimos."""
+    aeroportos = sorted({r[0] for r in rotas} | {r[1] for r in rotas})
+    companhias = sorted({r[2] for r in rotas})
+    indice_aeroporto = {codigo: i for i, codigo in enumerate(aeroportos)}
+    indice_companhia = {codigo: i for i, codigo in enumerate(companhias)}
+
+    chaves = sorted(
+        (indice_aeroporto[o] << 40 | indice_aeroporto[d] << 20 | indice_companhia[e], (o, d, e)) for o, d, e in rotas)
+
+    temporario = destino + ".tmp"
+    with open(temporario, "wb") as arquivo:
+        arquivo.write(MAGICO + struct.pack(">i", FORMATO) + _texto(versao))
+        arquivo.write(struct.pack(">iii", HORAS, DIAS, MESES))
+        for codigos in (aeroportos, companhias):
+            arquivo.write(struct.pack(">i", len(codigos)))
+            for codigo in codigos:
+                arquivo.write(_texto(codigo))
+        arquivo.write(struct.pack(">i", len(chaves)))
+        arquivo.write(b"".join(struct.pack(">q", chave) for chave, _ in chaves))
+        for _, rota in chaves:
+            dados = dados_por_rota[rota]
+            if len(dados) != HORAS * DIAS * MESES:
+                raise ValueError(f"Rota {rota} com {len(dados)} valores")
+            arquivo.write(dados)
+    os.replace(temporario, destino)
+
+
+def main():
+    import itertools
+    import joblib
+    import numpy as np
+    import pandas as pd
+    import main as api
+
+    rotas, distancias = ler_rotas(sys.argv[1])
+    origem_modelo = sys.argv[2] if len(sys.argv) > 2 else "modelo_flight_delay.pkl"
+    destino = sys.argv[3] if len(sys.argv) > 3 else "tabela_previsoes.bin"
+
+    # Reaproveita a engenharia de features da API para que a tabela seja idêntica às previsões online
+    api.modelo_completo = joblib.load(origem_modelo)
+    modelo = api.modelo_completo["modelo"]
+    indice_classe_atraso = list(modelo.classes_).index(1)
+    if "distancia_km" in api.modelo_completo["features_finais"] and distancias is None:
+        sys.exit("✗ O modelo usa distancia_km: inclua a coluna distancia_km em rotas.csv")
+
+    # Ordem das células: hora, dia da semana e mês, como o backend calcula o deslocamento
+    horarios = pd.DataFrame(
+        [(h, periodo_dia(h), d, m) for h, d, m in itertools.product(range(HORAS), range(DIAS), range(1, MESES + 1))],
+        columns=["partida_hora", "periodo_dia", "partida_dia_semana", "partida_mes"])
+
+    dados_por_rota = {}
+    for inicio in range(0, len(rotas), COMBINACOES_POR_LOTE):
+        lote = rotas[inicio:inicio + COMBINACOES_POR_LOTE]
+        rotas_lote = pd.DataFrame(lote, columns=["aerodromo_origem", "aerodromo_destino", "empresa"])
+        if distancias is not None:
+            rotas_lote["distancia_km"] = [distancias[rota] for rota in lote]
+        grade = rotas_lote.merge(horarios, how="cross")
+
+        probabilidades = modelo.predict_proba(api.preparar_features(grade))[:, indice_classe_atraso]
+        # Mesmo arredondamento da resposta online: 4 casas no ml-api e depois 2 casas (HALF_UP) no backend
+        centesimos = np.floor(np.round(probabilidades, 4) * 100 + 0.5).clip(0, 100).astype(np.uint8)
+
+        celulas = len(horarios)
+        for i, rota in enumerate(lote):
+            dados_por_rota[rota] = centesimos[i * celulas:(i + 1) * celulas].tobytes()
+        print(f"  {min(inicio + COMBINACOES_POR_LOTE, len(rotas))}/{len(rotas)} rotas pontuadas")
+
+    escrever_tabela(destino, api.modelo_completo["data_treinamento"], rotas, dados_por_rota)
+    print(f"✓ Tabela gravada em {destino}: {len(rotas)} rotas, {os.path.getsize(destino) / (1024 * 1024):.1f} MB")
+
+
+if __name__ == "__main__":
+    main()
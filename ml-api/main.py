@@ -1,10 +1,13 @@
-from fastapi import FastAPI, HTTPException
+from fastapi import FastAPI, HTTPException, Request
 from fastapi.middleware.cors import CORSMiddleware
+from fastapi.middleware.gzip import GZipMiddleware
+from fastapi.routing import APIRoute
 from pydantic import BaseModel, Field
 import joblib
 import pandas as pd
-from typing import Optional
+from typing import List, Optional
 import logging
+import gzip
 from datetime import datetime
 from contextlib import asynccontextmanager
 
@@ -86,6 +89,29 @@ app = FastAPI(
     servers=[{"url": "/ml-api", "description": "Default Server"}]
 )
 
+# --- Compressão ---
+# O backend pode enviar os lotes com Content-Encoding: gzip (api.client.gzip.habilitado)
+class GzipRequest(Request):
+    async def body(self) -> bytes:
+        if not hasattr(self, "_body"):
+            body = await super().body()
+            if "gzip" in self.headers.getlist("Content-Encoding"):
+                body = gzip.decompress(body)
+            self._body = body
+        return self._body
+
+class GzipRoute(APIRoute):
+    def get_route_handler(self):
+        handler_original = super().get_route_handler()
+
+        async def handler(request: Request):
+            return await handler_original(GzipRequest(request.scope, request.receive))
+
+        return handler
+
+app.router.route_class = GzipRoute
+app.add_middleware(GZipMiddleware, minimum_size=2048)
+
 origins = [
     "http://localhost:3000",      # Frontend em desenvolvimento
     "http://flightontime-nginx",  # Comunicação interna via Docker
@@ -111,6 +137,7 @@ class VooInput(BaseModel):
     partida_hora: int = Field(..., ge=0, le=23, json_schema_extra={"example": 14}, description="Hora da partida (0-23)")
     partida_dia_semana: int = Field(..., ge=0, le=6, json_schema_extra={"example": 4}, description="Dia da semana (0=Seg, 6=Dom)")
     partida_mes: int = Field(..., ge=1, le=12, json_schema_extra={"example": 12}, description="Mês da partida (1-12)")
+    distancia_km: Optional[float] = Field(None, ge=0, json_schema_extra={"example": 339.4}, description="Distância ortodrômica entre origem e destino, calculada pelo backend")
 
 class PrevisaoOutput(BaseModel):
     previsao: str = Field(..., description="Pontual ou Atrasado")
@@ -141,6 +168,41 @@ async def health():
         "metricas": modelo_completo['metricas']
     }
 
+def preparar_features(df_input: pd.DataFrame) -> pd.DataFrame:
+    """Aplica a engenharia de features do treino e retorna as colunas esperadas pelo modelo"""
+    mapas_de_risco = modelo_completo['mapas_de_risco']
+    features_finais = modelo_completo['features_finais']
+    taxa_base_atraso = modelo_completo['taxa_base_atraso']
+
+    # 1. Feature Engineering - Temporais
+    df_input['is_weekend'] = df_input['partida_dia_semana'].isin([5, 6]).astype(int)
+    df_input['alta_temporada'] = df_input['partida_mes'].isin([12, 1, 7]).astype(int)
+    # Mesmo valor que o modelo embarcado do backend usa quando a distância não é conhecida
+    if 'distancia_km' in df_input:
+        df_input['distancia_km'] = df_input['distancia_km'].fillna(0)
+
+    # 2. Feature Engineering - Target Encoding
+    for col in ['aerodromo_origem', 'aerodromo_destino', 'empresa', 'periodo_dia']:
+        nome_col_risco = f'risco_{col}'
+        # Usar o mapa de risco se a chave existir, senão usa a média global
+        # Precisamos tratar casos de categorias novas não vistas no treino
+        if col in mapas_de_risco:
+            df_input[nome_col_risco] = df_input[col].map(mapas_de_risco[col]).fillna(taxa_base_atraso)
+        else:
+             df_input[nome_col_risco] = taxa_base_atraso
+
+    # 3. Selecionar features
+    return df_input[features_finais]
+
+def montar_saida(prob_atraso: float, timestamp: str) -> PrevisaoOutput:
+    status = "Atrasado" if prob_atraso > 0.5 else "Pontual"
+    return PrevisaoOutput(
+        previsao=status,
+        probabilidade_atraso=round(prob_atraso, 4),
+        confianca_percentual=f"{prob_atraso:.1%}",
+        timestamp=timestamp
+    )
+
 @app.post("/predict", response_model=PrevisaoOutput)
 async def predict(voo: VooInput):
     """
@@ -150,49 +212,45 @@ async def predict(voo: VooInput):
         if modelo_completo is None:
             raise HTTPException(status_code=503, detail="Modelo não disponível")
         
-        # Extrair componentes do modelo
-        rf_class = modelo_completo['modelo']
-        mapas_de_risco = modelo_completo['mapas_de_risco']
-        features_finais = modelo_completo['features_finais']
-        taxa_base_atraso = modelo_completo['taxa_base_atraso']
-        
-        # 1. Criar DataFrame
+        # 1. Criar DataFrame e aplicar a engenharia de features
         dados_voo = voo.dict()
-        df_input = pd.DataFrame([dados_voo])
-        
-        # 2. Feature Engineering - Temporais
-        df_input['is_weekend'] = df_input['partida_dia_semana'].isin([5, 6]).astype(int)
-        df_input['alta_temporada'] = df_input['partida_mes'].isin([12, 1, 7]).astype(int)
+        X_input = preparar_features(pd.DataFrame([dados_voo]))
         
-        # 3. Feature Engineering - Target Encoding
-        for col in ['aerodromo_origem', 'aerodromo_destino', 'empresa', 'periodo_dia']:
-            nome_col_risco = f'risco_{col}'
-            # Usar o mapa de risco se a chave existir, senão usa a média global
-            # Precisamos tratar casos de categorias novas não vistas no treino
-            if col in mapas_de_risco:
-                df_input[nome_col_risco] = df_input[col].map(mapas_de_risco[col]).fillna(taxa_base_atraso)
-            else:
-                 df_input[nome_col_risco] = taxa_base_atraso
+        # 2. Predição
+        prob_atraso = float(modelo_completo['modelo'].predict_proba(X_input)[0, 1])
         
-        # 4. Selecionar features
-        X_input = df_input[features_finais]
-        
-        # 5. Predição
-        prob_atraso = float(rf_class.predict_proba(X_input)[0, 1])
-        status = "Atrasado" if prob_atraso > 0.5 else "Pontual"
-        
-        # 6. Retornar resultado
-        return PrevisaoOutput(
-            previsao=status,
-            probabilidade_atraso=round(prob_atraso, 4),
-            confianca_percentual=f"{prob_atraso:.1%}",
-            timestamp=datetime.now().isoformat()
-        )
+        # 3. Retornar resultado
+        return montar_saida(prob_atraso, datetime.now().isoformat())
         
+    except HTTPException:
+        raise
     except Exception as e:
         logger.error(f"Erro na predição: {str(e)}")
         raise HTTPException(status_code=500, detail=f"Erro ao processar predição: {str(e)}")
 
+@app.post("/predict/lote", response_model=List[PrevisaoOutput])
+async def predict_lote(voos: List[VooInput]):
+    """
+    Predição de vários voos em uma única chamada ao modelo. As respostas seguem a ordem da requisição.
+    """
+    try:
+        if modelo_completo is None:
+            raise HTTPException(status_code=503, detail="Modelo não disponível")
+        if not voos:
+            return []
+
+        X_input = preparar_features(pd.DataFrame([voo.dict() for voo in voos]))
+        probabilidades = modelo_completo['modelo'].predict_proba(X_input)[:, 1]
+
+        timestamp = datetime.now().isoformat()
+        return [montar_saida(float(prob), timestamp) for prob in probabilidades]
+
+    except HTTPException:
+        raise
+    except Exception as e:
+        logger.error(f"Erro na predição em lote: {str(e)}")
+        raise HTTPException(status_code=500, detail=f"Erro ao processar predição em lote: {str(e)}")
+
 @app.get("/model-info")
 async def model_info():
     """Retorna informações sobre o modelo"""